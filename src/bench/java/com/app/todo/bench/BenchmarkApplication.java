@@ -0,0 +1,82 @@
+package com.app.todo.bench;
+
+import com.app.todo.TodoApplication;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boots the to-do application for benchmarks on a private in-memory H2 database and a random local port.
+ * An optional per-statement delay stands in for the network round trip to MySQL, which H2 does not have.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(Map<String, Object> properties, Duration statementLatency) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("server.address", "127.0.0.1");
+        defaults.put("server.port", 0);
+        defaults.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.jpa.database", "h2");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        defaults.put("logging.level.com.app.todo", "WARN");
+        defaults.putAll(properties);
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(TodoApplication.class);
+        if (!statementLatency.isZero()) {
+            builder.initializers(context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? delayed(DataSource.class, dataSource, statementLatency) : bean;
+                }
+            }));
+        }
+        //passed as command line arguments so that they take precedence over application.yml
+        return builder.run(defaults.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new));
+    }
+
+    public static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T delayed(Class<T> type, Object target, Duration latency) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (target instanceof Statement && method.getName().startsWith("execute")) {
+                //a sleep unmounts a virtual thread just like a blocking socket read does
+                TimeUnit.NANOSECONDS.sleep(latency.toNanos());
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (result instanceof Connection connection && type == DataSource.class) {
+                return delayed(Connection.class, connection, latency);
+            }
+            if (result instanceof Statement statement && type == Connection.class) {
+                return delayed(method.getReturnType(), statement, latency);
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,306 @@
+package com.app.todo.bench;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load test of every {@link com.app.todo.controller.TodoController} route against the application
+ * booted on an in-memory H2 database, so it runs offline and gives the same numbers for the same build and machine.
+ *
+ * Requests are scheduled at a fixed arrival rate, independent of how fast the server answers, and every latency is
+ * measured from the time the request was <em>due</em> to be sent rather than from when it actually left. A stalled
+ * server therefore shows up in the percentiles instead of silently lowering the request rate (coordinated omission).
+ *
+ * Writes a per-endpoint table (throughput, p50/p99/p99.9/max, error rate) to stdout and to
+ * `target/load-test/report.txt`, plus the full HdrHistogram percentile distribution of every endpoint as
+ * `target/load-test/{endpoint}.hgrm`; both are plain text meant to be diffed between builds.
+ *
+ * <pre>
+ * mvn -Pbench test-compile exec:java -Dexec.mainClass=com.app.todo.bench.LoadTest \
+ *     -Dexec.args="--rate=200 --seconds=60 --mix=get:50,toggle:20,update:10,create:10,delete:5,page:5"
+ * </pre>
+ *
+ * Options: `--rate` requests per second (200), `--seconds` measured duration (30), `--warmup-seconds` (10),
+ * `--mix` relative weights per endpoint (see {@link Endpoint}, defaults below), `--arrival` `uniform` or `poisson`
+ * inter-arrival times (uniform), `--seed` of the random mix (42), `--todos` seeded to-do items (1000),
+ * `--db-latency-ms` delay per statement standing in for the MySQL round trip (0), `--timeout-ms` per request (10000),
+ * `--out` report directory (target/load-test).
+ */
+public class LoadTest {
+
+    private static final String defaultMix =
+            "get:40,list:3,filter:3,stream:1,page:8,create:8,batch:1,update:12,toggle:18,delete:6,deleteAll:0";
+
+    /**
+     * The routes under test. `deleteAll` wipes the seeded data set the other endpoints work on, so it has no
+     * weight unless given one explicitly.
+     */
+    enum Endpoint {
+        get, list, filter, stream, page, create, batch, update, toggle, delete, deleteAll
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rate = Integer.parseInt(option(args, "rate", "200"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(option(args, "seconds", "30")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(option(args, "warmup-seconds", "10")));
+        Map<Endpoint, Integer> mix = mix(option(args, "mix", defaultMix));
+        boolean poisson = option(args, "arrival", "uniform").equals("poisson");
+        long seed = Long.parseLong(option(args, "seed", "42"));
+        int todos = Integer.parseInt(option(args, "todos", "1000"));
+        Duration dbLatency = Duration.ofMillis(Long.parseLong(option(args, "db-latency-ms", "0")));
+        Duration timeout = Duration.ofMillis(Long.parseLong(option(args, "timeout-ms", "10000")));
+        Path out = Path.of(option(args, "out", "target/load-test"));
+
+        ExecutorService responseExecutor = Executors.newCachedThreadPool();
+        try (ConfigurableApplicationContext context = BenchmarkApplication.start(Map.of(), dbLatency)) {
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(responseExecutor)
+                    .build();
+            Workload workload = new Workload(client, "http://127.0.0.1:" + BenchmarkApplication.port(context) + "/api/v1/todos", timeout);
+            workload.seed(todos);
+            //every delete needs a to-do nobody else reads, so enough of them are created up front
+            int weights = mix.values().stream().mapToInt(Integer::intValue).sum();
+            workload.seedDeletable((int) (rate * (warmup.getSeconds() + duration.getSeconds()) * mix.get(Endpoint.delete) / weights) + 1);
+
+            run(workload, mix, rate, poisson, new Random(seed), warmup);
+            Map<Endpoint, Stats> stats = run(workload, mix, rate, poisson, new Random(seed + 1), duration);
+            report(stats, mix, duration, out);
+        } finally {
+            responseExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends requests at their scheduled arrival times from a single thread and records each response
+     * asynchronously. The scheduler never waits for a response, so a slow server cannot slow the arrivals down.
+     */
+    private static Map<Endpoint, Stats> run(Workload workload, Map<Endpoint, Integer> mix, int rate, boolean poisson,
+                                            Random random, Duration duration) throws Exception {
+        Map<Endpoint, Stats> stats = new EnumMap<>(Endpoint.class);
+        mix.keySet().forEach(endpoint -> stats.put(endpoint, new Stats()));
+        Endpoint[] wheel = wheel(mix);
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+        double intervalNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double nextArrival = start;
+        while (nextArrival < end) {
+            long scheduled = (long) nextArrival;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = wheel[random.nextInt(wheel.length)];
+            Stats endpointStats = stats.get(endpoint);
+            inFlight.add(workload.send(endpoint, random)
+                    .handle((status, failure) -> {
+                        //measured from the scheduled send time, not from when the request actually went out
+                        endpointStats.record(System.nanoTime() - scheduled, failure != null || status >= 400);
+                        return null;
+                    }));
+            nextArrival += poisson ? -Math.log(1 - random.nextDouble()) * intervalNanos : intervalNanos;
+        }
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).get(workload.timeout.toSeconds() + 5, TimeUnit.SECONDS);
+        return stats;
+    }
+
+    private static void report(Map<Endpoint, Stats> stats, Map<Endpoint, Integer> mix, Duration duration, Path out) throws IOException {
+        Files.createDirectories(out);
+        double seconds = duration.toNanos() / 1e9;
+        Stats total = new Stats();
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-10s %6s %9s %9s %9s %9s %9s %9s %8s", "endpoint", "weight", "requests", "req/s",
+                "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors %"));
+        for (Map.Entry<Endpoint, Stats> entry : stats.entrySet()) {
+            Stats endpointStats = entry.getValue();
+            total.add(endpointStats);
+            lines.add(row(entry.getKey().name(), mix.get(entry.getKey()), endpointStats, seconds));
+            if (endpointStats.histogram.getTotalCount() > 0) {
+                try (PrintStream hgrm = new PrintStream(out.resolve(entry.getKey() + ".hgrm").toFile())) {
+                    endpointStats.histogram.outputPercentileDistribution(hgrm, 1e6);
+                }
+            }
+        }
+        lines.add(row("total", mix.values().stream().mapToInt(Integer::intValue).sum(), total, seconds));
+        Files.write(out.resolve("report.txt"), lines);
+        lines.forEach(System.out::println);
+    }
+
+    private static String row(String name, int weight, Stats stats, double seconds) {
+        Histogram histogram = stats.histogram;
+        long requests = histogram.getTotalCount();
+        return String.format("%-10s %6d %9d %9.1f %9.2f %9.2f %9.2f %9.2f %8.2f", name, weight, requests,
+                requests / seconds, histogram.getValueAtPercentile(50) / 1e6, histogram.getValueAtPercentile(99) / 1e6,
+                histogram.getValueAtPercentile(99.9) / 1e6, histogram.getMaxValue() / 1e6,
+                requests == 0 ? 0 : 100.0 * stats.errors.sum() / requests);
+    }
+
+    /**
+     * Expands the weights into a lookup table, so picking an endpoint is a single random index.
+     */
+    private static Endpoint[] wheel(Map<Endpoint, Integer> mix) {
+        List<Endpoint> wheel = new ArrayList<>();
+        mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                wheel.add(endpoint);
+            }
+        });
+        if (wheel.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no endpoint with a positive weight");
+        }
+        return wheel.toArray(Endpoint[]::new);
+    }
+
+    private static Map<Endpoint, Integer> mix(String spec) {
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        mix(defaultMix.replaceAll(":\\d+", ":0"), mix);
+        mix(spec, mix);
+        return mix;
+    }
+
+    private static void mix(String spec, Map<Endpoint, Integer> mix) {
+        for (String part : spec.split(",")) {
+            String[] weight = part.trim().split(":");
+            mix.put(Endpoint.valueOf(weight[0]), Integer.parseInt(weight[1]));
+        }
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        return Arrays.stream(args).filter(arg -> arg.startsWith(prefix)).map(arg -> arg.substring(prefix.length()))
+                .findFirst().orElse(defaultValue);
+    }
+
+    /**
+     * Builds and sends the request for each endpoint. Reads and in-place writes target the seeded to-do items;
+     * deletes only consume items created for that purpose, so no other request runs into a 404.
+     */
+    private static final class Workload {
+        private final HttpClient client;
+        private final String baseUrl;
+        private final Duration timeout;
+        private final ConcurrentLinkedQueue<Long> deletable = new ConcurrentLinkedQueue<>();
+        private long[] ids;
+
+        private Workload(HttpClient client, String baseUrl, Duration timeout) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.timeout = timeout;
+        }
+
+        private void seed(int count) throws Exception {
+            ids = createBatch(count);
+        }
+
+        private void seedDeletable(int count) throws Exception {
+            //the batch endpoint takes at most 10000 items per request
+            for (int created = 0; created < count; created += 10_000) {
+                Arrays.stream(createBatch(Math.min(10_000, count - created))).forEach(deletable::add);
+            }
+        }
+
+        private CompletableFuture<Integer> send(Endpoint endpoint, Random random) {
+            long id = ids[random.nextInt(ids.length)];
+            HttpRequest request = switch (endpoint) {
+                case get -> get("/" + id, "application/json");
+                case list -> get("", "application/json");
+                case filter -> get("?completed=false&priority=HIGH&sort=dueDate,desc", "application/json");
+                case stream -> get("", "application/x-ndjson");
+                case page -> get("/page?size=50&cursor=" + id, "application/json");
+                case create -> json("", "POST", todoJson(random.nextInt()));
+                case batch -> json("/batch", "POST", batchJson(10, random.nextInt()));
+                case update -> json("/" + id, "PUT", "{\"title\":\"updated " + random.nextInt() + "\",\"priority\":\"MEDIUM\"}");
+                case toggle -> request("/" + id + "/markOrUnmark").method("PATCH", HttpRequest.BodyPublishers.noBody()).build();
+                case delete -> {
+                    Long deletableId = deletable.poll();
+                    yield request("/" + (deletableId == null ? id : deletableId)).DELETE().build();
+                }
+                case deleteAll -> request("").DELETE().build();
+            };
+            return client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+        }
+
+        private long[] createBatch(int count) throws Exception {
+            HttpResponse<String> response = client.send(json("/batch", "POST", batchJson(count, 0)), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+            }
+            return Arrays.stream(response.body().split("\"id\":"))
+                    .skip(1)
+                    .mapToLong(part -> Long.parseLong(part.substring(0, part.indexOf(','))))
+                    .toArray();
+        }
+
+        private HttpRequest get(String path, String accept) {
+            return request(path).header("Accept", accept).GET().build();
+        }
+
+        private HttpRequest json(String path, String method, String body) {
+            return request(path).header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+        }
+
+        private HttpRequest.Builder request(String path) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout);
+        }
+
+        private static String batchJson(int count, int offset) {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < count; i++) {
+                body.append(i == 0 ? "" : ",").append(todoJson(offset + i));
+            }
+            return body.append("]").toString();
+        }
+
+        private static String todoJson(int i) {
+            return "{\"title\":\"todo " + i + "\",\"description\":\"load test\",\"priority\":\"" + (i % 2 == 0 ? "HIGH" : "LOW")
+                    + "\",\"dueDate\":\"" + LocalDateTime.now().plusDays(1 + Math.floorMod(i, 30)).withNano(0) + "\"}";
+        }
+    }
+
+    private static final class Stats {
+        //nanosecond latencies up to an hour, at three significant digits
+        private final Histogram histogram = new ConcurrentHistogram(TimeUnit.HOURS.toNanos(1), 3);
+        private final LongAdder errors = new LongAdder();
+
+        private void record(long latencyNanos, boolean error) {
+            histogram.recordValue(Math.min(latencyNanos, histogram.getHighestTrackableValue()));
+            if (error) {
+                errors.increment();
+            }
+        }
+
+        private void add(Stats other) {
+            histogram.add(other.histogram);
+            errors.add(other.errors.sum());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.app.todo.bench;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cold start of the packaged application: each {@link Mode} is launched as a separate JVM and timed from
+ * process start until `GET /api/v1/todos` first answers 200 (time to first request), after which the resident set
+ * size of the process is read. Modes are interleaved run by run, so that a slower machine phase hits all of them.
+ *
+ * Needs the jar built with `mvn -Pprod package` (see the pom) and a database reachable with the given settings,
+ * by default the one of application.yml. The first run of a mode against an empty schema pays for creating it.
+ *
+ * <pre>
+ * mvn -Pprod package
+ * mvn -Pbench test-compile exec:java -Dexec.mainClass=com.app.todo.bench.StartupBenchmark \
+ *     -Dexec.args="--runs=5 --datasource-url=jdbc:mysql://localhost:3306/todo_db"
+ * </pre>
+ *
+ * Options: `--runs` per mode (5), `--jar` the repackaged jar (target/todo-0.0.1-SNAPSHOT.jar), `--extracted`
+ * directory of the extracted jar and its CDS archive (target/todo), `--datasource-url`, `--datasource-username`,
+ * `--datasource-password`, `--app-args` further space separated application arguments, `--timeout-seconds` per
+ * start (120), `--out` report and process logs directory (target/startup).
+ *
+ * RSS is read from /proc, so it is only reported on Linux.
+ */
+public class StartupBenchmark {
+
+    /**
+     * The startup configurations compared, each adding one step to the previous one.
+     */
+    enum Mode {
+        //the current setup: fat jar, schema diffed by ddl-auto
+        ddlAuto,
+        //the prod profile: Flyway migrations, no JDBC metadata lookup by Hibernate
+        migrations,
+        //plus the AOT-generated bean definitions
+        aot,
+        //plus the class-data-sharing archive recorded by the training run
+        aotCds
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = Integer.parseInt(option(args, "runs", "5"));
+        Path jar = Path.of(option(args, "jar", "target/todo-0.0.1-SNAPSHOT.jar"));
+        Path extracted = Path.of(option(args, "extracted", "target/todo"));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(option(args, "timeout-seconds", "120")));
+        Path out = Path.of(option(args, "out", "target/startup"));
+
+        List<String> appArgs = new ArrayList<>();
+        for (String setting : List.of("url", "username", "password")) {
+            String value = option(args, "datasource-" + setting, null);
+            if (value != null) {
+                appArgs.add("--spring.datasource." + setting + "=" + value);
+            }
+        }
+        String extraArgs = option(args, "app-args", "");
+        if (!extraArgs.isBlank()) {
+            appArgs.addAll(Arrays.asList(extraArgs.trim().split("\\s+")));
+        }
+
+        Files.createDirectories(out);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        Map<Mode, List<Sample>> samples = new EnumMap<>(Mode.class);
+        for (int run = 0; run < runs; run++) {
+            for (Mode mode : Mode.values()) {
+                List<String> command = command(mode, jar, extracted, appArgs);
+                Sample sample = start(command, client, timeout, out.resolve(mode + "-" + run + ".log"));
+                System.out.printf("%-10s run %d: %8.0f ms, %6.1f MB%n", mode, run, sample.getMillis(), sample.getRssMb());
+                samples.computeIfAbsent(mode, key -> new ArrayList<>()).add(sample);
+            }
+        }
+        report(samples, out);
+    }
+
+    private static List<String> command(Mode mode, Path jar, Path extracted, List<String> appArgs) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (mode == Mode.aotCds) {
+            command.add("-XX:SharedArchiveFile=" + extracted.resolve("application.jsa"));
+        }
+        if (mode == Mode.aot || mode == Mode.aotCds) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        if (mode != Mode.ddlAuto) {
+            command.add("-Dspring.profiles.active=prod");
+        }
+        command.add("-jar");
+        //the archive only matches the class path it was recorded with, that of the extracted jar
+        command.add(mode == Mode.aotCds ? extracted.resolve(jar.getFileName()).toString() : jar.toString());
+        command.addAll(appArgs);
+        return command;
+    }
+
+    private static Sample start(List<String> command, HttpClient client, Duration timeout, Path log) throws Exception {
+        int port = freePort();
+        List<String> withPort = new ArrayList<>(command);
+        withPort.add("--server.address=127.0.0.1");
+        withPort.add("--server.port=" + port);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/v1/todos"))
+                .timeout(Duration.ofSeconds(5)).build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(withPort).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            long deadline = start + timeout.toNanos();
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("The application exited with " + process.exitValue() + ", see " + log);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("The application did not answer within " + timeout + ", see " + log);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (ConnectException e) {
+                    //not listening yet
+                }
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            double millis = (System.nanoTime() - start) / 1e6;
+            return new Sample(millis, rssMb(process.pid()));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static double rssMb(long pid) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return Double.NaN;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                //reported in kB
+                .mapToDouble(line -> Long.parseLong(line.replaceAll("\\D", "")) / 1024.0)
+                .findFirst().orElse(Double.NaN);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void report(Map<Mode, List<Sample>> samples, Path out) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-10s %5s %12s %12s %14s", "mode", "runs", "median ms", "min ms", "median RSS MB"));
+        for (Map.Entry<Mode, List<Sample>> entry : samples.entrySet()) {
+            double[] millis = entry.getValue().stream().mapToDouble(Sample::getMillis).sorted().toArray();
+            double[] rss = entry.getValue().stream().mapToDouble(Sample::getRssMb).sorted().toArray();
+            lines.add(String.format("%-10s %5d %12.0f %12.0f %14.1f", entry.getKey(), millis.length,
+                    median(millis), millis[0], median(rss)));
+        }
+        Files.write(out.resolve("report.txt"), lines);
+        lines.forEach(System.out::println);
+    }
+
+    private static double median(double[] sorted) {
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        return Arrays.stream(args).filter(arg -> arg.startsWith(prefix)).map(arg -> arg.substring(prefix.length()))
+                .findFirst().orElse(defaultValue);
+    }
+
+    @lombok.Value
+    private static class Sample {
+        double millis;
+        double rssMb;
+    }
+}
@@ -0,0 +1,202 @@
+package com.app.todo.bench;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares the {@link com.app.todo.controller.TodoController} endpoints served by Tomcat's platform-thread pool
+ * against virtual threads (`spring.threads.virtual.enabled`) at rising client concurrency. Every statement is
+ * delayed to stand in for a MySQL round trip, so request threads spend most of their time blocked as in production.
+ *
+ * Virtual threads need a Java 21+ runtime; on older runtimes only the platform mode is measured.
+ *
+ * <pre>
+ * JAVA_HOME=/path/to/jdk21 mvn -Pbench test-compile exec:java \
+ *     -Dexec.mainClass=com.app.todo.bench.ThreadModelBenchmark \
+ *     -Dexec.args="--concurrency=16,64,256,1024 --seconds=15 --db-latency-ms=5"
+ * </pre>
+ */
+public class ThreadModelBenchmark {
+
+    private static final int seededTodos = 200;
+
+    public static void main(String[] args) throws Exception {
+        int[] concurrencyLevels = Arrays.stream(option(args, "concurrency", "16,64,256,1024").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        Duration duration = Duration.ofSeconds(Long.parseLong(option(args, "seconds", "15")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(option(args, "warmup-seconds", "5")));
+        Duration dbLatency = Duration.ofMillis(Long.parseLong(option(args, "db-latency-ms", "5")));
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-9s %11s %12s %9s %9s %9s %7s", "threads", "concurrency", "req/s", "p50 ms", "p99 ms", "max ms", "errors"));
+        for (boolean virtual : new boolean[]{false, true}) {
+            if (virtual && Runtime.version().feature() < 21) {
+                System.err.println("Skipping virtual threads: the runtime is Java " + Runtime.version().feature() + ", 21+ is required");
+                continue;
+            }
+            try (ConfigurableApplicationContext context = BenchmarkApplication.start(Map.of(
+                    "spring.threads.virtual.enabled", virtual,
+                    //the pool is sized like a production pool; the thread model decides who waits for it and where
+                    "spring.datasource.hikari.maximum-pool-size", 50), dbLatency)) {
+                String baseUrl = "http://127.0.0.1:" + BenchmarkApplication.port(context) + "/api/v1/todos";
+                long[] ids = seed(baseUrl);
+                for (int concurrency : concurrencyLevels) {
+                    run(baseUrl, ids, concurrency, warmup);
+                    Result result = run(baseUrl, ids, concurrency, duration);
+                    report.add(String.format("%-9s %11d %12.1f %9.2f %9.2f %9.2f %7d", virtual ? "virtual" : "platform",
+                            concurrency, result.throughput(), result.percentile(50), result.percentile(99),
+                            result.percentile(100), result.errors()));
+                }
+            }
+        }
+        report.forEach(System.out::println);
+    }
+
+    /**
+     * Runs a closed-loop mix of reads and writes: each client sends its next request as soon as the previous one
+     * has been answered.
+     */
+    private static Result run(String baseUrl, long[] ids, int concurrency, Duration duration) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(clients.submit(() -> {
+                    Result result = new Result(duration);
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = nextRequest(baseUrl, ids);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            result.record(System.nanoTime() - start, response.statusCode() >= 400);
+                        } catch (Exception e) {
+                            result.record(System.nanoTime() - start, true);
+                        }
+                    }
+                    return result;
+                }));
+            }
+            Result total = new Result(duration);
+            for (Future<Result> future : futures) {
+                total.merge(future.get());
+            }
+            return total;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static HttpRequest nextRequest(String baseUrl, long[] ids) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = ids[random.nextInt(ids.length)];
+        int roll = random.nextInt(100);
+        if (roll < 60) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).GET().build();
+        }
+        if (roll < 70) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/page?size=50")).GET().build();
+        }
+        if (roll < 85) {
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/" + id + "/markOrUnmark"))
+                    .method("PATCH", HttpRequest.BodyPublishers.noBody()).build();
+        }
+        if (roll < 95) {
+            return json(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)),
+                    "PUT", "{\"title\":\"updated " + random.nextInt() + "\",\"priority\":\"MEDIUM\"}");
+        }
+        return json(HttpRequest.newBuilder(URI.create(baseUrl)), "POST", todoJson(random.nextInt()));
+    }
+
+    private static long[] seed(String baseUrl) throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < seededTodos; i++) {
+            body.append(i == 0 ? "" : ",").append(todoJson(i));
+        }
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                json(HttpRequest.newBuilder(URI.create(baseUrl + "/batch")), "POST", body.append("]").toString()),
+                HttpResponse.BodyHandlers.ofString());
+        return Arrays.stream(response.body().split("\"id\":"))
+                .skip(1)
+                .mapToLong(part -> Long.parseLong(part.substring(0, part.indexOf(','))))
+                .toArray();
+    }
+
+    private static String todoJson(int i) {
+        return "{\"title\":\"todo " + i + "\",\"description\":\"benchmark\",\"priority\":\"HIGH\",\"dueDate\":\""
+                + LocalDateTime.now().plusDays(1).withNano(0) + "\"}";
+    }
+
+    private static HttpRequest json(HttpRequest.Builder builder, String method, String body) {
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        return Arrays.stream(args).filter(arg -> arg.startsWith(prefix)).map(arg -> arg.substring(prefix.length()))
+                .findFirst().orElse(defaultValue);
+    }
+
+    private static final class Result {
+        private final Duration duration;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        private Result(Duration duration) {
+            this.duration = duration;
+        }
+
+        private void record(long latencyNanos, boolean error) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (error) {
+                errors++;
+            }
+        }
+
+        private void merge(Result other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], false);
+            }
+            errors += other.errors;
+        }
+
+        private double throughput() {
+            return count / (duration.toNanos() / 1e9);
+        }
+
+        private double percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.min(count - 1, Math.ceil(percentile / 100 * count) - 1);
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        private long errors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.app.todo.bench.jmh;
+
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.payload.AddTodoRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic sample data for the JMH benchmarks.
+ */
+final class BenchmarkTodos {
+
+    private BenchmarkTodos() {
+    }
+
+    static AddTodoRequest request(int i) {
+        return new AddTodoRequest("Buy groceries " + i, "Milk, Eggs, Bread and a few more things " + i,
+                LocalDateTime.of(2030, 1, 1, 12, 0).plusMinutes(i), Priority.values()[i % 3]);
+    }
+
+    static List<AddTodoRequest> requests(int count) {
+        List<AddTodoRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(request(i));
+        }
+        return requests;
+    }
+
+    static Todo todo(int i) {
+        Todo todo = new Todo();
+        todo.setId((long) i + 1);
+        todo.setTitle("Buy groceries " + i);
+        todo.setDescription("Milk, Eggs, Bread and a few more things " + i);
+        todo.setDueDate(LocalDateTime.of(2030, 1, 1, 12, 0).plusMinutes(i));
+        todo.setPriority(Priority.values()[i % 3]);
+        todo.setCompleted(i % 4 == 0);
+        todo.setVersion((long) i % 7);
+        todo.setCreatedAt(LocalDateTime.of(2024, 8, 25, 18, 30, 0, 123_456_000));
+        return todo;
+    }
+
+    static List<Todo> todos(int count) {
+        List<Todo> todos = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            todos.add(todo(i));
+        }
+        return todos;
+    }
+}
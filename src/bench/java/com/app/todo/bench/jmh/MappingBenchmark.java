@@ -0,0 +1,75 @@
+package com.app.todo.bench.jmh;
+
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.mapper.TodoMapper;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.UpdateTodo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity mapping from the request payloads and the Lombok-generated `equals`/`hashCode`/`toString` of {@link Todo}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private AddTodoRequest addTodoRequest;
+    private UpdateTodo updateTodo;
+    private Todo todo;
+    private Todo equalTodo;
+
+    @Setup
+    public void setUp() {
+        addTodoRequest = BenchmarkTodos.request(42);
+        updateTodo = new UpdateTodo("Buy more groceries", "Butter", Priority.HIGH, LocalDateTime.of(2030, 2, 1, 8, 0));
+        todo = BenchmarkTodos.todo(42);
+        equalTodo = TodoMapper.copy(todo);
+    }
+
+    @Benchmark
+    public Todo toTodo() {
+        return TodoMapper.toTodo(addTodoRequest);
+    }
+
+    @Benchmark
+    public Todo updated() {
+        return TodoMapper.updated(todo, updateTodo);
+    }
+
+    @Benchmark
+    public Todo toggled() {
+        return TodoMapper.toggled(todo);
+    }
+
+    @Benchmark
+    public boolean todoEquals() {
+        return todo.equals(equalTodo);
+    }
+
+    @Benchmark
+    public int todoHashCode() {
+        return todo.hashCode();
+    }
+
+    @Benchmark
+    public String todoToString() {
+        return todo.toString();
+    }
+}
@@ -0,0 +1,122 @@
+package com.app.todo.bench.jmh;
+
+import com.app.todo.entity.Todo;
+import com.app.todo.search.TodoSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query latency of the {@link TodoSearchIndex} holding one million to-do items, and the heap the index takes,
+ * which is printed when the index has been built. Titles and descriptions are drawn from a vocabulary of 8400
+ * words with a Zipf-like distribution, so a few words are in most items and most words are rare.
+ *
+ * Needs a larger heap than the JVM default on small machines:
+ * <pre>
+ * mvn -Pbench test-compile exec:exec@jmh -Djmh.include=SearchBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+
+    private static final String[] syllables = {"ka", "lo", "mi", "ne", "ru", "sa", "ti", "vo", "ze", "bu",
+            "da", "fe", "go", "hi", "ju", "pe", "qui", "to", "wa", "yo"};
+    private static final int todoCount = 1_000_000;
+
+    @Param({"common", "rare", "prefix", "twoWords", "wordAndPrefix"})
+    public String query;
+
+    private TodoSearchIndex searchIndex;
+    private String queryText;
+
+    @Setup
+    public void setUp() {
+        long before = usedHeap();
+        searchIndex = new TodoSearchIndex();
+        SplittableRandom random = new SplittableRandom(42);
+        String[] words = words(random);
+        queryText = switch (query) {
+            //the most frequent word, in most items
+            case "common" -> words[0];
+            //a word from the tail of the distribution
+            case "rare" -> words[words.length - 1];
+            //a two letter prefix expanding to many words
+            case "prefix" -> words[0].substring(0, 2);
+            case "twoWords" -> words[0] + " " + words[1];
+            case "wordAndPrefix" -> words[1] + " " + words[20].substring(0, 3);
+            default -> throw new IllegalArgumentException(query);
+        };
+        Todo todo = new Todo();
+        for (long id = 1; id <= todoCount; id++) {
+            todo.setId(id);
+            todo.setTitle(text(words, random, 3 + random.nextInt(4)));
+            todo.setDescription(text(words, random, 5 + random.nextInt(11)));
+            searchIndex.index(todo);
+        }
+        System.out.printf("%nIndex of %d to-do items and %d terms: %d MB of heap%n", searchIndex.size(),
+                searchIndex.termCount(), (usedHeap() - before) / (1024 * 1024));
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return searchIndex.search(queryText, 20);
+    }
+
+    /**
+     * @return the vocabulary in random order, so that how often a word is used does not depend on its spelling.
+     */
+    private static String[] words(SplittableRandom random) {
+        String[] words = new String[syllables.length * syllables.length * (1 + syllables.length)];
+        int i = 0;
+        for (String first : syllables) {
+            for (String second : syllables) {
+                words[i++] = first + second;
+                for (String third : syllables) {
+                    words[i++] = first + second + third;
+                }
+            }
+        }
+        for (int j = words.length - 1; j > 0; j--) {
+            int k = random.nextInt(j + 1);
+            String word = words[j];
+            words[j] = words[k];
+            words[k] = word;
+        }
+        return words;
+    }
+
+    private static String text(String[] words, SplittableRandom random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            //a power of a uniform value favours the first words of the vocabulary
+            double skewed = Math.pow(random.nextDouble(), 4);
+            text.append(i == 0 ? "" : " ").append(words[(int) (skewed * words.length)]);
+        }
+        return text.toString();
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,75 @@
+package com.app.todo.bench.jmh;
+
+import com.app.todo.entity.Todo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding and decoding of single to-do items and of lists, with an {@link ObjectMapper} configured the way
+ * Spring Boot configures the one used by the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final TypeReference<List<Todo>> todoList = new TypeReference<>() {
+    };
+
+    @Param({"100", "10000"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private Todo todo;
+    private byte[] todoJson;
+    private List<Todo> todos;
+    private byte[] todosJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        todo = BenchmarkTodos.todo(42);
+        todoJson = objectMapper.writeValueAsBytes(todo);
+        todos = BenchmarkTodos.todos(listSize);
+        todosJson = objectMapper.writeValueAsBytes(todos);
+    }
+
+    @Benchmark
+    public byte[] encodeTodo() throws IOException {
+        return objectMapper.writeValueAsBytes(todo);
+    }
+
+    @Benchmark
+    public Todo decodeTodo() throws IOException {
+        return objectMapper.readValue(todoJson, Todo.class);
+    }
+
+    @Benchmark
+    public byte[] encodeList() throws IOException {
+        return objectMapper.writeValueAsBytes(todos);
+    }
+
+    @Benchmark
+    public List<Todo> decodeList() throws IOException {
+        return objectMapper.readValue(todosJson, todoList);
+    }
+}
@@ -0,0 +1,93 @@
+package com.app.todo.bench.jmh;
+
+import com.app.todo.bench.BenchmarkApplication;
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.payload.TodoFilter;
+import com.app.todo.payload.TodoPage;
+import com.app.todo.service.TodoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TodoService} methods against the application context booted on an in-memory H2 database seeded with
+ * 10000 to-do items. H2 answers without a network round trip, so these numbers show the application's own cost
+ * per call: mapping, caching, Hibernate and JDBC overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+    private static final int seededTodos = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private TodoService todoService;
+    private long[] ids;
+    private TodoFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start(Map.of("spring.main.web-application-type", "none"), Duration.ZERO);
+        todoService = context.getBean(TodoService.class);
+        ids = todoService.addTodos(BenchmarkTodos.requests(seededTodos)).stream().mapToLong(Todo::getId).toArray();
+        filter = new TodoFilter(false, Set.of(Priority.HIGH), LocalDateTime.of(2030, 1, 1, 0, 0), LocalDateTime.of(2030, 1, 2, 0, 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Todo getTodoById() {
+        return todoService.getTodoById(randomId());
+    }
+
+    @Benchmark
+    public TodoPage getTodosPage() {
+        return todoService.getTodosPage(randomId(), 50);
+    }
+
+    @Benchmark
+    public List<Todo> findTodos() throws Exception {
+        return todoService.findTodos(filter, Sort.by("dueDate"));
+    }
+
+    @Benchmark
+    public Todo addTodo() throws Exception {
+        return todoService.addTodo(BenchmarkTodos.request(ThreadLocalRandom.current().nextInt(seededTodos)));
+    }
+
+    @Benchmark
+    public Todo markOrUnmarkedAsCompleted() {
+        return todoService.markOrUnmarkedAsCompleted(randomId());
+    }
+
+    private long randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+}
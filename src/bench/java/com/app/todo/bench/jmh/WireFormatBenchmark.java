@@ -0,0 +1,82 @@
+package com.app.todo.bench.jmh;
+
+import com.app.todo.config.ContentCoding;
+import com.app.todo.config.WireFormat;
+import com.app.todo.entity.Todo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encoding and decoding of a list of 10,000 to-do items in every wire format and content coding the list endpoint
+ * can answer with, including the compression and decompression. The bytes sent for each combination are printed
+ * when the benchmark starts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<Todo>> todoList = new TypeReference<>() {
+    };
+
+    @Param({"JSON", "CBOR", "SMILE"})
+    public WireFormat format;
+
+    @Param({"IDENTITY", "GZIP", "DEFLATE"})
+    public ContentCoding coding;
+
+    private ObjectMapper objectMapper;
+    private List<Todo> todos;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case JSON -> Jackson2ObjectMapperBuilder.json().build();
+            case CBOR -> Jackson2ObjectMapperBuilder.cbor().build();
+            case SMILE -> Jackson2ObjectMapperBuilder.smile().build();
+        };
+        todos = BenchmarkTodos.todos(10_000);
+        encoded = encode();
+        System.out.printf("%n%s with %s coding: %,d bytes on the wire%n", format, coding, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return coding.encode(objectMapper.writeValueAsBytes(todos));
+    }
+
+    @Benchmark
+    public List<Todo> decode() throws IOException {
+        InputStream body = new ByteArrayInputStream(encoded);
+        if (coding == ContentCoding.GZIP) {
+            body = new GZIPInputStream(body);
+        } else if (coding == ContentCoding.DEFLATE) {
+            body = new InflaterInputStream(body);
+        }
+        return objectMapper.readValue(body, todoList);
+    }
+}
@@ -0,0 +1,17 @@
+package com.app.todo.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Puts a handler method behind the bulkhead of its {@link RouteClass}, see {@link AdmissionControlInterceptor}.
+ * Handlers without it, like the event stream, are not limited.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Admission {
+
+    RouteClass value();
+}
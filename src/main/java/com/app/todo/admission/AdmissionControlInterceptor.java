@@ -0,0 +1,85 @@
+package com.app.todo.admission;
+
+import com.app.todo.exceptions.AdmissionRejectedException;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Admits each request to a handler annotated with {@link Admission} through the {@link Bulkhead} of its route class,
+ * and rejects it with {@link AdmissionRejectedException} when that bulkhead is full. The permit is held until the
+ * response is complete, for asynchronous handlers until the async request completes; the time in between, which
+ * includes the wait for a database connection, is the latency the limit adapts to.
+ */
+@RequiredArgsConstructor
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String permitAttribute = AdmissionControlInterceptor.class.getName() + ".permit";
+
+    private final Map<RouteClass, Bulkhead> bulkheads;
+    private final Duration retryAfter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        //the dispatch completing an async request runs under the permit of the one that started it
+        if (request.getDispatcherType() == DispatcherType.ASYNC || !(handler instanceof HandlerMethod method)) {
+            return true;
+        }
+        Admission admission = method.getMethodAnnotation(Admission.class);
+        if (admission == null) {
+            return true;
+        }
+        Bulkhead.Permit permit = bulkheads.get(admission.value()).tryAcquire();
+        if (permit == null) {
+            throw new AdmissionRejectedException("Too many concurrent " + admission.value().name().toLowerCase()
+                    + " requests, try again later", retryAfter);
+        }
+        request.setAttribute(permitAttribute, permit);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Bulkhead.Permit permit = (Bulkhead.Permit) request.getAttribute(permitAttribute);
+        if (permit == null) {
+            return;
+        }
+        //also covers an async request that times out or whose client goes away without a completing dispatch
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                permit.release(false);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                permit.release(true);
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                permit.release(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Bulkhead.Permit permit = (Bulkhead.Permit) request.getAttribute(permitAttribute);
+        if (permit != null) {
+            permit.release(ex != null || response.getStatus() >= 500);
+        }
+    }
+}
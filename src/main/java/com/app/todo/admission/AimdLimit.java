@@ -0,0 +1,53 @@
+package com.app.todo.admission;
+
+import java.time.Duration;
+
+/**
+ * A concurrency limit adjusted by additive increase and multiplicative decrease (AIMD), as TCP does with its
+ * congestion window. A request slower than the latency target, or failing, cuts the limit by the backoff ratio;
+ * a request within the target while the limit is at least half used raises it by one per limit's worth of requests.
+ *
+ * The limit is cut at most once per round trip: requests admitted before the last cut saw the old, higher
+ * concurrency, and their latency says nothing about the new limit.
+ */
+public class AimdLimit implements ConcurrencyLimit {
+
+    private static final double backoffRatio = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+
+    //guarded by this
+    private double limit;
+    private long lastDecreaseNanos = System.nanoTime();
+    //read without the lock for every admission
+    private volatile int current;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, Duration latencyTarget) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.current = (int) limit;
+    }
+
+    @Override
+    public int get() {
+        return current;
+    }
+
+    @Override
+    public synchronized void onSample(long startNanos, long latencyNanos, int inFlight, boolean dropped) {
+        if (dropped || latencyNanos > latencyTargetNanos) {
+            if (startNanos - lastDecreaseNanos > 0) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = System.nanoTime();
+            }
+        } else if (inFlight * 2 >= limit) {
+            //an idle bulkhead does not learn anything about a higher limit
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+        current = (int) limit;
+    }
+}
@@ -0,0 +1,90 @@
+package com.app.todo.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits requests of one {@link RouteClass} while fewer than its {@link ConcurrencyLimit} are in flight, and rejects the
+ * others right away instead of letting them queue for a request thread or a database connection.
+ *
+ * Published as the `todo.admission.limit` and `todo.admission.in.flight` gauges and the `todo.admission.rejected`
+ * counter, tagged with the bulkhead.
+ */
+public class Bulkhead {
+
+    @Getter
+    private final RouteClass routeClass;
+    private final ConcurrencyLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public Bulkhead(RouteClass routeClass, ConcurrencyLimit limit, MeterRegistry meterRegistry) {
+        this.routeClass = routeClass;
+        this.limit = limit;
+        String tag = routeClass.name().toLowerCase();
+        Gauge.builder("todo.admission.limit", limit, ConcurrencyLimit::get)
+                .description("Concurrent requests admitted through the bulkhead")
+                .tag("bulkhead", tag)
+                .register(meterRegistry);
+        Gauge.builder("todo.admission.in.flight", inFlight, AtomicInteger::get)
+                .tag("bulkhead", tag)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("todo.admission.rejected")
+                .description("Requests rejected because the bulkhead was at its limit")
+                .tag("bulkhead", tag)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return a {@link Permit} to release once the request completed, or null if the bulkhead is at its limit.
+     */
+    public Permit tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit.get()) {
+                rejected.increment();
+                return null;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return new Permit(System.nanoTime(), current + 1);
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * One admitted request. Released once, further calls are ignored.
+     */
+    public class Permit {
+
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * @param dropped whether the request failed for a reason other than the client's.
+         */
+        public void release(boolean dropped) {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                limit.onSample(startNanos, System.nanoTime() - startNanos, inFlightAtStart, dropped);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.app.todo.admission;
+
+/**
+ * The number of requests a {@link Bulkhead} admits at the same time.
+ */
+public interface ConcurrencyLimit {
+
+    int get();
+
+    /**
+     * Learns from the outcome of one request.
+     *
+     * @param startNanos when the request was admitted, from {@link System#nanoTime()}.
+     * @param latencyNanos how long it took.
+     * @param inFlight the number of requests in flight when it was admitted, itself included.
+     * @param dropped whether it failed, which counts as overload whatever its latency.
+     */
+    void onSample(long startNanos, long latencyNanos, int inFlight, boolean dropped);
+}
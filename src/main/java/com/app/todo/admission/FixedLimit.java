@@ -0,0 +1,23 @@
+package com.app.todo.admission;
+
+/**
+ * A concurrency limit that does not adapt, for requests whose duration says nothing about overload: a stream lasts
+ * as long as the client takes to read it.
+ */
+public class FixedLimit implements ConcurrencyLimit {
+
+    private final int limit;
+
+    public FixedLimit(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public int get() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long startNanos, long latencyNanos, int inFlight, boolean dropped) {
+    }
+}
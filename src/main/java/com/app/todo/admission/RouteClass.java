@@ -0,0 +1,50 @@
+package com.app.todo.admission;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * The bulkheads routes are admitted through, grouped by what a request costs. Each has its own adaptive
+ * concurrency limit, so that slow list reads or bulk deletes can not take the capacity of cheap reads.
+ *
+ * The defaults below are overridden with `todo.admission.<class>.initial-limit`, `min-limit`, `max-limit` and
+ * `latency-target`, e.g. `todo.admission.list.max-limit`. Streams have a fixed limit instead, `todo.admission.stream.limit`:
+ * they last as long as the client reads, which would read as overload to an adaptive one.
+ */
+@Getter
+public enum RouteClass {
+
+    //single items, mostly answered from the cache
+    READ(100, 2, 500, Duration.ofMillis(100)),
+    //full lists, pages and change feeds
+    LIST(20, 1, 100, Duration.ofMillis(500)),
+    //single-item writes
+    WRITE(50, 2, 200, Duration.ofMillis(200)),
+    //batch inserts and bulk deletes
+    BULK(4, 1, 16, Duration.ofSeconds(2)),
+    //responses written while the rows are read, each holding a connection until the client has read them
+    STREAM(4);
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Duration latencyTarget;
+    private final boolean adaptive;
+
+    RouteClass(int initialLimit, int minLimit, int maxLimit, Duration latencyTarget) {
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTarget = latencyTarget;
+        this.adaptive = true;
+    }
+
+    RouteClass(int limit) {
+        this.initialLimit = limit;
+        this.minLimit = limit;
+        this.maxLimit = limit;
+        this.latencyTarget = null;
+        this.adaptive = false;
+    }
+}
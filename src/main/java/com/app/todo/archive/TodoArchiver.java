@@ -0,0 +1,94 @@
+package com.app.todo.archive;
+
+import com.app.todo.payload.ArchiveChunk;
+import com.app.todo.service.TodoService;
+import com.app.todo.sharding.ShardRouting;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Moves completed to-do items whose last change is older than `todo.archive.min-age` into the archive. Every
+ * `todo.archive.interval-ms` it archives up to `todo.archive.chunks-per-run` chunks of `todo.archive.chunk-size`
+ * items, so a large backlog is worked off over several runs instead of holding up the other scheduled tasks, which
+ * share the scheduler thread.
+ *
+ * The position is kept between runs and a run that reaches the end of the table starts over from the lowest id the
+ * next time. Each chunk is committed on its own, so after a restart the job only redoes the scan, never a move. With
+ * several shards, each run works through every shard, with a position per shard.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "todo.archive", name = "enabled", havingValue = "true")
+public class TodoArchiver {
+
+    private final TodoService todoService;
+    private final ShardRouting shardRouting;
+    private final Duration minAge;
+    private final int chunkSize;
+    private final int chunksPerRun;
+    private final Counter archivedCounter;
+
+    //the last id looked at, by shard; only touched by the scheduler thread
+    private final long[] positions;
+
+    public TodoArchiver(TodoService todoService, ShardRouting shardRouting, MeterRegistry meterRegistry,
+                        @Value("${todo.archive.min-age:30d}") Duration minAge,
+                        @Value("${todo.archive.chunk-size:500}") int chunkSize,
+                        @Value("${todo.archive.chunks-per-run:10}") int chunksPerRun) {
+        this.todoService = todoService;
+        this.shardRouting = shardRouting;
+        this.positions = new long[shardRouting.shardCount()];
+        this.minAge = minAge;
+        this.chunkSize = chunkSize;
+        this.chunksPerRun = chunksPerRun;
+        this.archivedCounter = Counter.builder("todo.archive.archived")
+                .description("Completed to-do items moved into the archive")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${todo.archive.interval-ms:60000}", fixedDelayString = "${todo.archive.interval-ms:60000}")
+    public void archive() {
+        int archived = archive(LocalDateTime.now());
+        if (archived > 0) {
+            log.info("Archived {} completed to-do items", archived);
+        }
+    }
+
+    /**
+     * Archives up to `chunks-per-run` chunks, on each shard, of the items completed before `now - min-age`.
+     *
+     * @return the number of archived items.
+     */
+    int archive(LocalDateTime now) {
+        LocalDateTime completedBefore = now.minus(minAge);
+        int archived = 0;
+        for (int shard = 0; shard < positions.length; shard++) {
+            int index = shard;
+            archived += shardRouting.onShard(shard, () -> archive(index, completedBefore));
+        }
+        archivedCounter.increment(archived);
+        return archived;
+    }
+
+    private int archive(int shard, LocalDateTime completedBefore) {
+        int archived = 0;
+        for (int chunk = 0; chunk < chunksPerRun; chunk++) {
+            ArchiveChunk result = todoService.archiveCompleted(completedBefore, positions[shard], chunkSize);
+            archived += result.getArchived();
+            if (result.getLastId() == null) {
+                positions[shard] = 0;
+                break;
+            }
+            positions[shard] = result.getLastId();
+        }
+        return archived;
+    }
+}
@@ -0,0 +1,245 @@
+package com.app.todo.buffer;
+
+import com.app.todo.cache.TodoCache;
+import com.app.todo.entity.Todo;
+import com.app.todo.mapper.TodoMapper;
+import com.app.todo.repository.TodoRepository;
+import com.app.todo.sharding.OwnerMovedException;
+import com.app.todo.sharding.ShardRouting;
+import com.app.todo.sync.TodoChangeSequence;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer for completion toggles, enabled with `todo.toggles.write-behind`.
+ *
+ * A toggle only counts the toggles of the id in memory; the toggles of one id are written together, flipping the flag
+ * when their number is odd. Every toggle still advances the version, as the one returned for it did, so that the
+ * version a client was handed is the one stored: an even number of toggles costs a write too. Pending toggles are
+ * written every `todo.toggles.flush-interval-ms`, or as soon as `todo.toggles.flush-threshold` ids are pending, with
+ * one `UPDATE ... WHERE id IN` statement per chunk of ids on the shard of their owners and with the same number of
+ * toggles, and are drained when the application shuts down. Toggles still pending when the process dies are lost.
+ *
+ * Reads see the pending state: {@link #apply(Todo)} overlays it on the state read from the database or the entity
+ * cache, including the version bump the flush will make, so ETags stay consistent. A read and its overlay run under
+ * the read lock taken by {@link #read(Supplier)}; a flush holds the write lock until its statements have committed,
+ * so a reader never sees a toggle both in the database and in the buffer, or in neither.
+ *
+ * When write-behind is disabled, nothing is ever pending and {@link #read(Supplier)} takes no lock.
+ */
+@Slf4j
+@Component
+public class TodoToggleBuffer {
+
+    //ids per statement, well below the bind parameter limits of the databases we run on
+    private static final int flushChunkSize = 1000;
+
+    private final TodoRepository todoRepository;
+    private final TodoCache todoCache;
+    private final TodoChangeSequence changeSequence;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouting shardRouting;
+    private final boolean enabled;
+    private final int flushThreshold;
+
+    //ids with pending toggles
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TodoToggleBuffer(TodoRepository todoRepository, TodoCache todoCache, TodoChangeSequence changeSequence,
+                            PlatformTransactionManager transactionManager, ShardRouting shardRouting,
+                            @Value("${todo.toggles.write-behind:false}") boolean enabled,
+                            @Value("${todo.toggles.flush-threshold:1000}") int flushThreshold) {
+        this.todoRepository = todoRepository;
+        this.todoCache = todoCache;
+        this.changeSequence = changeSequence;
+        //a flush may be triggered from inside a read-only transaction, it always commits on its own
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.shardRouting = shardRouting;
+        this.enabled = enabled;
+        this.flushThreshold = flushThreshold;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffers a toggle of the completed flag.
+     *
+     * @param id the unique identifier of the to-do item.
+     * @param loader reads the stored state of the to-do item, without the pending toggles.
+     * @return the state the toggle was applied to, including earlier pending toggles, or `null` if the item does not exist.
+     */
+    public Todo toggle(long id, LongFunction<Todo> loader) {
+        Todo previous = read(() -> {
+            Todo current = apply(loader.apply(id));
+            if (current != null) {
+                pending.merge(id, new Pending(current.getOwner(), 1), (earlier, toggle) -> new Pending(earlier.owner(), earlier.toggles() + 1));
+            }
+            return current;
+        });
+        //outside of the read lock, which can not be upgraded to the write lock
+        if (pending.size() >= flushThreshold) {
+            flush();
+        }
+        return previous;
+    }
+
+    /**
+     * Runs a read whose result is passed through {@link #apply}, so that no flush can commit in between.
+     */
+    public <T> T read(Supplier<T> reader) {
+        if (!enabled) {
+            return reader.get();
+        }
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param todo the stored state of a to-do item, may be `null`.
+     * @return the state with its pending toggles applied, as a copy, or the given instance when nothing is pending.
+     */
+    public Todo apply(Todo todo) {
+        if (todo == null || pending.isEmpty()) {
+            return todo;
+        }
+        Pending toggles = pending.get(todo.getId());
+        return toggles == null ? todo : TodoMapper.toggled(todo, toggles.toggles());
+    }
+
+    /**
+     * @return the stored states with their pending toggles applied; the given list when nothing is pending.
+     */
+    public List<Todo> apply(List<Todo> todos) {
+        if (pending.isEmpty()) {
+            return todos;
+        }
+        return todos.stream().map(this::apply).toList();
+    }
+
+    public boolean isPending(long id) {
+        return pending.containsKey(id);
+    }
+
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Forgets the pending toggle of a deleted to-do item.
+     */
+    public void discard(long id) {
+        pending.remove(id);
+    }
+
+    /**
+     * Forgets all pending toggles, after all to-do items were deleted.
+     */
+    public void clear() {
+        pending.clear();
+    }
+
+    @Scheduled(fixedDelayString = "${todo.toggles.flush-interval-ms:100}")
+    public void scheduledFlush() {
+        if (enabled && !pending.isEmpty()) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all pending toggles, one statement per chunk of ids with the same number of toggles. Chunks that fail
+     * stay pending and are retried by the next flush.
+     *
+     * @return the number of to-do items updated.
+     */
+    public int flush() {
+        lock.writeLock().lock();
+        try {
+            //mostly a single toggle per id, so a single group per shard
+            Map<Group, List<Long>> idsByGroup = new TreeMap<>();
+            pending.forEach((id, toggles) -> idsByGroup.computeIfAbsent(
+                    new Group(shardRouting.shardOf(toggles.owner()), toggles.toggles()), group -> new ArrayList<>()).add(id));
+            int updated = 0;
+            for (Map.Entry<Group, List<Long>> group : idsByGroup.entrySet()) {
+                List<Long> ids = group.getValue();
+                int toggles = group.getKey().toggles();
+                for (int from = 0; from < ids.size(); from += flushChunkSize) {
+                    List<Long> chunk = ids.subList(from, Math.min(from + flushChunkSize, ids.size()));
+                    LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+                    Set<String> owners = chunk.stream().map(id -> pending.get(id).owner()).collect(Collectors.toSet());
+                    try {
+                        updated += shardRouting.onShard(group.getKey().shard(), () -> transactionTemplate.execute(status ->
+                                todoRepository.toggleCompletedByIdIn(chunk, toggles, changeSequence.next(owners), now)));
+                    } catch (OwnerMovedException e) {
+                        //moved by another instance, the next flush writes them to the new shard
+                        log.info("Keeping {} pending completion toggles of moved owners {} for the next flush", chunk.size(), owners);
+                        owners.forEach(shardRouting::forget);
+                        continue;
+                    } catch (RuntimeException e) {
+                        log.error("Could not flush {} pending completion toggles, keeping them for the next flush", pending.size(), e);
+                        return updated;
+                    }
+                    //no reader can run until the write lock is released, so the ids leave the buffer and the cache together
+                    chunk.forEach(id -> {
+                        pending.remove(id);
+                        todoCache.evict(id);
+                    });
+                }
+            }
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        if (enabled && !pending.isEmpty()) {
+            log.info("Flushing {} pending completion toggles before shutdown", pending.size());
+            flush();
+        }
+    }
+
+    /**
+     * The pending toggles of one id, with the owner of the to-do item.
+     */
+    private record Pending(String owner, int toggles) {
+    }
+
+    /**
+     * The ids written by one statement: on one shard, with the same number of toggles.
+     */
+    private record Group(int shard, int toggles) implements Comparable<Group> {
+
+        @Override
+        public int compareTo(Group other) {
+            return shard != other.shard ? Integer.compare(shard, other.shard) : Integer.compare(toggles, other.toggles);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.app.todo.cache;
+
+import com.app.todo.entity.Todo;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+/**
+ * Bounded in-process cache of {@link Todo} entities keyed by id, configured through
+ * `spring.cache.caffeine.spec`. Hit, miss and eviction counts are published as `cache.*` metrics.
+ *
+ * The cache does not see writes made by JPQL bulk updates, so every write path has to call
+ * {@link #evict(long)} or {@link #clear()} once its statement has committed.
+ */
+@Component
+public class TodoCache {
+
+    public static final String cacheName = "todos";
+
+    private final AsyncCache<Object, Object> cache;
+
+    public TodoCache(CacheManager cacheManager) {
+        this.cache = ((CaffeineCache) cacheManager.getCache(cacheName)).getAsyncCache();
+    }
+
+    /**
+     * Returns the cached to-do item, loading and caching it on a miss. Concurrent misses for the same
+     * id share one load. The load runs on the calling thread outside of any lock; an eviction issued
+     * while it is running drops the pending entry, so the loaded value is never cached after a write.
+     *
+     * @param id the unique identifier of the to-do item.
+     * @param loader reads the to-do item from the database.
+     * @return the to-do item, or `null` if it does not exist (absent items are not cached).
+     */
+    public Todo get(long id, LongFunction<Optional<Todo>> loader) {
+        CompletableFuture<Object> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return join(cached);
+        }
+
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> prior = cache.asMap().putIfAbsent(id, loading);
+        if (prior != null) {
+            return join(prior);
+        }
+        try {
+            //Caffeine removes futures completed with `null` or with an exception
+            Todo todo = loader.apply(id).orElse(null);
+            loading.complete(todo);
+            return todo;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the cached to-do items, loading all misses with one call of the loader and caching them. Like
+     * {@link #get(long, LongFunction)}, ids another thread is loading are waited for, not loaded twice; the own
+     * loads complete before that wait, so two of these calls can not wait on each other.
+     *
+     * @param ids the unique identifiers of the to-do items.
+     * @param loader reads the to-do items with the given ids from the database, by id; missing ids are left out.
+     * @return the to-do items that exist, by id.
+     */
+    public Map<Long, Todo> getAll(Collection<Long> ids, Function<List<Long>, Map<Long, Todo>> loader) {
+        Map<Long, CompletableFuture<Object>> cached = new HashMap<>();
+        Map<Long, CompletableFuture<Object>> loading = new LinkedHashMap<>();
+        for (long id : ids) {
+            CompletableFuture<Object> present = cache.getIfPresent(id);
+            if (present == null && !loading.containsKey(id)) {
+                CompletableFuture<Object> load = new CompletableFuture<>();
+                present = cache.asMap().putIfAbsent(id, load);
+                if (present == null) {
+                    loading.put(id, load);
+                }
+            }
+            if (present != null) {
+                cached.put(id, present);
+            }
+        }
+
+        Map<Long, Todo> todos = new HashMap<>();
+        if (!loading.isEmpty()) {
+            try {
+                Map<Long, Todo> loaded = loader.apply(new ArrayList<>(loading.keySet()));
+                loading.forEach((id, load) -> {
+                    Todo todo = loaded.get(id);
+                    load.complete(todo);
+                    if (todo != null) {
+                        todos.put(id, todo);
+                    }
+                });
+            } catch (RuntimeException e) {
+                loading.values().forEach(load -> load.completeExceptionally(e));
+                throw e;
+            }
+        }
+        cached.forEach((id, future) -> {
+            Todo todo = join(future);
+            if (todo != null) {
+                todos.put(id, todo);
+            }
+        });
+        return todos;
+    }
+
+    /**
+     * @return the cached to-do item without loading it, or `null` if it is not cached or still loading.
+     */
+    public Todo getIfPresent(long id) {
+        return (Todo) cache.synchronous().getIfPresent(id);
+    }
+
+    public void evict(long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public void clear() {
+        cache.synchronous().invalidateAll();
+    }
+
+    private static Todo join(CompletableFuture<Object> future) {
+        try {
+            return (Todo) future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
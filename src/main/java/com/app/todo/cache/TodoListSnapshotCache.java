@@ -0,0 +1,219 @@
+package com.app.todo.cache;
+
+import com.app.todo.config.ContentCoding;
+import com.app.todo.config.WireFormat;
+import com.app.todo.entity.Todo;
+import com.app.todo.event.TodoChangedEvent;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Holds the last serialized to-do list together with its ETag. A change counter is bumped by every
+ * {@link TodoChangedEvent}; while it does not move, list reads are answered from the stored bytes and
+ * conditional reads compare ETags without touching the database.
+ *
+ * The list is read and serialized to JSON once per change. Each other {@link WireFormat} and {@link ContentCoding}
+ * a client asks for is derived from the JSON bytes the first time it is requested, by streaming the JSON tokens into
+ * the other format and compressing the result, and is kept until the next change. Bodies smaller than
+ * `server.compression.min-response-size` are not compressed, nor is anything when `server.compression.enabled` is off.
+ *
+ * The counter is per process: the ETag carries a random epoch so that tags from another instance or
+ * from before a restart never match.
+ */
+@Component
+public class TodoListSnapshotCache {
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+    private final boolean compressionEnabled;
+    private final long minCompressedSize;
+
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong changeCounter = new AtomicLong();
+    //a lock rather than `synchronized`, which would pin virtual threads during the rebuild query
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+    //the other formats and codings of the current snapshot, built under the rebuild lock
+    private volatile Map<Variant, Snapshot> variants = new ConcurrentHashMap<>();
+
+    public TodoListSnapshotCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                 MappingJackson2CborHttpMessageConverter cborConverter,
+                                 MappingJackson2SmileHttpMessageConverter smileConverter,
+                                 @Value("${server.compression.enabled:false}") boolean compressionEnabled,
+                                 @Value("${server.compression.min-response-size:2KB}") DataSize minCompressedSize) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.mappers.put(WireFormat.JSON, objectMapper);
+        this.mappers.put(WireFormat.CBOR, cborConverter.getObjectMapper());
+        this.mappers.put(WireFormat.SMILE, smileConverter.getObjectMapper());
+        this.compressionEnabled = compressionEnabled;
+        this.minCompressedSize = minCompressedSize.toBytes();
+    }
+
+    @EventListener
+    public void onTodoChanged(TodoChangedEvent event) {
+        changeCounter.incrementAndGet();
+    }
+
+    /**
+     * @return the strong ETag of the current list in the given format, including the surrounding quotes. Compressed
+     * bodies carry the weak form of the same tag.
+     */
+    public String currentEtag(WireFormat format) {
+        return etag(changeCounter.get(), format);
+    }
+
+    /**
+     * Returns the serialized list, rebuilding it with the given loader when a write happened since it
+     * was taken. Concurrent readers of a stale snapshot wait for a single rebuild.
+     *
+     * @param loader reads the full to-do list.
+     * @return the current {@link Snapshot}.
+     */
+    public Snapshot get(Supplier<List<Todo>> loader) {
+        Snapshot current = snapshot;
+        if(current != null && current.getEtag().equals(currentEtag(WireFormat.JSON))){
+            return current;
+        }
+
+        rebuildLock.lock();
+        try {
+            current = snapshot;
+            if(current != null && current.getEtag().equals(currentEtag(WireFormat.JSON))){
+                return current;
+            }
+            //reading the counter before the query: a write racing with the rebuild moves the counter on
+            //and forces the next read to rebuild again
+            long version = changeCounter.get();
+            List<Todo> todos = loader.get();
+            Timer.Sample serialization = Timer.start(meterRegistry);
+            current = new Snapshot(etag(version, WireFormat.JSON), objectMapper.writeValueAsBytes(todos), ContentCoding.IDENTITY);
+            serialization.stop(meterRegistry.timer("todo.list.serialization", "format", "json"));
+            variants = new ConcurrentHashMap<>();
+            snapshot = current;
+            return current;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Can not serialize the to-do list", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the serialized list in the given format, compressed with the given coding if the body is large enough.
+     *
+     * @param loader reads the full to-do list.
+     * @param format the format the client negotiated.
+     * @param coding the compression the client accepts; the returned snapshot tells the one actually applied.
+     * @return the current {@link Snapshot} in that representation.
+     */
+    public Snapshot get(Supplier<List<Todo>> loader, WireFormat format, ContentCoding coding) {
+        Snapshot json = get(loader);
+        if(format == WireFormat.JSON && coding == ContentCoding.IDENTITY){
+            return json;
+        }
+        Variant variant = new Variant(format, coding);
+        Map<Variant, Snapshot> current = variants;
+        Snapshot snapshot = current.get(variant);
+        if(snapshot != null && this.snapshot == json){
+            return snapshot;
+        }
+
+        rebuildLock.lock();
+        try {
+            //a rebuild in between replaced the map, the variant is derived from the snapshot it belongs to
+            if(this.snapshot != json){
+                return get(loader, format, coding);
+            }
+            snapshot = variants.get(variant);
+            if(snapshot == null){
+                snapshot = derive(json, format, coding);
+                variants.put(variant, snapshot);
+            }
+            return snapshot;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Serializes a list that is not cached, e.g. a filtered one, in the given format.
+     */
+    public byte[] serialize(List<Todo> todos, WireFormat format) throws JsonProcessingException {
+        return mappers.get(format).writeValueAsBytes(todos);
+    }
+
+    private Snapshot derive(Snapshot json, WireFormat format, ContentCoding coding) {
+        Timer.Sample serialization = Timer.start(meterRegistry);
+        byte[] body = format == WireFormat.JSON ? json.getBody() : transcode(json.getBody(), objectMapper, mappers.get(format));
+        serialization.stop(meterRegistry.timer("todo.list.serialization", "format", format.name().toLowerCase()));
+
+        boolean compress = compressionEnabled && coding != ContentCoding.IDENTITY && body.length >= minCompressedSize;
+        if(!compress){
+            return new Snapshot(etagOf(json, format), body, ContentCoding.IDENTITY);
+        }
+        Timer.Sample compression = Timer.start(meterRegistry);
+        byte[] compressed = coding.encode(body);
+        compression.stop(meterRegistry.timer("todo.list.compression", "coding", coding.getToken()));
+        return new Snapshot("W/" + etagOf(json, format), compressed, coding);
+    }
+
+    //the tokens of the JSON body are copied into the other format, which gives the same bytes as serializing the list
+    private static byte[] transcode(byte[] json, ObjectMapper source, ObjectMapper target) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 2);
+        try (JsonParser parser = source.createParser(json); JsonGenerator generator = target.createGenerator(bytes)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private String etagOf(Snapshot json, WireFormat format) {
+        String etag = json.getEtag();
+        return format == WireFormat.JSON ? etag : etag.substring(0, etag.length() - 1) + "-" + format.name().toLowerCase() + "\"";
+    }
+
+    private String etag(long version, WireFormat format) {
+        String suffix = format == WireFormat.JSON ? "" : "-" + format.name().toLowerCase();
+        return "\"" + epoch + "-" + version + suffix + "\"";
+    }
+
+    @lombok.Value
+    public static class Snapshot {
+        String etag;
+        byte[] body;
+        //the compression applied to the body
+        ContentCoding coding;
+    }
+
+    @lombok.Value
+    private static class Variant {
+        WireFormat format;
+        ContentCoding coding;
+    }
+}
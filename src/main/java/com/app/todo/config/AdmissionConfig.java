@@ -0,0 +1,62 @@
+package com.app.todo.config;
+
+import com.app.todo.admission.AdmissionControlInterceptor;
+import com.app.todo.admission.AimdLimit;
+import com.app.todo.admission.Bulkhead;
+import com.app.todo.admission.ConcurrencyLimit;
+import com.app.todo.admission.FixedLimit;
+import com.app.todo.admission.RouteClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Limits the concurrent requests of each {@link RouteClass} with an adaptive limit, or a fixed one for streams, see
+ * {@link AdmissionControlInterceptor}.
+ * Rejected requests are answered with 503 (Service Unavailable) and a `Retry-After` of `todo.admission.retry-after`.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "todo.admission", name = "enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${todo.admission.retry-after:1s}")
+    private Duration retryAfter;
+
+    @Bean
+    public Map<RouteClass, Bulkhead> bulkheads() {
+        Map<RouteClass, Bulkhead> bulkheads = new EnumMap<>(RouteClass.class);
+        for (RouteClass routeClass : RouteClass.values()) {
+            String prefix = "todo.admission." + routeClass.name().toLowerCase() + ".";
+            ConcurrencyLimit limit = routeClass.isAdaptive()
+                    ? new AimdLimit(
+                            environment.getProperty(prefix + "initial-limit", Integer.class, routeClass.getInitialLimit()),
+                            environment.getProperty(prefix + "min-limit", Integer.class, routeClass.getMinLimit()),
+                            environment.getProperty(prefix + "max-limit", Integer.class, routeClass.getMaxLimit()),
+                            environment.getProperty(prefix + "latency-target", Duration.class, routeClass.getLatencyTarget()))
+                    : new FixedLimit(environment.getProperty(prefix + "limit", Integer.class, routeClass.getInitialLimit()));
+            bulkheads.put(routeClass, new Bulkhead(routeClass, limit, meterRegistry));
+        }
+        return bulkheads;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        //ahead of the other interceptors, a rejected request should cost as little as possible
+        registry.addInterceptor(new AdmissionControlInterceptor(bulkheads(), retryAfter)).order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,20 @@
+package com.app.todo.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Switches the Caffeine caches to async mode. A synchronous Caffeine load runs inside a `synchronized`
+     * map bin, which pins the carrier thread of a virtual thread for the whole database query; async
+     * caches only store a future there and run the load outside of the lock.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> asyncCaffeineCacheManager() {
+        return cacheManager -> cacheManager.setAsyncCacheMode(true);
+    }
+}
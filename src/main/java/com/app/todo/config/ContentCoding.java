@@ -0,0 +1,65 @@
+package com.app.todo.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The compressions a response body can be sent with, see `Content-Encoding`.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ContentCoding {
+
+    IDENTITY("identity"),
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    private final String token;
+
+    /**
+     * @param acceptEncoding the `Accept-Encoding` header, may be `null`.
+     * @return gzip or deflate if the client accepts it, in that order of preference, otherwise identity.
+     */
+    public static ContentCoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return IDENTITY;
+        }
+        boolean deflate = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] coding = part.trim().split(";");
+            //an explicit q=0 refuses the coding
+            if (coding.length > 1 && coding[1].trim().matches("q=0(\\.0*)?")) {
+                continue;
+            }
+            if (coding[0].equalsIgnoreCase(GZIP.token) || coding[0].equals("*")) {
+                return GZIP;
+            }
+            deflate |= coding[0].equalsIgnoreCase(DEFLATE.token);
+        }
+        return deflate ? DEFLATE : IDENTITY;
+    }
+
+    /**
+     * @return the compressed bytes; the given array for identity.
+     */
+    public byte[] encode(byte[] body) {
+        if (this == IDENTITY) {
+            return body;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+        try (OutputStream out = this == GZIP ? new GZIPOutputStream(bytes) : new DeflaterOutputStream(bytes)) {
+            out.write(body);
+        } catch (IOException e) {
+            //a byte array stream never throws
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
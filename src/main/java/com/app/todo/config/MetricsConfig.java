@@ -0,0 +1,58 @@
+package com.app.todo.config;
+
+import com.app.todo.metrics.EntityLoadCounter;
+import com.app.todo.metrics.InstrumentedDataSource;
+import com.app.todo.metrics.RequestDbActivityInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+@RequiredArgsConstructor
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Wraps the connection pool so that every statement is timed, counted for its request and, when slower than
+     * `todo.jdbc.slow-query-threshold`, logged with its SQL. Static, as post-processors are created before the
+     * other beans; the meter registry is only looked up when the pool is created.
+     */
+    @Bean
+    public static BeanPostProcessor instrumentedDataSourcePostProcessor(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${todo.jdbc.slow-query-threshold:200ms}") Duration slowQueryThreshold) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)
+                        ? new InstrumentedDataSource(dataSource, meterRegistry.getObject(), slowQueryThreshold)
+                        : bean;
+            }
+        };
+    }
+
+    /**
+     * Counts entity loads per request; the interceptor is stateless and shared by all sessions.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer entityLoadCounter() {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, new EntityLoadCounter());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestDbActivityInterceptor(meterRegistry));
+    }
+}
@@ -0,0 +1,24 @@
+package com.app.todo.config;
+
+import com.app.todo.sharding.OwnerScopeInterceptor;
+import com.app.todo.sharding.ShardRouting;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Scopes the requests of the `/api/v1/owners/{owner}` routes to their owner, see {@link OwnerScopeInterceptor}.
+ * Owners partition the to-do items whether or not they are spread over several shards.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class OwnerScopeConfig implements WebMvcConfigurer {
+
+    private final ShardRouting shardRouting;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new OwnerScopeInterceptor(shardRouting));
+    }
+}
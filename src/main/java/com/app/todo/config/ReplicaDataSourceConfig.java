@@ -0,0 +1,78 @@
+package com.app.todo.config;
+
+import com.app.todo.routing.ReadYourWritesInterceptor;
+import com.app.todo.routing.ReplicaRouting;
+import com.app.todo.routing.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends the service's reads to the read replicas listed in `todo.datasource.replica-urls`, see {@link ReplicaRouting}.
+ * Without replicas the connection pool is the one Spring Boot configures from `spring.datasource`.
+ *
+ * Replicas share the driver and credentials of the primary and get a pool each, named `replica-<n>` in the
+ * `hikaricp.*` metrics. Their connection timeout is short, as a replica that can not hand out a connection is
+ * skipped rather than waited for.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "todo.datasource", name = "replica-urls")
+@RequiredArgsConstructor
+public class ReplicaDataSourceConfig implements WebMvcConfigurer {
+
+    private final ReplicaRouting replicaRouting;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, MeterRegistry meterRegistry,
+                                 @Value("${todo.datasource.replica-urls}") List<String> replicaUrls,
+                                 @Value("${todo.datasource.replica-connection-timeout:1s}") Duration connectionTimeout,
+                                 @Value("${todo.datasource.replica-retry-interval:30s}") Duration retryInterval) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pools.add(primary);
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setJdbcUrl(url);
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            //an unreachable replica must not fail the startup
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(replica);
+            replicas.add(replica);
+        }
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replicas, replicaRouting, retryInterval, meterRegistry));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWritesInterceptor(replicaRouting));
+    }
+
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
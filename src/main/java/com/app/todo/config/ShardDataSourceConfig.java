@@ -0,0 +1,102 @@
+package com.app.todo.config;
+
+import com.app.todo.buffer.TodoToggleBuffer;
+import com.app.todo.sharding.OwnerRebalancer;
+import com.app.todo.sharding.ShardDirectory;
+import com.app.todo.sharding.ShardRouting;
+import com.app.todo.sharding.ShardRoutingDataSource;
+import com.app.todo.sharding.ShardsEndpoint;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partitions the to-do items by owner over the databases listed in `todo.sharding.shard-urls`, see {@link ShardRouting}.
+ * Shard 0 is the database of `spring.datasource`, which also holds the owner directory; the listed URLs are shards 1
+ * to n. They share the driver and credentials of shard 0 and get a pool each, named `shard-<n>` in the `hikaricp.*`
+ * metrics.
+ *
+ * Every shard is migrated with the scripts under db/migration at startup, so `ddl-auto` has to be `none` or
+ * `validate`, as in the prod profile. The `todo_seq` of shard n starts at n * 2^40: ids are unique across shards
+ * and an owner's items keep theirs when the owner is moved. Can not be combined with `todo.datasource.replica-urls`.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "todo.sharding", name = "shard-urls")
+@RequiredArgsConstructor
+public class ShardDataSourceConfig {
+
+    static final long idsPerShard = 1L << 40;
+
+    private final ShardRouting shardRouting;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, MeterRegistry meterRegistry,
+                                 @Value("${todo.sharding.shard-urls}") List<String> shardUrls,
+                                 @Value("${todo.sharding.directory-ttl:10s}") Duration directoryTtl) {
+        HikariDataSource first = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pools.add(first);
+        for (String url : shardUrls) {
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + pools.size());
+            shard.setDriverClassName(properties.determineDriverClassName());
+            shard.setJdbcUrl(url);
+            shard.setUsername(properties.determineUsername());
+            shard.setPassword(properties.determinePassword());
+            shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.add(shard);
+        }
+
+        List<DataSource> shards = new ArrayList<>(pools);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            migrate(shards.get(shard), shard);
+        }
+        ShardDirectory directory = new ShardDirectory(first, shards.size(), directoryTtl);
+        for (int shard = 0; shard < shards.size(); shard++) {
+            directory.adopt(shard, shards.get(shard));
+        }
+        shardRouting.useShards(shards.size(), directory);
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards, shardRouting));
+    }
+
+    @Bean
+    public OwnerRebalancer ownerRebalancer(DataSource dataSource, TodoToggleBuffer toggleBuffer,
+                                           MeterRegistry meterRegistry) throws SQLException {
+        List<DataSource> shards = dataSource.unwrap(ShardRoutingDataSource.class).getShards();
+        return new OwnerRebalancer(shards, shardRouting, toggleBuffer, meterRegistry);
+    }
+
+    @Bean
+    public ShardsEndpoint shardsEndpoint(OwnerRebalancer ownerRebalancer) {
+        return new ShardsEndpoint(shardRouting, ownerRebalancer);
+    }
+
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private static void migrate(DataSource shard, int index) {
+        //databases created by ddl-auto before the migrations existed are taken as version 1, as in the prod profile
+        Flyway.configure().dataSource(shard).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+        //the ids handed out by this shard's sequence start in its own range
+        long floor = index * idsPerShard + 1;
+        new JdbcTemplate(shard).update("UPDATE todo_seq SET next_val = ? WHERE next_val < ?", floor, floor);
+    }
+}
@@ -0,0 +1,55 @@
+package com.app.todo.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.InvalidMimeTypeException;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+
+/**
+ * The encodings to-do items can be sent in. The binary ones carry the same fields as JSON; CBOR drops the quoting
+ * and length overhead, Smile also writes every field name only once per response.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR),
+    SMILE(new MediaType("application", "x-jackson-smile"));
+
+    public static final String smileMediaType = "application/x-jackson-smile";
+
+    private final MediaType mediaType;
+
+    /**
+     * @param accept the `Accept` header, may be `null`.
+     * @return the format the client prefers; JSON when it accepts anything or none of the formats.
+     */
+    public static WireFormat negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+            //highest quality first, the more specific type first among equal ones
+            MimeTypeUtils.sortBySpecificity(accepted);
+        } catch (InvalidMediaTypeException | InvalidMimeTypeException e) {
+            //unparseable, or more types than are sorted
+            return JSON;
+        }
+        for (MediaType mediaType : accepted) {
+            for (WireFormat format : values()) {
+                //a wildcard matches JSON first
+                if (mediaType.getQualityValue() > 0 && mediaType.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
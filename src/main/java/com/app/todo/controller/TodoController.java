@@ -1,29 +1,70 @@
 package com.app.todo.controller;
 
+import com.app.todo.admission.Admission;
+import com.app.todo.admission.RouteClass;
+import com.app.todo.cache.TodoListSnapshotCache;
+import com.app.todo.config.ContentCoding;
+import com.app.todo.config.WireFormat;
 import com.app.todo.entity.Todo;
+import com.app.todo.event.TodoEventBroadcaster;
 import com.app.todo.exceptions.InvalidTodoException;
+import com.app.todo.exceptions.TodoConflictException;
 import com.app.todo.exceptions.TodoNotFoundException;
 import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.TodoChanges;
+import com.app.todo.payload.DeleteResult;
+import com.app.todo.payload.TodoFilter;
+import com.app.todo.payload.TodoPage;
+import com.app.todo.payload.TodoStats;
 import com.app.todo.payload.UpdateTodo;
 import com.app.todo.service.TodoService;
+import com.app.todo.sharding.ShardRouting;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
- * Controller for managing to-do items.
+ * Controller for managing to-do items. Each route is admitted through the bulkhead of its {@link RouteClass};
+ * a request finding it full is answered with 503 (Service Unavailable) and a `Retry-After` header.
+ *
+ * Every route is also served under `api/v1/owners/{owner}/todos`, where it only sees and changes the to-do items of
+ * that owner; an item of another owner is answered with 404 (Not Found). The routes under `api/v1/todos` act for
+ * all owners.
  */
 @RestController
 @RequiredArgsConstructor
-@RequestMapping("api/v1/todos")
+@RequestMapping({"api/v1/todos", "api/v1/owners/{owner}/todos"})
 @Slf4j
 public class TodoController {
 
     private final TodoService todoService;
+    private final ObjectMapper objectMapper;
+    private final TodoListSnapshotCache listSnapshotCache;
+    private final TodoEventBroadcaster eventBroadcaster;
+    private final ShardRouting shardRouting;
+
+    private static final String ndjsonMediaType = "application/x-ndjson";
+    private static final Set<String> deleteFilterParameters = Set.of("completed", "priority", "dueFrom", "dueTo", "owner");
+    private static final String invalidDeleteParameterException = "Can not delete Todo tasks by unknown parameter ";
+    private static final String emptyDeleteParameterException = "Can not delete Todo tasks by empty parameter ";
 
     /**
      * Adds a new to-do item to the system.
@@ -34,9 +75,11 @@ public class TodoController {
      *                    - `description` (String): A brief description of the to-do item. This is optional.
      *                    - `dueDate` (LocalDateTime): The date and time by which the to-do item should be completed. This is optional.
      *                    - `priority` (Priority): The priority level of the to-do item (e.g., LOW, MEDIUM, HIGH). This is optional.
+     *                    - `owner` (String): The owner of the to-do item, the one of the route by default. This is optional.
      * @return a {@link ResponseEntity} containing the newly created {@link Todo} and HTTP status code 201 (Created) if successful.
-     * @throws InvalidTodoException if the provided request is invalid (e.g., due date is in the past).
+     * @throws InvalidTodoException if the provided request is invalid (e.g., due date is in the past, or another owner than the route's).
      */
+    @Admission(RouteClass.WRITE)
     @PostMapping
     public ResponseEntity<Todo> addTodo(
             @RequestBody AddTodoRequest todoRequest) throws InvalidTodoException {
@@ -47,34 +90,253 @@ public class TodoController {
     }
 
     /**
-     * Retrieves a to-do item by its unique identifier.
+     * Adds a batch of new to-do items in one request.
+     *
+     * @param todoRequests a list of {@link AddTodoRequest}, at most 10000 items, each with the same fields as for a single add.
+     * @return a {@link ResponseEntity} containing the created {@link Todo} items and HTTP status code 201 (Created) if successful.
+     * @throws InvalidTodoException if the batch is empty or too large, or if any item is invalid; nothing is stored in that case.
+     */
+    @Admission(RouteClass.BULK)
+    @PostMapping("/batch")
+    public ResponseEntity<List<Todo>> addTodos(
+            @RequestBody List<AddTodoRequest> todoRequests) throws InvalidTodoException {
+        log.info("Adding batch of {} to-do items", todoRequests.size());
+        List<Todo> todos = todoService.addTodos(todoRequests);
+        log.info("Batch of {} to-do items created successfully", todos.size());
+        return new ResponseEntity<>(todos, HttpStatus.CREATED);
+    }
+
+    /**
+     * Retrieves a to-do item by its unique identifier. The response carries a strong ETag derived from the item version;
+     * a request whose `If-None-Match` header matches it is answered with 304 (Not Modified) and no body.
      *
      * @param id the unique identifier of the to-do item to be retrieved.
+     * @param webRequest the current request, used to evaluate `If-None-Match`.
      * @return a {@link ResponseEntity} containing the {@link Todo} if found, with HTTP status code 200 (OK).
      * @throws TodoNotFoundException if no to-do item is found with the given ID.
      */
+    @Admission(RouteClass.READ)
     @GetMapping("/{id}")
     public ResponseEntity<Todo> getTodoById(
-            @PathVariable long id) throws TodoNotFoundException {
+            @PathVariable long id, WebRequest webRequest) throws TodoNotFoundException {
         log.info("Retrieving to-do item with ID: {}", id);
         Todo todo = todoService.getTodoById(id);
+        String etag = etag(todo);
+        if (webRequest.checkNotModified(etag)) {
+            log.info("To-do item with ID: {} not modified", id);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         log.info("To-do item retrieved successfully: {}", todo);
-        return new ResponseEntity<>(todo, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag).body(todo);
+    }
+
+    /**
+     * Retrieves all to-do items in the system, or the ones matching the given filter. The unfiltered list is kept
+     * serialized in memory and only rebuilt after a write; a request whose `If-None-Match` header matches the current
+     * ETag is answered with 304 (Not Modified) without querying the database.
+     *
+     * The list is sent as JSON, CBOR or Smile depending on the `Accept` header; the unfiltered list is also sent
+     * gzip or deflate compressed when the `Accept-Encoding` header allows it and it is above the configured size.
+     *
+     * @param webRequest the current request, used to evaluate `If-None-Match`, `Accept` and `Accept-Encoding`.
+     * @param filter the optional filter parameters:
+     *               - `completed` (Boolean): only completed or only open to-do items.
+     *               - `priority` (Priority, repeatable): only to-do items with one of these priorities.
+     *               - `dueFrom` / `dueTo` (LocalDateTime): only to-do items due in this range, `dueTo` excluded.
+     *               - `owner` (String): only to-do items of this owner; taken from the path on the routes of an owner.
+     * @param sort the optional order, e.g. `sort=dueDate,desc`; one of `id`, `title`, `dueDate` or `createdAt`.
+     * @return a {@link ResponseEntity} containing the serialized list of {@link Todo} items and HTTP status code 200 (OK).
+     * @throws InvalidTodoException if the sort refers to an unsupported property.
+     */
+    @Admission(RouteClass.LIST)
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, WireFormat.smileMediaType})
+    public ResponseEntity<byte[]> getAllTodos(
+            WebRequest webRequest, TodoFilter filter, Sort sort) throws InvalidTodoException, JsonProcessingException {
+        log.info("Retrieving to-do items matching {} sorted by {}", filter, sort);
+        WireFormat format = WireFormat.negotiate(webRequest.getHeader(HttpHeaders.ACCEPT));
+        if (!filter.isEmpty() || sort.isSorted()) {
+            //every write moves the ETag, so it also validates filtered results
+            String etag = listSnapshotCache.currentEtag(format);
+            if (webRequest.checkNotModified(etag)) {
+                log.info("To-do items not modified");
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            List<Todo> todos = todoService.findTodos(filter, sort);
+            log.info("Retrieved {} matching to-do items", todos.size());
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .contentType(format.getMediaType())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(listSnapshotCache.serialize(todos, format));
+        }
+
+        //the ETag depends on whether the body is compressed, which depends on its size: the snapshot is taken first,
+        //it is only rebuilt after a write, when the client's ETag can not match anyway
+        ContentCoding coding = ContentCoding.negotiate(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        TodoListSnapshotCache.Snapshot snapshot = listSnapshotCache.get(todoService::getAllTodos, format, coding);
+        if (webRequest.checkNotModified(snapshot.getEtag())) {
+            log.info("To-do items not modified");
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.getEtag()).build();
+        }
+        log.info("Retrieved {} bytes of to-do items as {} with {} coding", snapshot.getBody().length, format, snapshot.getCoding());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(snapshot.getEtag())
+                .contentType(format.getMediaType())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (snapshot.getCoding() != ContentCoding.IDENTITY) {
+            response.header(HttpHeaders.CONTENT_ENCODING, snapshot.getCoding().getToken());
+        }
+        return response.body(snapshot.getBody());
+    }
+
+    /**
+     * Streams all to-do items as newline-delimited JSON, one item per line, written as rows are read
+     * from the database. Selected with the `Accept: application/x-ndjson` header.
+     *
+     * @return a {@link ResponseEntity} whose body writes every {@link Todo} and HTTP status code 200 (OK).
+     */
+    @Admission(RouteClass.STREAM)
+    @GetMapping(produces = ndjsonMediaType)
+    public ResponseEntity<StreamingResponseBody> streamAllTodos() {
+        log.info("Streaming all to-do items");
+        //the body is written on another thread, which does not know the owner of the route
+        String owner = shardRouting.currentOwner();
+        StreamingResponseBody body = outputStream -> shardRouting.asOwner(owner, () -> {
+            todoService.streamAllTodos(todo -> {
+                try {
+                    outputStream.write(objectMapper.writeValueAsBytes(todo));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return null;
+        });
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    /**
+     * Subscribes to the changes of all to-do items as server-sent events, instead of polling. Every create, update,
+     * toggle and delete is pushed once it has been committed, as an event named after the {@link com.app.todo.event.TodoChangeType}
+     * with a {@link com.app.todo.payload.TodoEvent} as data. A client that falls too far behind is disconnected
+     * and should catch up with `/changes` after reconnecting. On the route of an owner only the changes of its to-do
+     * items are pushed, and the deletion of all items.
+     *
+     * @return a {@link ResponseEntity} containing the {@link SseEmitter} of the stream and HTTP status code 200 (OK).
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges() {
+        log.info("Subscribing to to-do changes");
+        SseEmitter emitter = eventBroadcaster.subscribe(shardRouting.currentOwner());
+        log.info("Subscribed to to-do changes, {} subscribers", eventBroadcaster.subscriberCount());
+        return new ResponseEntity<>(emitter, HttpStatus.OK);
+    }
+
+    /**
+     * Searches the title and description of all to-do items.
+     *
+     * @param q the search text; every word has to match a word of the to-do item, or the beginning of one.
+     * @param limit the maximum number of results (at most 100).
+     * @return a {@link ResponseEntity} containing the matching {@link Todo} items, best match first, and HTTP status code 200 (OK).
+     * @throws InvalidTodoException if the search text contains no word.
+     */
+    @Admission(RouteClass.READ)
+    @GetMapping("/search")
+    public ResponseEntity<List<Todo>> searchTodos(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) throws InvalidTodoException {
+        log.info("Searching to-do items for: {}", q);
+        List<Todo> todos = todoService.searchTodos(q, limit);
+        log.info("Found {} matching to-do items", todos.size());
+        return new ResponseEntity<>(todos, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the open to-do items whose due date has passed.
+     *
+     * @param limit the maximum number of items (at most 500).
+     * @return a {@link ResponseEntity} containing the overdue {@link Todo} items, longest overdue first, and HTTP status code 200 (OK).
+     */
+    @Admission(RouteClass.READ)
+    @GetMapping("/overdue")
+    public ResponseEntity<List<Todo>> getOverdueTodos(
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("Retrieving overdue to-do items");
+        List<Todo> todos = todoService.getOverdueTodos(limit);
+        log.info("Retrieved {} overdue to-do items", todos.size());
+        return new ResponseEntity<>(todos, HttpStatus.OK);
     }
 
     /**
-     * Retrieves all to-do items in the system.
+     * Retrieves the open to-do items due in the next hours.
      *
-     * @return a {@link ResponseEntity} containing a list of all {@link Todo} items and HTTP status code 200 (OK).
+     * @param hours how many hours ahead to look.
+     * @param limit the maximum number of items (at most 500).
+     * @return a {@link ResponseEntity} containing the upcoming {@link Todo} items, earliest due first, and HTTP status code 200 (OK).
      */
-    @GetMapping
-    public ResponseEntity<List<Todo>> getAllTodos() {
-        log.info("Retrieving all to-do items");
-        List<Todo> todos = todoService.getAllTodos();
-        log.info("Retrieved {} to-do items", todos.size());
+    @Admission(RouteClass.READ)
+    @GetMapping("/upcoming")
+    public ResponseEntity<List<Todo>> getUpcomingTodos(
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "50") int limit) {
+        log.info("Retrieving to-do items due in the next {} hours", hours);
+        List<Todo> todos = todoService.getUpcomingTodos(Duration.ofHours(hours), limit);
+        log.info("Retrieved {} upcoming to-do items", todos.size());
         return new ResponseEntity<>(todos, HttpStatus.OK);
     }
 
+    /**
+     * Retrieves the number of to-do items by priority, by completed state and overdue.
+     *
+     * @return a {@link ResponseEntity} containing the {@link TodoStats} and HTTP status code 200 (OK).
+     */
+    @Admission(RouteClass.READ)
+    @GetMapping("/stats")
+    public ResponseEntity<TodoStats> getStatistics() {
+        log.info("Retrieving to-do statistics");
+        TodoStats stats = todoService.getStatistics();
+        log.info("Retrieved statistics of {} to-do items", stats.getTotal());
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves one page of to-do items ordered by id.
+     *
+     * @param cursor the `nextCursor` returned with the previous page; omit it to get the first page.
+     * @param size the number of items per page (at most 500).
+     * @return a {@link ResponseEntity} containing a {@link TodoPage} and HTTP status code 200 (OK).
+     */
+    @Admission(RouteClass.LIST)
+    @GetMapping("/page")
+    public ResponseEntity<TodoPage> getTodosPage(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        log.info("Retrieving page of to-do items after cursor: {}", cursor);
+        TodoPage page = todoService.getTodosPage(cursor, size);
+        log.info("Retrieved {} to-do items, next cursor: {}", page.getItems().size(), page.getNextCursor());
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    /**
+     * Retrieves the to-do items created, updated or deleted since a cursor, for clients keeping a local copy.
+     *
+     * @param since the `nextCursor` returned with the previous page; omit it for a full sync.
+     * @param size the number of changes per page (at most 500).
+     * @return a {@link ResponseEntity} containing the {@link TodoChanges} and HTTP status code 200 (OK).
+     * @throws InvalidTodoException if the cursor is malformed.
+     */
+    @Admission(RouteClass.LIST)
+    @GetMapping("/changes")
+    public ResponseEntity<TodoChanges> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int size) throws InvalidTodoException {
+        log.info("Retrieving to-do changes since cursor: {}", since);
+        TodoChanges changes = todoService.getChanges(since, size);
+        log.info("Retrieved {} changed and {} deleted to-do items, next cursor: {}", changes.getChanged().size(),
+                changes.getDeleted().size(), changes.getNextCursor());
+        return new ResponseEntity<>(changes, HttpStatus.OK);
+    }
+
     /**
      * Updates an existing to-do item.
      *
@@ -85,33 +347,39 @@ public class TodoController {
      *                    - `description` (String): The updated description of the to-do item. This is optional.
      *                    - `dueDate` (LocalDateTime): The updated date and time by which the to-do item should be completed. This is optional.
      *                    - `priority` (Priority): The updated priority level of the to-do item. This is optional.
-     * @return a {@link ResponseEntity} containing the updated {@link Todo} and HTTP status code 200 (OK) if successful.
+     * @param ifMatch the optional `If-Match` header holding the ETag the change is based on; when present the update
+     *                only succeeds if the to-do item has not been modified since.
+     * @return a {@link ResponseEntity} containing the persisted state of the updated {@link Todo} and HTTP status code 200 (OK) if successful.
      * @throws TodoNotFoundException if no to-do item is found with the given ID.
+     * @throws TodoConflictException if the to-do item was modified since the ETag in `If-Match` was issued.
      */
+    @Admission(RouteClass.WRITE)
     @PutMapping("/{id}")
     public ResponseEntity<Todo> updateTodo(
             @PathVariable long id,
-            @RequestBody UpdateTodo updateTodo)  throws TodoNotFoundException {
+            @RequestBody UpdateTodo updateTodo,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch)  throws TodoNotFoundException {
         log.info("Updating to-do item with ID: {}", id);
-        Todo updatedTodo = todoService.updateTodo(id, updateTodo);
+        Todo updatedTodo = todoService.updateTodo(id, updateTodo, expectedVersion(id, ifMatch));
         log.info("To-do item updated successfully: {}", updatedTodo);
-        return new ResponseEntity<>(updatedTodo, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag(updatedTodo)).body(updatedTodo);
     }
 
     /**
-     * Marks a to-do item as completed.
+     * Marks a to-do item as completed, or unmarks it if it already is.
      *
      * @param id the unique identifier of the to-do item to be marked as completed.
-     * @return a {@link ResponseEntity} with HTTP status code 204 (No Content) if successful.
+     * @return a {@link ResponseEntity} containing the persisted state of the {@link Todo} and HTTP status code 200 (OK) if successful.
      * @throws TodoNotFoundException if no to-do item is found with the given ID.
      */
+    @Admission(RouteClass.WRITE)
     @PatchMapping("/{id}/markOrUnmark")
-    public ResponseEntity<Void> markAsCompleted(
+    public ResponseEntity<Todo> markAsCompleted(
             @PathVariable long id)  throws TodoNotFoundException {
         log.info("Marking or Unmarking to-do item as completed with ID: {}", id);
-        todoService.markOrUnmarkedAsCompleted(id);
+        Todo todo = todoService.markOrUnmarkedAsCompleted(id);
         log.info("To-do item marked or Unmarked as completed with ID: {}", id);
-        return new ResponseEntity<>(HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag(todo)).body(todo);
     }
 
     /**
@@ -121,6 +389,7 @@ public class TodoController {
      * @return a {@link ResponseEntity} with HTTP status code 204 (No Content) if successful.
      * @throws TodoNotFoundException if no to-do item is found with the given ID.
      */
+    @Admission(RouteClass.WRITE)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteById(
             @PathVariable long id)  throws TodoNotFoundException {
@@ -131,15 +400,65 @@ public class TodoController {
     }
 
     /**
-     * Deletes all to-do items.
+     * Deletes all to-do items, or only those matching the filter parameters, e.g. `?completed=true` for all
+     * completed items or `?dueTo=2024-09-01T00:00:00` for all items due before that time. Only a request without
+     * any parameter deletes everything, so a misspelled or empty parameter is rejected rather than ignored.
      *
-     * @return a {@link ResponseEntity} with HTTP status code 204 (No Content).
+     * @param webRequest the current request, whose parameter names and values are checked.
+     * @param filter the optional filter parameters:
+     *               - `completed` (Boolean): only completed or only open to-do items.
+     *               - `priority` (Priority, repeatable): only to-do items with one of these priorities.
+     *               - `dueFrom` / `dueTo` (LocalDateTime): only to-do items due in this range, `dueTo` excluded.
+     *               - `owner` (String): only to-do items of this owner.
+     * @return a {@link ResponseEntity} containing a {@link DeleteResult} with the number of deleted items and HTTP status code 200 (OK).
+     * @throws InvalidTodoException if a parameter is not one of the above, or has no value.
      */
+    @Admission(RouteClass.BULK)
     @DeleteMapping
-    public ResponseEntity<Void> deleteAll() {
-        log.info("Deleting all to-do items");
-        todoService.deleteAll();
-        log.info("All to-do items deleted");
-        return new ResponseEntity<>(HttpStatus.OK);
+    public ResponseEntity<DeleteResult> deleteAll(WebRequest webRequest, TodoFilter filter) throws InvalidTodoException {
+        for (Map.Entry<String, String[]> parameter : webRequest.getParameterMap().entrySet()) {
+            if (!deleteFilterParameters.contains(parameter.getKey())) {
+                throw new InvalidTodoException(invalidDeleteParameterException + parameter.getKey());
+            }
+            if (Arrays.stream(parameter.getValue()).anyMatch(String::isBlank)) {
+                throw new InvalidTodoException(emptyDeleteParameterException + parameter.getKey());
+            }
+        }
+        if (webRequest.getParameterMap().isEmpty()) {
+            log.info("Deleting all to-do items");
+            long deleted = todoService.deleteAll();
+            log.info("All {} to-do items deleted", deleted);
+            return new ResponseEntity<>(new DeleteResult(deleted), HttpStatus.OK);
+        }
+        log.info("Deleting to-do items matching {}", filter);
+        long deleted = todoService.deleteTodos(filter);
+        log.info("{} matching to-do items deleted", deleted);
+        return new ResponseEntity<>(new DeleteResult(deleted), HttpStatus.OK);
+    }
+
+    private static String etag(Todo todo) {
+        return "\"" + todo.getId() + "-" + todo.getVersion() + "\"";
+    }
+
+    /**
+     * Reads the version out of an `If-Match` ETag of the form `"<id>-<version>"`.
+     *
+     * @return the expected version, or `null` when there is no precondition (no header or `*`).
+     * @throws TodoConflictException if the ETag does not belong to the given to-do item.
+     */
+    private static Long expectedVersion(long id, String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim().replace("W/", "").replace("\"", "");
+        String prefix = id + "-";
+        try {
+            if (tag.startsWith(prefix)) {
+                return Long.parseLong(tag.substring(prefix.length()));
+            }
+        } catch (NumberFormatException e) {
+            //falling through to the conflict below
+        }
+        throw new TodoConflictException("If-Match does not match the current version of todo with id " + id);
     }
 }
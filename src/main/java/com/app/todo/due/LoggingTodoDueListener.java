@@ -0,0 +1,18 @@
+package com.app.todo.due;
+
+import com.app.todo.entity.Todo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Default {@link TodoDueListener}: logs every reminder.
+ */
+@Slf4j
+@Component
+public class LoggingTodoDueListener implements TodoDueListener {
+
+    @Override
+    public void todoDue(Todo todo) {
+        log.info("To-do item with ID: {} is due now: {}", todo.getId(), todo.getTitle());
+    }
+}
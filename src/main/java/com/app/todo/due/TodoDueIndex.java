@@ -0,0 +1,272 @@
+package com.app.todo.due;
+
+import com.app.todo.entity.Todo;
+import com.app.todo.event.TodoChangedEvent;
+import com.app.todo.event.TodoIndex;
+import com.app.todo.event.TodoVersions;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import lombok.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Open to-do items ordered by due date, in memory. Completed items and items without a due date are not indexed.
+ * Each entry carries the owner of its item, so that the items of one owner are listed without reading the others.
+ *
+ * The entries live in a {@link ConcurrentSkipListSet}, so reads never block and a range of due dates costs a
+ * descent plus the entries returned. A map from id to entry finds the entry to replace when an item changes;
+ * all changes to one id run inside {@link ConcurrentHashMap#compute}, so they are applied one at a time.
+ *
+ * The number of overdue entries is counted as well, without walking them: {@link #overdueCount} moves a boundary
+ * forward in time and counts the entries it passes, and an entry added behind the boundary counts itself. Each
+ * entry is counted at most once and uncounted when it is removed, so writers never wait for the counting.
+ *
+ * The index is kept current from {@link TodoChangedEvent}s, an event older than the indexed version of its item
+ * being ignored, and filled at startup by the {@link com.app.todo.event.TodoIndexLoader}.
+ */
+@Component
+public class TodoDueIndex implements TodoIndex {
+
+    private static final Comparator<Entry> byDueDate = Comparator.comparing(Entry::getDueDate).thenComparingLong(Entry::getId);
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<>(byDueDate);
+    private final ConcurrentHashMap<Long, Entry> entriesById = new ConcurrentHashMap<>();
+    //also of the items that are not indexed, so that an older event does not index them
+    private final TodoVersions versions = new TodoVersions();
+
+    //entries before the boundary are overdue; the boundary is only moved forward, by one thread at a time
+    private volatile Entry overdueBoundary = Entry.at(LocalDateTime.MIN, Long.MIN_VALUE);
+    private final ReentrantLock boundaryLock = new ReentrantLock();
+    private final LongAdder overdue = new LongAdder();
+    private volatile boolean loaded;
+
+    //ids changed by events while the loader is running; `null` when no load is running
+    private volatile Set<Long> changedWhileLoading;
+    private volatile boolean clearedWhileLoading;
+
+    @EventListener
+    public void onTodoChanged(TodoChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED, TOGGLED, RESTORED -> update(event.getId(), event.getTodo(), false, () -> versions.isNewer(event));
+            case DELETED, ARCHIVED -> update(event.getId(), null, false, () -> versions.isNewer(event));
+            case CLEARED -> clear();
+        }
+    }
+
+    /**
+     * Indexes the to-do item if it is open and has a due date, replacing its previous entry unless that is of a
+     * newer version.
+     */
+    public void put(Todo todo) {
+        update(todo.getId(), todo, false, () -> versions.put(todo));
+    }
+
+    /**
+     * @see #overdue(LocalDateTime, String, int)
+     */
+    public List<Long> overdue(LocalDateTime now, int limit) {
+        return overdue(now, null, limit);
+    }
+
+    /**
+     * @param now the current time.
+     * @param owner only the items of this owner, or those of all owners when `null`.
+     * @param limit the maximum number of ids.
+     * @return the ids of open to-do items due before now, longest overdue first.
+     */
+    public List<Long> overdue(LocalDateTime now, String owner, int limit) {
+        return ids(entries.headSet(Entry.at(now, Long.MIN_VALUE)), owner, limit);
+    }
+
+    /**
+     * @see #dueBetween(LocalDateTime, LocalDateTime, String, int)
+     */
+    public List<Long> dueBetween(LocalDateTime from, LocalDateTime to, int limit) {
+        return dueBetween(from, to, null, limit);
+    }
+
+    /**
+     * @param from the start of the range, included.
+     * @param to the end of the range, excluded.
+     * @param owner only the items of this owner, or those of all owners when `null`.
+     * @param limit the maximum number of ids.
+     * @return the ids of open to-do items due in the range, earliest first.
+     */
+    public List<Long> dueBetween(LocalDateTime from, LocalDateTime to, String owner, int limit) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        return ids(entries.subSet(Entry.at(from, Long.MIN_VALUE), Entry.at(to, Long.MIN_VALUE)), owner, limit);
+    }
+
+    /**
+     * @param now the current time.
+     * @return the number of open to-do items due before now; costs one step per item that became overdue since
+     * the previous call.
+     */
+    public long overdueCount(LocalDateTime now) {
+        Entry to = Entry.at(now, Long.MIN_VALUE);
+        boundaryLock.lock();
+        try {
+            Entry from = overdueBoundary;
+            if (byDueDate.compare(to, from) > 0) {
+                //moved before the walk: an entry added behind the new boundary from now on counts itself
+                overdueBoundary = to;
+                entries.subSet(from, true, to, false).forEach(this::count);
+            }
+        } finally {
+            boundaryLock.unlock();
+        }
+        return overdue.sum();
+    }
+
+    /**
+     * @return whether the startup load has completed.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return the first entry due after the given position, or `null` if there is none.
+     */
+    Entry next(Entry after) {
+        return entries.higher(after);
+    }
+
+    @Override
+    public int size() {
+        return entriesById.size();
+    }
+
+    public void clear() {
+        if (changedWhileLoading != null) {
+            clearedWhileLoading = true;
+        }
+        entriesById.values().forEach(this::uncount);
+        entriesById.clear();
+        entries.clear();
+        versions.clear();
+    }
+
+    @Override
+    public void beginLoad() {
+        clearedWhileLoading = false;
+        changedWhileLoading = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public void load(Todo todo) {
+        if (!clearedWhileLoading) {
+            update(todo.getId(), todo, true, () -> versions.put(todo));
+        }
+    }
+
+    @Override
+    public void endLoad() {
+        changedWhileLoading = null;
+        loaded = true;
+    }
+
+    /**
+     * Replaces the entry of one id; `todo` is `null` for a deleted item.
+     *
+     * @param isNewer whether the change is newer than the one applied before; asked inside the update, so that the
+     * newest of two concurrent changes is also applied last.
+     */
+    private void update(long id, Todo todo, boolean fromLoad, BooleanSupplier isNewer) {
+        entriesById.compute(id, (key, previous) -> {
+            Set<Long> changed = changedWhileLoading;
+            if (changed != null) {
+                if (fromLoad && changed.contains(id)) {
+                    return previous;
+                }
+                if (!fromLoad) {
+                    changed.add(id);
+                }
+            }
+            if (!isNewer.getAsBoolean()) {
+                return previous;
+            }
+            if (previous != null) {
+                entries.remove(previous);
+                uncount(previous);
+            }
+            if (todo == null || todo.getDueDate() == null || Boolean.TRUE.equals(todo.getCompleted())) {
+                return null;
+            }
+            Entry entry = new Entry(todo.getDueDate(), id, todo.getOwner());
+            entries.add(entry);
+            //read after the add: either this sees the boundary already past the entry, or the walk sees the entry
+            if (byDueDate.compare(entry, overdueBoundary) < 0) {
+                count(entry);
+            }
+            return entry;
+        });
+    }
+
+    private void count(Entry entry) {
+        if (entry.getState().compareAndSet(Entry.pending, Entry.counted)) {
+            overdue.increment();
+        }
+    }
+
+    private void uncount(Entry entry) {
+        //a removed entry can no longer be counted by a later walk
+        if (entry.getState().getAndSet(Entry.removed) == Entry.counted) {
+            overdue.decrement();
+        }
+    }
+
+    private static List<Long> ids(Set<Entry> range, String owner, int limit) {
+        List<Long> ids = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : range) {
+            if (ids.size() == limit) {
+                break;
+            }
+            if (owner == null || owner.equals(entry.getOwner())) {
+                ids.add(entry.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * A position in due-date order; ties are broken by id. The owner is not part of the position.
+     */
+    @Value
+    static class Entry {
+        static final int pending = 0;
+        static final int counted = 1;
+        static final int removed = 2;
+
+        LocalDateTime dueDate;
+        long id;
+        @EqualsAndHashCode.Exclude
+        String owner;
+        //whether the entry is counted as overdue; not part of the position
+        @EqualsAndHashCode.Exclude
+        @ToString.Exclude
+        AtomicInteger state = new AtomicInteger(pending);
+
+        /**
+         * @return a position to look up entries from, of no item.
+         */
+        static Entry at(LocalDateTime dueDate, long id) {
+            return new Entry(dueDate, id, null);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.app.todo.due;
+
+import com.app.todo.entity.Todo;
+
+/**
+ * Receives a reminder when the due date of an open to-do item arrives. Every bean implementing this interface is
+ * called by the {@link TodoReminderDispatcher}, on the scheduler thread and in due-date order; a listener that
+ * does slow work, like sending mail, should hand it off to its own executor.
+ */
+public interface TodoDueListener {
+
+    /**
+     * @param todo the to-do item whose due date has arrived, including its buffered completion toggles.
+     */
+    void todoDue(Todo todo);
+}
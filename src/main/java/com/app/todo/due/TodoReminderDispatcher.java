@@ -0,0 +1,84 @@
+package com.app.todo.due;
+
+import com.app.todo.entity.Todo;
+import com.app.todo.exceptions.TodoNotFoundException;
+import com.app.todo.service.TodoService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Calls every {@link TodoDueListener} when the due date of an open to-do item arrives. Every
+ * `todo.due.reminder-interval-ms` it walks the {@link TodoDueIndex} from the last position it dispatched up to the
+ * current time, so each run only touches the items that became due since the previous one.
+ *
+ * Only due dates reached while the application is running are dispatched: the walk starts at startup time, and
+ * an item moved to a due date that has already passed gets no reminder. Moving an item to a later due date
+ * reminds again once that date arrives.
+ */
+@Slf4j
+@Component
+public class TodoReminderDispatcher {
+
+    private final TodoDueIndex dueIndex;
+    private final TodoService todoService;
+    private final List<TodoDueListener> listeners;
+
+    //the last position dispatched; only touched by the scheduler thread
+    private TodoDueIndex.Entry dispatched;
+
+    public TodoReminderDispatcher(TodoDueIndex dueIndex, TodoService todoService, List<TodoDueListener> listeners) {
+        this.dueIndex = dueIndex;
+        this.todoService = todoService;
+        this.listeners = listeners;
+        this.dispatched = TodoDueIndex.Entry.at(LocalDateTime.now(), Long.MAX_VALUE);
+    }
+
+    @Scheduled(fixedDelayString = "${todo.due.reminder-interval-ms:1000}")
+    public void dispatchDue() {
+        dispatchDue(LocalDateTime.now());
+    }
+
+    /**
+     * Dispatches everything due up to and including the given time.
+     *
+     * @return the number of reminders dispatched.
+     */
+    int dispatchDue(LocalDateTime now) {
+        int count = 0;
+        TodoDueIndex.Entry next = dueIndex.next(dispatched);
+        while (next != null && !next.getDueDate().isAfter(now)) {
+            dispatched = next;
+            Todo todo = current(next.getId());
+            //the index is updated after the write, the item may have been completed or deleted in the meantime
+            if (todo != null && !todo.getCompleted() && next.getDueDate().equals(todo.getDueDate())) {
+                notifyListeners(todo);
+                count++;
+            }
+            next = dueIndex.next(dispatched);
+        }
+        return count;
+    }
+
+    private Todo current(long id) {
+        try {
+            return todoService.getTodoById(id);
+        } catch (TodoNotFoundException e) {
+            return null;
+        }
+    }
+
+    private void notifyListeners(Todo todo) {
+        for (TodoDueListener listener : listeners) {
+            try {
+                listener.todoDue(todo);
+            } catch (RuntimeException e) {
+                //one failing listener must not cost the others their reminder
+                log.error("Reminder listener {} failed for to-do item with ID: {}", listener.getClass().getSimpleName(), todo.getId(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.app.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * A completed {@link Todo} moved out of the `todo` table by the archive job, with all its columns. Keeping old
+ * rows out of the hot table keeps its indexes small; the archive is only read by id and by the opt-in list mode.
+ */
+@Entity
+@Data
+@Table(name = "todo_archive", indexes = {
+        @Index(name = "idx_todo_archive_owner_id", columnList = "owner, id")
+})
+public class ArchivedTodo {
+
+    //the id the item had in the `todo` table
+    @Id
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String owner;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(length = 255)
+    private String description;
+
+    @Column(name = "due_date")
+    private LocalDateTime dueDate;
+
+    @Enumerated(EnumType.STRING)
+    private Priority priority;
+
+    @Column(nullable = false)
+    private Boolean completed;
+
+    //the version of the last write, not incremented here: the archive is never written to, only moved in and out
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
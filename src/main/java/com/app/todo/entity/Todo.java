@@ -4,15 +4,32 @@ import jakarta.persistence.*;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_todo_completed_due_date", columnList = "completed, due_date"),
+        @Index(name = "idx_todo_priority_due_date", columnList = "priority, due_date"),
+        @Index(name = "idx_todo_change_seq", columnList = "change_seq, id"),
+        @Index(name = "idx_todo_owner_id", columnList = "owner, id"),
+        @Index(name = "idx_todo_owner_change_seq", columnList = "owner, change_seq, id")
+})
 public class Todo {
 
+    //the owner of items created through the routes that are not scoped to an owner
+    public static final String defaultOwner = "default";
+
+    // a pooled sequence (a table on MySQL) hands out ids in blocks, which lets Hibernate batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "todo_seq")
+    @SequenceGenerator(name = "todo_seq", sequenceName = "todo_seq", allocationSize = 50)
     private Long id;
 
+    //partitions the items: owner-scoped routes only see their owner's, and all items of an owner are on one shard
+    @Column(nullable = false, length = 64)
+    private String owner = defaultOwner;
+
     @Column(nullable = false)
     private String title;
 
@@ -28,11 +45,25 @@ public class Todo {
     @Column(nullable = false)
     private Boolean completed = false;
 
+    //bumped by every write, also by the bulk JPQL updates; it is the per-item ETag
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    //position of the last write in the change sequence, see TodoChangeSequence; the delta sync reads rows in this order
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
+        //the column keeps microseconds, truncating keeps the returned entity equal to the stored row
+        createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        updatedAt = createdAt;
     }
 }
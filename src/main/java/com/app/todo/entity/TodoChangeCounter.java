@@ -0,0 +1,26 @@
+package com.app.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The single row holding the last position handed out in the change sequence of a database, see
+ * {@link com.app.todo.sync.TodoChangeSequence}.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "todo_change_counter")
+public class TodoChangeCounter {
+
+    public static final int rowId = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+}
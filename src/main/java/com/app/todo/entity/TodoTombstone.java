@@ -0,0 +1,38 @@
+package com.app.todo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records the deletion of a {@link Todo}, so that clients syncing changes learn about it.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "todo_tombstone", indexes = {
+        @Index(name = "idx_todo_tombstone_change_seq", columnList = "change_seq, todo_id"),
+        @Index(name = "idx_todo_tombstone_owner_change_seq", columnList = "owner, change_seq, todo_id")
+})
+public class TodoTombstone {
+
+    //todo ids come from a sequence and are never reused, so one tombstone per id is enough
+    @Id
+    @Column(name = "todo_id")
+    private Long todoId;
+
+    //the owner of the deleted item, for the owner-scoped delta sync
+    @Column(nullable = false, length = 64)
+    private String owner;
+
+    //position of the delete in the change sequence
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,7 @@
+package com.app.todo.event;
+
+public enum TodoChangeType {
+    CREATED, UPDATED, TOGGLED, DELETED, CLEARED,
+    //moved out of the `todo` table into the archive, or back; the item itself did not change
+    ARCHIVED, RESTORED
+}
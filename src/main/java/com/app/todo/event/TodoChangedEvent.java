@@ -0,0 +1,35 @@
+package com.app.todo.event;
+
+import com.app.todo.entity.Todo;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published by the {@link com.app.todo.service.TodoService} after a write has been committed.
+ */
+@Getter
+@ToString
+public class TodoChangedEvent {
+
+    private final TodoChangeType type;
+    //id of the changed to-do item, `null` for CLEARED
+    private final Long id;
+    //state before the change, `null` when it is not known (e.g. CREATED, RESTORED, or DELETED of an item that was not cached)
+    private final Todo previous;
+    //state after the change, `null` for DELETED and CLEARED
+    private final Todo todo;
+    //owner of the changed to-do item, also when neither state is known; `null` for CLEARED
+    private final String owner;
+
+    public TodoChangedEvent(TodoChangeType type, Long id, Todo previous, Todo todo) {
+        this(type, id, previous, todo, todo != null ? todo.getOwner() : previous != null ? previous.getOwner() : null);
+    }
+
+    public TodoChangedEvent(TodoChangeType type, Long id, Todo previous, Todo todo, String owner) {
+        this.type = type;
+        this.id = id;
+        this.previous = previous;
+        this.todo = todo;
+        this.owner = owner;
+    }
+}
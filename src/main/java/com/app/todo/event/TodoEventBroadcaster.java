@@ -0,0 +1,294 @@
+package com.app.todo.event;
+
+import com.app.todo.payload.TodoEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes every {@link TodoChangedEvent} to the clients of the server-sent event stream.
+ *
+ * Writers are never held up by subscribers: the listener only hands the event to a single fan-out thread, which
+ * serializes it once and appends it to the buffer of every subscriber. A small pool of delivery threads drains the
+ * buffers. A subscriber waiting for events holds no thread, so an open stream costs its buffer and its connection.
+ *
+ * Buffers hold at most `todo.events.buffer-size` events. A subscriber that falls further behind is disconnected
+ * rather than sent a stream with gaps; once reconnected it catches up through the delta sync. A comment line is
+ * sent every `todo.events.heartbeat-interval-ms`, which keeps idle connections open through proxies and notices
+ * clients that went away.
+ *
+ * A send to a client that stopped reading blocks its delivery thread until the container's write timeout. A send
+ * running longer than `todo.events.send-timeout` is taken as such: the subscriber is disconnected like a slow one,
+ * and the pool gets an extra thread until the send returns, so the other subscribers keep their delivery threads.
+ */
+@Slf4j
+@Component
+public class TodoEventBroadcaster {
+
+    private final ObjectMapper objectMapper;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final int deliveryThreads;
+    private final Counter slowDisconnects;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    //a single thread, so that every subscriber gets the events in the order they were published
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(threads("todo-events-fan-out"));
+    private final ThreadPoolExecutor delivery;
+    //guarded by the delivery pool
+    private int stalledSends;
+
+    public TodoEventBroadcaster(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                @Value("${todo.events.buffer-size:256}") int bufferSize,
+                                @Value("${todo.events.delivery-threads:4}") int deliveryThreads,
+                                @Value("${todo.events.timeout:30m}") Duration timeout,
+                                @Value("${todo.events.send-timeout:10s}") Duration sendTimeout) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.deliveryThreads = deliveryThreads;
+        this.delivery = new ThreadPoolExecutor(deliveryThreads, deliveryThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threads("todo-events-delivery"));
+        this.slowDisconnects = meterRegistry.counter("todo.events.slow.disconnects");
+        meterRegistry.gaugeCollectionSize("todo.events.subscribers", Tags.empty(), subscribers);
+    }
+
+    /**
+     * @return an emitter receiving every change from now on, until it times out or the client goes away.
+     */
+    public SseEmitter subscribe() {
+        return subscribe(null);
+    }
+
+    /**
+     * @param owner only the changes of this owner's to-do items are sent, and the deletion of all items; `null` for the
+     *              changes of all owners.
+     * @return an emitter receiving these changes from now on, until it times out or the client goes away.
+     */
+    public SseEmitter subscribe(String owner) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        register(emitter, owner);
+        return emitter;
+    }
+
+    void register(SseEmitter emitter) {
+        register(emitter, null);
+    }
+
+    void register(SseEmitter emitter, String owner) {
+        Subscriber subscriber = new Subscriber(emitter, owner);
+        //also called after a timeout or an error
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @EventListener
+    public void onTodoChanged(TodoChangedEvent event) {
+        if (!subscribers.isEmpty()) {
+            fanOut.execute(() -> broadcast(event));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${todo.events.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        if (!subscribers.isEmpty()) {
+            fanOut.execute(() -> broadcastToAll(SseEmitter.event().comment("heartbeat").build()));
+        }
+    }
+
+    /**
+     * Disconnects the subscribers whose current send has been blocked for longer than the send timeout.
+     */
+    @Scheduled(fixedDelayString = "${todo.events.stall-check-interval-ms:1000}")
+    public void disconnectStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.disconnectIfStalled(now);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        fanOut.shutdownNow();
+        delivery.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void broadcast(TodoChangedEvent event) {
+        String data;
+        try {
+            data = objectMapper.writeValueAsString(new TodoEvent(event.getType(), event.getId(), event.getTodo()));
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize {} event of to-do item with ID: {}", event.getType(), event.getId(), e);
+            return;
+        }
+        Set<DataWithMediaType> message = SseEmitter.event().name(event.getType().name()).data(data).build();
+        if (event.getType() == TodoChangeType.CLEARED) {
+            //the items of every owner are gone
+            broadcastToAll(message);
+        } else {
+            broadcast(message, event.getOwner());
+        }
+    }
+
+    //the message is built once and shared, every emitter only writes it
+    private void broadcast(Set<DataWithMediaType> message, String owner) {
+        for (Subscriber subscriber : subscribers) {
+            //a change whose owner is not known is not sent to the subscribers of an owner, it may be another's
+            if (subscriber.owner == null || subscriber.owner.equals(owner)) {
+                subscriber.offer(message);
+            }
+        }
+    }
+
+    private void broadcastToAll(Set<DataWithMediaType> message) {
+        subscribers.forEach(subscriber -> subscriber.offer(message));
+    }
+
+    /**
+     * Adds a delivery thread for a send that blocks one, or takes it away again once the send returned.
+     */
+    private void stalledSend(int change) {
+        synchronized (delivery) {
+            stalledSends += change;
+            int threads = deliveryThreads + stalledSends;
+            //the maximum may never be below the core size
+            if (change > 0) {
+                delivery.setMaximumPoolSize(threads);
+                delivery.setCorePoolSize(threads);
+            } else {
+                delivery.setCorePoolSize(threads);
+                delivery.setMaximumPoolSize(threads);
+            }
+        }
+    }
+
+    private static ThreadFactory threads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        //`null` for all owners
+        private final String owner;
+        private final ArrayBlockingQueue<Set<DataWithMediaType>> buffer = new ArrayBlockingQueue<>(bufferSize);
+        //set while a delivery task is queued or running, so that at most one sends to this emitter
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean overflowed;
+        //System.nanoTime() at which the running send started, 0 when none is running; guarded by the subscriber
+        private long sendingSince;
+        private boolean stalled;
+
+        private Subscriber(SseEmitter emitter, String owner) {
+            this.emitter = emitter;
+            this.owner = owner;
+        }
+
+        /**
+         * Buffers the message; called by the fan-out thread only.
+         */
+        void offer(Set<DataWithMediaType> message) {
+            if (!buffer.offer(message)) {
+                overflowed = true;
+                buffer.clear();
+                subscribers.remove(this);
+                slowDisconnects.increment();
+                log.warn("Disconnecting an event stream subscriber that fell {} events behind", bufferSize);
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                delivery.execute(this::deliver);
+            }
+        }
+
+        /**
+         * Disconnects the subscriber if its send has been running for longer than the send timeout; called by the
+         * stall check. The blocked send can not be interrupted, it keeps its thread until the container gives up.
+         */
+        synchronized void disconnectIfStalled(long now) {
+            if (sendingSince == 0 || stalled || now - sendingSince < sendTimeoutNanos) {
+                return;
+            }
+            stalled = true;
+            overflowed = true;
+            subscribers.remove(this);
+            buffer.clear();
+            slowDisconnects.increment();
+            stalledSend(1);
+            log.warn("Disconnecting an event stream subscriber whose client stopped reading");
+        }
+
+        private void send(Set<DataWithMediaType> message) throws IOException {
+            synchronized (this) {
+                sendingSince = System.nanoTime();
+            }
+            try {
+                emitter.send(message);
+            } finally {
+                synchronized (this) {
+                    sendingSince = 0;
+                    if (stalled) {
+                        stalledSend(-1);
+                    }
+                }
+            }
+        }
+
+        private void deliver() {
+            try {
+                do {
+                    if (overflowed) {
+                        //completing here rather than in offer: it waits for a send that is blocked on the client
+                        emitter.complete();
+                        return;
+                    }
+                    Set<DataWithMediaType> message;
+                    while (!overflowed && (message = buffer.poll()) != null) {
+                        send(message);
+                    }
+                    scheduled.set(false);
+                    //an offer between the last poll and the reset did not schedule a delivery
+                } while ((overflowed || !buffer.isEmpty()) && scheduled.compareAndSet(false, true));
+            } catch (IOException | IllegalStateException e) {
+                //the client went away or the emitter completed, the container completes the request
+                subscribers.remove(this);
+                buffer.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.app.todo.event;
+
+import com.app.todo.entity.Todo;
+
+/**
+ * An in-memory view over all to-do items, kept current from {@link TodoChangedEvent}s and filled at startup by
+ * {@link TodoIndexLoader}. Events keep arriving during the load, so an index has to make sure that a row read by
+ * the load does not replace what an event wrote after the load began.
+ */
+public interface TodoIndex {
+
+    /**
+     * Called before the first {@link #load(Todo)}.
+     */
+    void beginLoad();
+
+    /**
+     * Adds a row read by the load, unless an event changed that to-do item since {@link #beginLoad()}.
+     */
+    void load(Todo todo);
+
+    /**
+     * Called after the last {@link #load(Todo)}, also when the load failed.
+     */
+    void endLoad();
+
+    /**
+     * @return the number of to-do items in the index.
+     */
+    int size();
+}
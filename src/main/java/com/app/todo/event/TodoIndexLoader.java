@@ -0,0 +1,42 @@
+package com.app.todo.event;
+
+import com.app.todo.routing.ReplicaRouting;
+import com.app.todo.service.TodoService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills every {@link TodoIndex} from the database once the application is ready, in a single pass over the
+ * table. Rows are streamed, so the load needs no more memory than the indexes themselves; requests are already
+ * being served while it runs.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TodoIndexLoader {
+
+    private final TodoService todoService;
+    private final ReplicaRouting replicaRouting;
+    private final List<TodoIndex> indexes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        indexes.forEach(TodoIndex::beginLoad);
+        try {
+            //a lagging replica could miss a write made before the load, which no event would bring in
+            replicaRouting.readPrimary(() -> todoService.streamAllTodos(todo -> indexes.forEach(index -> index.load(todo))));
+        } finally {
+            indexes.forEach(TodoIndex::endLoad);
+        }
+        for (TodoIndex index : indexes) {
+            log.info("Loaded {} to-do items into the {} in {} ms", index.size(), index.getClass().getSimpleName(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.app.todo.event;
+
+import com.app.todo.entity.Todo;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The version of the last state an index applied, per to-do item. Each write publishes its {@link TodoChangedEvent}
+ * on the thread that made it, once it has committed, so the events of one item can reach a listener out of order;
+ * an index asks this whether an event is newer than what it holds before applying it.
+ *
+ * Removals are remembered too, for a minute, which is plenty for an event to be overtaken: a deleted item is never
+ * written again, and an archived one only by its restore, which keeps the version it was archived with.
+ * Thread safe; the changes of one id are applied one at a time.
+ */
+public class TodoVersions {
+
+    private static final long removalRetention = Duration.ofMinutes(1).toNanos();
+
+    private final ConcurrentHashMap<Long, Applied> applied = new ConcurrentHashMap<>();
+    //removals in the order they were made, to forget them after the retention
+    private final ConcurrentLinkedQueue<Removal> removals = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Records the version of the event if it is newer than the one applied before. CLEARED is always applied; the
+     * index has to {@link #clear()} itself.
+     *
+     * @return whether the index has to apply the event.
+     */
+    public boolean isNewer(TodoChangedEvent event) {
+        return switch (event.getType()) {
+            case CREATED, UPDATED, TOGGLED, RESTORED -> put(event.getTodo());
+            //any write still on its way was made before the delete
+            case DELETED -> remove(event.getId(), Long.MAX_VALUE);
+            case ARCHIVED -> remove(event.getId(), event.getPrevious().getVersion());
+            case CLEARED -> true;
+        };
+    }
+
+    /**
+     * Records the state if it is newer than the one applied before: of a higher version, or of the version a removal
+     * had, which only a restore writes.
+     *
+     * @return whether the index has to apply the state.
+     */
+    public boolean put(Todo todo) {
+        long version = todo.getVersion();
+        boolean[] newer = new boolean[1];
+        applied.compute(todo.getId(), (id, current) -> {
+            newer[0] = current == null || version > current.version || (version == current.version && current.removed);
+            return newer[0] ? new Applied(version, false) : current;
+        });
+        return newer[0];
+    }
+
+    public void clear() {
+        applied.clear();
+        removals.clear();
+    }
+
+    private boolean remove(long id, long version) {
+        forgetRemovals();
+        boolean[] newer = new boolean[1];
+        Applied removal = new Applied(version, true);
+        applied.compute(id, (key, current) -> {
+            newer[0] = current == null || version >= current.version;
+            return newer[0] ? removal : current;
+        });
+        if (newer[0]) {
+            removals.add(new Removal(id, removal, System.nanoTime() + removalRetention));
+        }
+        return newer[0];
+    }
+
+    private void forgetRemovals() {
+        long now = System.nanoTime();
+        Removal removal;
+        while ((removal = removals.peek()) != null && removal.expiresAt - now < 0) {
+            if (removals.remove(removal)) {
+                //unless it has been written since, e.g. restored
+                applied.remove(removal.id, removal.applied);
+            }
+        }
+    }
+
+    private record Applied(long version, boolean removed) {
+    }
+
+    private record Removal(long id, Applied applied, long expiresAt) {
+    }
+}
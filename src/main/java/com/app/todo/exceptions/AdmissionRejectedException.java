@@ -0,0 +1,20 @@
+package com.app.todo.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is not admitted because its bulkhead is at its concurrency limit.
+ */
+@Getter
+public class AdmissionRejectedException extends RuntimeException {
+
+    //when the client should try again
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,7 @@
+package com.app.todo.exceptions;
+
+public class TodoConflictException extends RuntimeException {
+    public TodoConflictException(String message) {
+        super(message);
+    }
+}
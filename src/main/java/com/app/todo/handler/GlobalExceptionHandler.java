@@ -1,7 +1,10 @@
 package com.app.todo.handler;
 
+import com.app.todo.exceptions.AdmissionRejectedException;
 import com.app.todo.exceptions.InvalidTodoException;
+import com.app.todo.exceptions.TodoConflictException;
 import com.app.todo.exceptions.TodoNotFoundException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -24,6 +27,20 @@ public class GlobalExceptionHandler {
         return  ResponseEntity.status(HttpStatus.NOT_FOUND).body(_responseGenerator(e.getMessage(),HttpStatus.NOT_FOUND.value()));
     }
 
+    @ExceptionHandler(TodoConflictException.class)
+    public ResponseEntity<Map<String,Object>> handleTodoConflictException(TodoConflictException e){
+        return  ResponseEntity.status(HttpStatus.CONFLICT).body(_responseGenerator(e.getMessage(),HttpStatus.CONFLICT.value()));
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<Map<String,Object>> handleAdmissionRejectedException(AdmissionRejectedException e){
+        //whole seconds, rounded up
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return  ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(_responseGenerator(e.getMessage(),HttpStatus.SERVICE_UNAVAILABLE.value()));
+    }
+
     private Map<String,Object> _responseGenerator(String message, int statusCode){
         Map<String, Object> map = new HashMap<>();
             map.put("statusCode", statusCode);
@@ -0,0 +1,112 @@
+package com.app.todo.mapper;
+
+import com.app.todo.entity.ArchivedTodo;
+import com.app.todo.entity.Todo;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.UpdateTodo;
+
+/**
+ * Maps request payloads onto {@link Todo} entities.
+ */
+public final class TodoMapper {
+
+    private TodoMapper() {
+    }
+
+    /**
+     * Creates a new, not yet persisted {@link Todo} from an {@link AddTodoRequest}.
+     *
+     * @param todoRequest the request carrying the title, description, due date and priority.
+     * @return a {@link Todo} without id, ready to be saved.
+     */
+    public static Todo toTodo(AddTodoRequest todoRequest) {
+        //creating object of [Todo]
+        Todo todo = new Todo();
+
+        //setting all the field
+        todo.setTitle(todoRequest.getTitle());
+        todo.setDescription(todoRequest.getDescription());
+        todo.setDueDate(todoRequest.getDueDate());
+        todo.setPriority(todoRequest.getPriority());
+        return todo;
+    }
+
+    /**
+     * Creates the state of a {@link Todo} after an update, leaving the given instance untouched.
+     *
+     * @param todo the current state of the to-do item.
+     * @param updateTodo the new title, description, due date and priority.
+     * @return a copy of `todo` with the updated fields and the next version.
+     */
+    public static Todo updated(Todo todo, UpdateTodo updateTodo) {
+        Todo updatedTodo = copy(todo);
+        updatedTodo.setTitle(updateTodo.getTitle());
+        updatedTodo.setDescription(updateTodo.getDescription());
+        updatedTodo.setDueDate(updateTodo.getDueDate());
+        updatedTodo.setPriority(updateTodo.getPriority());
+        updatedTodo.setVersion(todo.getVersion() + 1);
+        return updatedTodo;
+    }
+
+    /**
+     * Creates the state of a {@link Todo} after its completed flag was flipped, leaving the given instance untouched.
+     *
+     * @param todo the current state of the to-do item.
+     * @return a copy of `todo` with the opposite completed flag and the next version.
+     */
+    public static Todo toggled(Todo todo) {
+        return toggled(todo, 1);
+    }
+
+    /**
+     * Creates the state of a {@link Todo} after its completed flag was flipped a number of times, each with a new version.
+     *
+     * @param todo the current state of the to-do item.
+     * @param times how often the flag was flipped.
+     * @return a copy of `todo` with the flag flipped if `times` is odd and the version advanced by `times`.
+     */
+    public static Todo toggled(Todo todo, int times) {
+        Todo toggledTodo = copy(todo);
+        toggledTodo.setCompleted(times % 2 == 0 ? todo.getCompleted() : !todo.getCompleted());
+        toggledTodo.setVersion(todo.getVersion() + times);
+        return toggledTodo;
+    }
+
+    /**
+     * @return the {@link Todo} an archived to-do item was, with the same id and version.
+     */
+    public static Todo fromArchive(ArchivedTodo archivedTodo) {
+        Todo todo = new Todo();
+        todo.setId(archivedTodo.getId());
+        todo.setOwner(archivedTodo.getOwner());
+        todo.setTitle(archivedTodo.getTitle());
+        todo.setDescription(archivedTodo.getDescription());
+        todo.setDueDate(archivedTodo.getDueDate());
+        todo.setPriority(archivedTodo.getPriority());
+        todo.setCompleted(archivedTodo.getCompleted());
+        todo.setVersion(archivedTodo.getVersion());
+        todo.setChangeSeq(archivedTodo.getChangeSeq());
+        todo.setCreatedAt(archivedTodo.getCreatedAt());
+        todo.setUpdatedAt(archivedTodo.getUpdatedAt());
+        return todo;
+    }
+
+    /**
+     * @return a field-by-field copy of the given {@link Todo}.
+     */
+    public static Todo copy(Todo todo) {
+        Todo copy = new Todo();
+        copy.setId(todo.getId());
+        copy.setOwner(todo.getOwner());
+        copy.setTitle(todo.getTitle());
+        copy.setDescription(todo.getDescription());
+        copy.setDueDate(todo.getDueDate());
+        copy.setPriority(todo.getPriority());
+        copy.setCompleted(todo.getCompleted());
+        copy.setVersion(todo.getVersion());
+        copy.setChangeSeq(todo.getChangeSeq());
+        copy.setCreatedAt(todo.getCreatedAt());
+        copy.setUpdatedAt(todo.getUpdatedAt());
+        return copy;
+    }
+}
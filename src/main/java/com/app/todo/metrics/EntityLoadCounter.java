@@ -0,0 +1,17 @@
+package com.app.todo.metrics;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Hibernate interceptor that attributes every entity hydrated from a result set to the current request.
+ * Hibernate's own statistics only count loads across the whole session factory.
+ */
+public class EntityLoadCounter implements Interceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        RequestDbActivity.entityLoaded();
+        return false;
+    }
+}
@@ -0,0 +1,140 @@
+package com.app.todo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every JDBC statement executed through the wrapped pool as the `todo.jdbc.statements` timer, tagged with
+ * the SQL operation, and counts it for the current request. Statements slower than the threshold are logged
+ * at `WARN` with their SQL and the number of bind parameters; the parameter values are never logged.
+ *
+ * Extends {@link DelegatingDataSource} so that the pool underneath stays reachable through `unwrap`, which the
+ * connection pool metrics rely on.
+ */
+@Slf4j
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    private static final String[] operations = {"select", "insert", "update", "delete"};
+
+    private final Timer[] timers;
+    private final Timer otherTimer;
+    private final long slowQueryThresholdNanos;
+
+    public InstrumentedDataSource(DataSource target, MeterRegistry meterRegistry, Duration slowQueryThreshold) {
+        super(target);
+        this.timers = new Timer[operations.length];
+        for (int i = 0; i < operations.length; i++) {
+            timers[i] = timer(meterRegistry, operations[i]);
+        }
+        this.otherTimer = timer(meterRegistry, "other");
+        this.slowQueryThresholdNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    private Connection connection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        //prepareStatement and prepareCall carry the SQL, createStatement gets it at execution
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return statement(method.getReturnType(), statement, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private Object statement(Class<?> type, Statement statement, String preparedSql) {
+        StatementState state = new StatementState();
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                long start = System.nanoTime();
+                try {
+                    return invoke(statement, method, args);
+                } finally {
+                    record(sql, System.nanoTime() - start, state, name.equals("executeBatch"));
+                }
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                state.parameters = Math.max(state.parameters, index);
+            } else if (name.equals("addBatch")) {
+                state.batchSize++;
+            } else if (name.equals("clearParameters")) {
+                state.parameters = 0;
+            } else if (name.equals("clearBatch")) {
+                state.batchSize = 0;
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private void record(String sql, long nanos, StatementState state, boolean batch) {
+        RequestDbActivity.statementExecuted();
+        timer(sql).record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos >= slowQueryThresholdNanos) {
+            log.warn("Slow statement took {} ms with {} bind parameters{}: {}", nanos / 1_000_000, state.parameters,
+                    batch ? " in a batch of " + state.batchSize : "", sql);
+        }
+        if (batch) {
+            state.batchSize = 0;
+        }
+    }
+
+    private Timer timer(String sql) {
+        if (sql != null) {
+            String trimmed = sql.stripLeading();
+            for (int i = 0; i < operations.length; i++) {
+                if (trimmed.regionMatches(true, 0, operations[i], 0, operations[i].length())) {
+                    return timers[i];
+                }
+            }
+        }
+        return otherTimer;
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("todo.jdbc.statements")
+                .description("JDBC statement execution time")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Bind parameters and batched rows of one statement; a statement is used by one thread at a time.
+     */
+    private static final class StatementState {
+        private int parameters;
+        private int batchSize;
+    }
+}
@@ -0,0 +1,59 @@
+package com.app.todo.metrics;
+
+/**
+ * Counts the JDBC statements and entity loads of the request running on the current thread. The counters are
+ * plain fields of a thread-confined holder, so counting costs an increment and no synchronization.
+ *
+ * Work done outside the request thread, like the rows written by a streaming response, is not attributed to
+ * the request.
+ */
+public final class RequestDbActivity {
+
+    private static final ThreadLocal<RequestDbActivity> current = new ThreadLocal<>();
+
+    private int statements;
+    private int entityLoads;
+
+    private RequestDbActivity() {
+    }
+
+    /**
+     * Starts counting for the current thread, discarding anything counted before.
+     */
+    public static void begin() {
+        current.set(new RequestDbActivity());
+    }
+
+    /**
+     * Stops counting for the current thread.
+     *
+     * @return what was counted since {@link #begin()}, or `null` if counting was not started.
+     */
+    public static RequestDbActivity end() {
+        RequestDbActivity activity = current.get();
+        current.remove();
+        return activity;
+    }
+
+    static void statementExecuted() {
+        RequestDbActivity activity = current.get();
+        if (activity != null) {
+            activity.statements++;
+        }
+    }
+
+    static void entityLoaded() {
+        RequestDbActivity activity = current.get();
+        if (activity != null) {
+            activity.entityLoads++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+}
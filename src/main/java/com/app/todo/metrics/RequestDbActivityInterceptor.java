@@ -0,0 +1,46 @@
+package com.app.todo.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Records how many JDBC statements and entity loads each request needed, per HTTP method and route, as the
+ * `todo.http.db.statements` and `todo.http.db.entity.loads` distribution summaries.
+ */
+@RequiredArgsConstructor
+public class RequestDbActivityInterceptor implements HandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestDbActivity.begin();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestDbActivity activity = RequestDbActivity.end();
+        if (activity == null) {
+            return;
+        }
+        //the route pattern, not the path, so that ids do not create a meter each
+        Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String[] tags = {"method", request.getMethod(), "uri", uri == null ? "UNKNOWN" : uri.toString()};
+        DistributionSummary.builder("todo.http.db.statements")
+                .description("JDBC statements executed per request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(activity.getStatements());
+        DistributionSummary.builder("todo.http.db.entity.loads")
+                .description("Entities loaded from result sets per request")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(activity.getEntityLoads());
+    }
+}
@@ -16,5 +16,10 @@ public class AddTodoRequest {
     private String description;
     private LocalDateTime dueDate;
     private Priority priority;
+    //optional; the owner of the route when posted to an owner-scoped one, otherwise the default owner
+    private String owner;
 
+    public AddTodoRequest(String title, String description, LocalDateTime dueDate, Priority priority) {
+        this(title, description, dueDate, priority, null);
+    }
 }
@@ -0,0 +1,19 @@
+package com.app.todo.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of moving one chunk of completed to-do items into the archive.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchiveChunk {
+
+    //number of to-do items archived
+    private int archived;
+    //id of the last item of the chunk, archived or not, to continue after; `null` when nothing is left to archive
+    private Long lastId;
+}
@@ -0,0 +1,17 @@
+package com.app.todo.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a bulk delete.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeleteResult {
+
+    //number of to-do items deleted
+    private long deleted;
+}
@@ -0,0 +1,27 @@
+package com.app.todo.payload;
+
+import com.app.todo.entity.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the delta sync: what was written after a cursor, in change order.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TodoChanges {
+
+    //created or updated items, in their current state
+    private List<Todo> changed;
+    //ids of deleted items
+    private List<Long> deleted;
+    //pass as `since` to get the changes after this page
+    private String nextCursor;
+    //whether further changes can be read right away
+    private boolean hasMore;
+
+}
@@ -0,0 +1,23 @@
+package com.app.todo.payload;
+
+import com.app.todo.entity.Todo;
+import com.app.todo.event.TodoChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One change pushed to the clients of the event stream.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TodoEvent {
+
+    private TodoChangeType type;
+    //id of the changed to-do item, `null` for CLEARED
+    private Long id;
+    //state after the change, `null` for DELETED and CLEARED
+    private Todo todo;
+
+}
@@ -0,0 +1,43 @@
+package com.app.todo.payload;
+
+import com.app.todo.entity.Priority;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TodoFilter {
+
+    private Boolean completed;
+    private Set<Priority> priority;
+    //inclusive lower bound of the due date
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime dueFrom;
+    //exclusive upper bound of the due date
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime dueTo;
+    //whether the list also holds archived to-do items; only read by the list, bulk deletes never touch the archive
+    private boolean includeArchived;
+    //only the to-do items of this owner; bound from the path on the owner-scoped routes
+    private String owner;
+
+    public TodoFilter(Boolean completed, Set<Priority> priority, LocalDateTime dueFrom, LocalDateTime dueTo) {
+        this(completed, priority, dueFrom, dueTo, false);
+    }
+
+    public TodoFilter(Boolean completed, Set<Priority> priority, LocalDateTime dueFrom, LocalDateTime dueTo,
+                      boolean includeArchived) {
+        this(completed, priority, dueFrom, dueTo, includeArchived, null);
+    }
+
+    public boolean isEmpty() {
+        return completed == null && (priority == null || priority.isEmpty()) && dueFrom == null && dueTo == null
+                && !includeArchived && owner == null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.app.todo.payload;
+
+import com.app.todo.entity.Todo;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TodoPage {
+
+    private List<Todo> items;
+    //id of the last item of this page, `null` when there is no further page
+    private Long nextCursor;
+
+}
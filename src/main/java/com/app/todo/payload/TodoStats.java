@@ -0,0 +1,26 @@
+package com.app.todo.payload;
+
+import com.app.todo.entity.Priority;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Counts of to-do items, by priority, completed state and overdue.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TodoStats {
+
+    private long total;
+    private long completed;
+    private long open;
+    //open items whose due date has passed
+    private long overdue;
+    //every priority is present, with 0 when no item has it
+    private Map<Priority, Long> byPriority;
+    private long withoutPriority;
+}
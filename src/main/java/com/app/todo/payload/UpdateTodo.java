@@ -16,5 +16,10 @@ public class UpdateTodo {
     private String description;
     private Priority priority;
     private LocalDateTime dueDate;
+    //optional; scopes the update to this owner like an owner-scoped route, an item of another owner is not found
+    private String owner;
 
+    public UpdateTodo(String title, String description, Priority priority, LocalDateTime dueDate) {
+        this(title, description, priority, dueDate, null);
+    }
 }
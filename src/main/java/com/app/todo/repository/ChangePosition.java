@@ -0,0 +1,12 @@
+package com.app.todo.repository;
+
+/**
+ * The position a write just took, see {@link TodoChangeCounterRepository#findPosition}.
+ */
+public interface ChangePosition {
+
+    Long getSeq();
+
+    //`owner_fence` rows of the owners written
+    Long getFenced();
+}
@@ -0,0 +1,73 @@
+package com.app.todo.repository;
+
+import com.app.todo.entity.ArchivedTodo;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TodoArchiveRepository extends JpaRepository<ArchivedTodo, Long>, JpaSpecificationExecutor<ArchivedTodo> {
+
+    /**
+     * Copies the given todos into the archive with one statement. Has to run in the transaction that deletes them
+     * from the `todo` table.
+     *
+     * @return the number of archived todos.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO ArchivedTodo (id, owner, title, description, dueDate, priority, completed, version, changeSeq, createdAt, updatedAt, archivedAt) "
+            + "SELECT t.id, t.owner, t.title, t.description, t.dueDate, t.priority, t.completed, t.version, t.changeSeq, t.createdAt, t.updatedAt, :archivedAt "
+            + "FROM Todo t WHERE t.id IN :ids")
+    int archiveByIdIn(Collection<Long> ids, LocalDateTime archivedAt);
+
+    /**
+     * Copies an archived todo back into the `todo` table, keeping its id and version. Has to run in the transaction
+     * that deletes it from the archive.
+     *
+     * @return the number of restored todos, 0 if it is not archived.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO Todo (id, owner, title, description, dueDate, priority, completed, version, changeSeq, createdAt, updatedAt) "
+            + "SELECT a.id, a.owner, a.title, a.description, a.dueDate, a.priority, a.completed, a.version, a.changeSeq, a.createdAt, a.updatedAt "
+            + "FROM ArchivedTodo a WHERE a.id = :id")
+    int restoreById(long id);
+
+    /**
+     * Locks the archived todo, so that concurrent restores of it run one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ArchivedTodo> findLockedById(long id);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM ArchivedTodo a WHERE a.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    @Query(value = "SELECT COALESCE(MAX(a.changeSeq), 0) FROM ArchivedTodo a")
+    long findMaxChangeSeq();
+
+    /**
+     * Keyset page of archived ids, for deleting the archive chunk by chunk.
+     */
+    @Query(value = "SELECT a.id FROM ArchivedTodo a WHERE a.id > :id ORDER BY a.id")
+    List<Long> findIdsAfter(long id, Limit limit);
+
+    /**
+     * Keyset page of the archived ids of one owner, for deleting its archive chunk by chunk.
+     */
+    @Query(value = "SELECT a.id FROM ArchivedTodo a WHERE a.owner = :owner AND a.id > :id ORDER BY a.id")
+    List<Long> findIdsOfOwnerAfter(String owner, long id, Limit limit);
+}
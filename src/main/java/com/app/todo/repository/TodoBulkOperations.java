@@ -0,0 +1,29 @@
+package com.app.todo.repository;
+
+import com.app.todo.entity.Todo;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based operations on {@link Todo} rows that Spring Data can not derive: they work on ids only and never load
+ * entities into the persistence context.
+ */
+public interface TodoBulkOperations {
+
+    /**
+     * Keyset scan over the ids of the todos matching a specification, locking the returned rows until the end of
+     * the surrounding transaction.
+     *
+     * @return at most {@code limit} matching ids greater than {@code afterId}, in ascending order.
+     */
+    List<Long> lockIdsMatching(Specification<Todo> specification, long afterId, int limit);
+
+    /**
+     * Like {@link #lockIdsMatching}, reading the owner of each todo along with its id.
+     *
+     * @return at most {@code limit} matching ids greater than {@code afterId} with their owners, in ascending order of id.
+     */
+    Map<Long, String> lockOwnersMatching(Specification<Todo> specification, long afterId, int limit);
+}
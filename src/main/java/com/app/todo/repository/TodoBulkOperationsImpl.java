@@ -0,0 +1,61 @@
+package com.app.todo.repository;
+
+import com.app.todo.entity.Todo;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class TodoBulkOperationsImpl implements TodoBulkOperations {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> lockIdsMatching(Specification<Todo> specification, long afterId, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Todo> root = query.from(Todo.class);
+        query.select(root.get("id"))
+                .where(after(specification, afterId, root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Map<Long, String> lockOwnersMatching(Specification<Todo> specification, long afterId, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Todo> root = query.from(Todo.class);
+        query.multiselect(root.get("id"), root.get("owner"))
+                .where(after(specification, afterId, root, query, criteriaBuilder))
+                .orderBy(criteriaBuilder.asc(root.get("id")));
+        Map<Long, String> owners = new LinkedHashMap<>();
+        for (Tuple row : entityManager.createQuery(query)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(limit)
+                .getResultList()) {
+            owners.put(row.get(0, Long.class), row.get(1, String.class));
+        }
+        return owners;
+    }
+
+    private static Predicate after(Specification<Todo> specification, long afterId, Root<Todo> root,
+                                   CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        Predicate predicate = criteriaBuilder.greaterThan(root.get("id"), afterId);
+        Predicate matching = specification.toPredicate(root, query, criteriaBuilder);
+        return matching == null ? predicate : criteriaBuilder.and(predicate, matching);
+    }
+}
@@ -0,0 +1,50 @@
+package com.app.todo.repository;
+
+import com.app.todo.entity.TodoChangeCounter;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface TodoChangeCounterRepository extends JpaRepository<TodoChangeCounter, Integer> {
+
+    /**
+     * Takes the next position; the row stays locked until the calling transaction ends.
+     */
+    @Transactional(Transactional.TxType.MANDATORY)
+    @Modifying
+    @Query(value = "UPDATE TodoChangeCounter c SET c.lastSeq = c.lastSeq + 1")
+    int increment();
+
+    @Query(value = "SELECT c.lastSeq FROM TodoChangeCounter c")
+    Long findLastSeq();
+
+    /**
+     * Reads the position taken by {@link #increment()}, with the number of the owners that were moved away from this
+     * database. The fences are not read with a lock, a move inserts them while it holds the counter.
+     * `owner_fence` only exists in migrated databases.
+     */
+    @Query(value = "SELECT c.last_seq AS seq, (SELECT COUNT(*) FROM owner_fence f WHERE f.owner IN :owners) AS fenced "
+            + "FROM todo_change_counter c", nativeQuery = true)
+    ChangePosition findPosition(Collection<String> owners);
+
+    /**
+     * Moves the counter up to the given position, if it is below.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE TodoChangeCounter c SET c.lastSeq = :lastSeq WHERE c.lastSeq < :lastSeq")
+    int raise(long lastSeq);
+
+    /**
+     * Creates the row of the counter; fails with a duplicate key if it exists.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO todo_change_counter (id, last_seq) VALUES (" + TodoChangeCounter.rowId + ", :lastSeq)", nativeQuery = true)
+    int create(long lastSeq);
+}
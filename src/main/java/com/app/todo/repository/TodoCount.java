@@ -0,0 +1,19 @@
+package com.app.todo.repository;
+
+import com.app.todo.entity.Priority;
+
+/**
+ * One group of {@link TodoRepository#countByPriorityAndCompleted}.
+ */
+public interface TodoCount {
+
+    //`null` for todos without a priority
+    Priority getPriority();
+
+    Boolean getCompleted();
+
+    Long getCount();
+
+    //open todos of the group whose due date has passed
+    Long getOverdue();
+}
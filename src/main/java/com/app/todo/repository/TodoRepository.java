@@ -2,26 +2,138 @@ package com.app.todo.repository;
 
 import com.app.todo.entity.Priority;
 import com.app.todo.entity.Todo;
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface TodoRepository extends JpaRepository<Todo,Long> {
+public interface TodoRepository extends JpaRepository<Todo,Long>, JpaSpecificationExecutor<Todo>, TodoBulkOperations {
 
+    /**
+     * Sets the completed flag if the row is still at the given version.
+     *
+     * @return the number of updated rows, 0 if the todo does not exist or was changed concurrently.
+     */
     @Transactional
     @Modifying
-    @Query(value = "UPDATE Todo t SET t.completed = CASE WHEN t.completed = true THEN false ELSE true END WHERE t.id = :id")
-    void updateByIdAndCompleted(long id);
+    @Query(value = "UPDATE Todo t SET t.completed = :completed, t.version = t.version + 1, t.changeSeq = :changeSeq, t.updatedAt = :updatedAt "
+            + "WHERE t.id = :id AND t.version = :version")
+    int updateByIdAndCompleted(long id, boolean completed, long version, long changeSeq, LocalDateTime updatedAt);
 
+    /**
+     * Flips the completed flag of all given todos the given number of times in one statement, whatever their
+     * version, which advances by one per flip.
+     *
+     * @return the number of updated rows; todos deleted in the meantime are skipped.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE Todo t SET t.completed = CASE WHEN MOD(:toggles, 2) = 0 THEN t.completed WHEN t.completed = true THEN false ELSE true END, "
+            + "t.version = t.version + :toggles, t.changeSeq = :changeSeq, t.updatedAt = :updatedAt WHERE t.id IN :ids")
+    int toggleCompletedByIdIn(Collection<Long> ids, int toggles, long changeSeq, LocalDateTime updatedAt);
+
+    /**
+     * Updates the editable fields if the row is still at the given version.
+     *
+     * @return the number of updated rows, 0 if the todo does not exist or was changed concurrently.
+     */
     @Transactional
     @Modifying
     @Query(
-            value = "UPDATE Todo t SET t.title = :title, t.description = :description , t.dueDate = :dueDate, t.priority = :priority WHERE t.id = :id"
+            value = "UPDATE Todo t SET t.title = :title, t.description = :description , t.dueDate = :dueDate, t.priority = :priority, t.version = t.version + 1, "
+                    + "t.changeSeq = :changeSeq, t.updatedAt = :updatedAt WHERE t.id = :id AND t.version = :version"
     )
-    void updateTodoBy(long id, String title, String description, LocalDateTime dueDate, Priority priority);
-}
\ No newline at end of file
+    int updateTodoBy(long id, String title, String description, LocalDateTime dueDate, Priority priority, long version,
+                     long changeSeq, LocalDateTime updatedAt);
+
+    /**
+     * Deletes the todo with one statement, without loading it first.
+     *
+     * @return the number of deleted rows, 0 if the todo does not exist.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM Todo t WHERE t.id = :id")
+    int deleteTodoById(long id);
+
+    /**
+     * Deletes the given todos with one statement.
+     *
+     * @return the number of deleted rows.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM Todo t WHERE t.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    /**
+     * Counts the todos per priority and completed state, and how many of them are open and due before the given time.
+     */
+    @Query(value = "SELECT t.priority AS priority, t.completed AS completed, COUNT(t) AS count, "
+            + "SUM(CASE WHEN t.completed = false AND t.dueDate < :now THEN 1 ELSE 0 END) AS overdue "
+            + "FROM Todo t GROUP BY t.priority, t.completed")
+    List<TodoCount> countByPriorityAndCompleted(LocalDateTime now);
+
+    /**
+     * Like {@link #countByPriorityAndCompleted}, for the todos of one owner.
+     */
+    @Query(value = "SELECT t.priority AS priority, t.completed AS completed, COUNT(t) AS count, "
+            + "SUM(CASE WHEN t.completed = false AND t.dueDate < :now THEN 1 ELSE 0 END) AS overdue "
+            + "FROM Todo t WHERE t.owner = :owner GROUP BY t.priority, t.completed")
+    List<TodoCount> countByOwnerPriorityAndCompleted(String owner, LocalDateTime now);
+
+    /**
+     * Keyset page: the next {@code limit} todos whose id is greater than the given cursor.
+     * Ids are assigned in insertion order, so this is also creation order.
+     */
+    List<Todo> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    /**
+     * Keyset page of one owner's todos, see {@link #findByIdGreaterThanOrderByIdAsc}.
+     */
+    List<Todo> findByOwnerAndIdGreaterThanOrderByIdAsc(String owner, long id, Limit limit);
+
+    /**
+     * Keyset page in change order: the todos written after the position `(changeSeq, id)`, up to the given change.
+     */
+    @Query(value = "SELECT t FROM Todo t WHERE (t.changeSeq > :changeSeq OR (t.changeSeq = :changeSeq AND t.id > :id)) "
+            + "AND t.changeSeq <= :upTo ORDER BY t.changeSeq, t.id")
+    List<Todo> findChangedAfter(long changeSeq, long id, long upTo, Limit limit);
+
+    /**
+     * Like {@link #findChangedAfter}, for the todos of one owner.
+     */
+    @Query(value = "SELECT t FROM Todo t WHERE t.owner = :owner AND (t.changeSeq > :changeSeq OR (t.changeSeq = :changeSeq AND t.id > :id)) "
+            + "AND t.changeSeq <= :upTo ORDER BY t.changeSeq, t.id")
+    List<Todo> findChangedAfterForOwner(String owner, long changeSeq, long id, long upTo, Limit limit);
+
+    @Query(value = "SELECT COALESCE(MAX(t.changeSeq), 0) FROM Todo t")
+    long findMaxChangeSeq();
+
+    /**
+     * Streams every todo ordered by id. The fetch size hint makes the driver read rows in chunks
+     * instead of buffering the whole result set; the stream must be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT t FROM Todo t ORDER BY t.id")
+    Stream<Todo> streamAll();
+
+    /**
+     * Like {@link #streamAll}, for the todos of one owner.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(value = "SELECT t FROM Todo t WHERE t.owner = :owner ORDER BY t.id")
+    Stream<Todo> streamAllByOwner(String owner);
+}
@@ -0,0 +1,53 @@
+package com.app.todo.repository;
+
+import com.app.todo.entity.Todo;
+import com.app.todo.payload.TodoFilter;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dynamic query conditions for {@link Todo}. The predicates line up with the composite indexes declared on
+ * the entity: an equality on `completed` or `priority` followed by a range on `due_date`. The filter applies to
+ * {@link com.app.todo.entity.ArchivedTodo} as well, which has the same attributes, including the owner.
+ */
+public final class TodoSpecifications {
+
+    private TodoSpecifications() {
+    }
+
+    public static <T> Specification<T> matching(TodoFilter filter) {
+        return (root, query, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getOwner() != null) {
+                predicates.add(criteriaBuilder.equal(root.get("owner"), filter.getOwner()));
+            }
+            if (filter.getCompleted() != null) {
+                predicates.add(criteriaBuilder.equal(root.get("completed"), filter.getCompleted()));
+            }
+            if (filter.getPriority() != null && !filter.getPriority().isEmpty()) {
+                predicates.add(root.get("priority").in(filter.getPriority()));
+            }
+            if (filter.getDueFrom() != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("dueDate"), filter.getDueFrom()));
+            }
+            if (filter.getDueTo() != null) {
+                predicates.add(criteriaBuilder.lessThan(root.get("dueDate"), filter.getDueTo()));
+            }
+            return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Completed todos whose last write is older than the given time; rows from before `updated_at` existed
+     * count from their creation.
+     */
+    public static Specification<Todo> archivable(LocalDateTime completedBefore) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.isTrue(root.get("completed")),
+                criteriaBuilder.lessThan(criteriaBuilder.coalesce(root.get("updatedAt"), root.<LocalDateTime>get("createdAt")), completedBefore));
+    }
+}
@@ -0,0 +1,56 @@
+package com.app.todo.repository;
+
+import com.app.todo.entity.TodoTombstone;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TodoTombstoneRepository extends JpaRepository<TodoTombstone, Long> {
+
+    /**
+     * Records tombstones for those of the given todos that still exist, with one statement. Has to run in the
+     * transaction that deletes them.
+     *
+     * @return the number of tombstones inserted.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO TodoTombstone (todoId, owner, changeSeq, deletedAt) SELECT t.id, t.owner, :changeSeq, :deletedAt FROM Todo t WHERE t.id IN :ids")
+    int insertForExisting(Collection<Long> ids, long changeSeq, LocalDateTime deletedAt);
+
+    /**
+     * Records tombstones for those of the given todos that are archived, with one statement. Has to run in the
+     * transaction that deletes them from the archive.
+     *
+     * @return the number of tombstones inserted.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO TodoTombstone (todoId, owner, changeSeq, deletedAt) SELECT a.id, a.owner, :changeSeq, :deletedAt FROM ArchivedTodo a WHERE a.id IN :ids")
+    int insertForArchived(Collection<Long> ids, long changeSeq, LocalDateTime deletedAt);
+
+    /**
+     * Keyset page in change order: the tombstones after the position `(changeSeq, todoId)`, up to the given change.
+     */
+    @Query(value = "SELECT t FROM TodoTombstone t WHERE (t.changeSeq > :changeSeq OR (t.changeSeq = :changeSeq AND t.todoId > :todoId)) "
+            + "AND t.changeSeq <= :upTo ORDER BY t.changeSeq, t.todoId")
+    List<TodoTombstone> findDeletedAfter(long changeSeq, long todoId, long upTo, Limit limit);
+
+    /**
+     * Like {@link #findDeletedAfter}, for the todos of one owner.
+     */
+    @Query(value = "SELECT t FROM TodoTombstone t WHERE t.owner = :owner AND (t.changeSeq > :changeSeq OR (t.changeSeq = :changeSeq AND t.todoId > :todoId)) "
+            + "AND t.changeSeq <= :upTo ORDER BY t.changeSeq, t.todoId")
+    List<TodoTombstone> findDeletedAfterForOwner(String owner, long changeSeq, long todoId, long upTo, Limit limit);
+
+    @Query(value = "SELECT COALESCE(MAX(t.changeSeq), 0) FROM TodoTombstone t")
+    long findMaxChangeSeq();
+}
@@ -0,0 +1,35 @@
+package com.app.todo.routing;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Binds the client of each request to its thread, so that {@link ReplicaRouting} can send its reads to the primary
+ * for a while after its own writes. Clients sharing an address behind a proxy should send an `X-Client-Id` header.
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String clientIdHeader = "X-Client-Id";
+
+    private final ReplicaRouting replicaRouting;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String clientId = request.getHeader(clientIdHeader);
+        replicaRouting.bindClient(clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        replicaRouting.unbindClient();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        replicaRouting.unbindClient();
+    }
+}
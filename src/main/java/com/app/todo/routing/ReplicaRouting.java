@@ -0,0 +1,116 @@
+package com.app.todo.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Decides, per thread, whether the next connection may come from a read replica. Everything goes to the primary
+ * unless it runs inside {@link #read(Supplier)} or {@link #readShared(Supplier)}; only the service's read paths do
+ * that. Write paths, including the reads they base their version checks on, and the delta sync, whose watermark comes
+ * from the primary, stay on the primary. Callers that must see every commit, like the startup loads of the in-memory
+ * indexes, wrap service reads in {@link #readPrimary(Runnable)}.
+ *
+ * Replicas lag behind the primary. For `todo.datasource.read-your-writes-window` after a client's own commit its
+ * reads go to the primary, so it always sees what it wrote. Reads whose result is shared with other clients, like
+ * the entity cache and the list snapshot, go to the primary for that window after any commit, so that a lagging
+ * replica never puts an outdated state into a cache. The client is the `X-Client-Id` header, or the remote address,
+ * bound by the {@link ReadYourWritesInterceptor}; reads without a client, e.g. on async threads, count as shared.
+ */
+@Component
+public class ReplicaRouting {
+
+    private final ThreadLocal<String> client = new ThreadLocal<>();
+    //whether reads may go to a replica; set by the outermost read scope only
+    private final ThreadLocal<Boolean> replicaReads = new ThreadLocal<>();
+    //clients that committed within the window
+    private final Cache<String, Boolean> recentWriters;
+    private final long windowNanos;
+    private volatile long lastWriteNanos;
+
+    public ReplicaRouting(@Value("${todo.datasource.read-your-writes-window:5s}") Duration window) {
+        this.windowNanos = window.toNanos();
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(100_000).build();
+        this.lastWriteNanos = System.nanoTime() - windowNanos;
+    }
+
+    /**
+     * Runs reads whose result only goes to the current client on a replica, unless the client wrote within the window.
+     */
+    public <T> T read(Supplier<T> reads) {
+        String current = client.get();
+        return current == null ? readShared(reads) : readOn(recentWriters.getIfPresent(current) == null, reads);
+    }
+
+    /**
+     * See {@link #read(Supplier)}.
+     */
+    public void read(Runnable reads) {
+        read(() -> {
+            reads.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs reads whose result is cached or sent to other clients on a replica, unless anyone wrote within the window.
+     */
+    public <T> T readShared(Supplier<T> reads) {
+        return readOn(System.nanoTime() - lastWriteNanos >= windowNanos, reads);
+    }
+
+    /**
+     * Runs reads on the primary, including the service's replica reads inside them.
+     */
+    public void readPrimary(Runnable reads) {
+        readOn(false, () -> {
+            reads.run();
+            return null;
+        });
+    }
+
+    /**
+     * Called for every commit on the primary.
+     */
+    void recordWrite() {
+        lastWriteNanos = System.nanoTime();
+        String current = client.get();
+        if (current != null) {
+            recentWriters.put(current, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * @return whether a connection requested now may come from a replica; never inside a read-write transaction.
+     */
+    boolean useReplica() {
+        return Boolean.TRUE.equals(replicaReads.get())
+                && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    void bindClient(String clientId) {
+        client.set(clientId);
+    }
+
+    void unbindClient() {
+        client.remove();
+    }
+
+    private <T> T readOn(boolean replica, Supplier<T> reads) {
+        if (replicaReads.get() != null) {
+            return reads.get();
+        }
+        replicaReads.set(replica);
+        try {
+            return reads.get();
+        } finally {
+            replicaReads.remove();
+        }
+    }
+}
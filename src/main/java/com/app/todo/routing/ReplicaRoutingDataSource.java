@@ -0,0 +1,136 @@
+package com.app.todo.routing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections of the primary, or of one of the read replicas when {@link ReplicaRouting} allows it. The
+ * replicas take turns; a replica whose pool can not hand out a connection is skipped for the retry interval and the
+ * next one is tried, then the primary. Only the connection acquisition falls back: a query failing on a replica
+ * fails the read.
+ *
+ * The decision is taken when the connection is requested, so this has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: transactions ask for their connection
+ * when they begin, before the read-only flag is set and before the service marks its reads.
+ *
+ * Commits on the primary are reported to {@link ReplicaRouting#recordWrite()}, unless the connection is read-only.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReplicaRouting routing;
+    private final long retryIntervalNanos;
+    private final Counter fallbacks;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReplicaRouting routing,
+                                    Duration retryInterval, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>();
+        for (DataSource replica : replicas) {
+            int number = this.replicas.size() + 1;
+            this.replicas.add(new Replica(number, replica, Counter.builder("todo.datasource.replica.unavailable")
+                    .description("Connections a replica could not hand out")
+                    .tag("replica", String.valueOf(number))
+                    .register(meterRegistry)));
+        }
+        this.routing = routing;
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.fallbacks = Counter.builder("todo.datasource.replica.fallbacks")
+                .description("Replica reads sent to the primary because no replica was available")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!replicas.isEmpty() && routing.useReplica()) {
+            Connection connection = replicaConnection();
+            if (connection != null) {
+                return connection;
+            }
+            fallbacks.increment();
+        }
+        return recordingCommits(primary.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return recordingCommits(primary.getConnection(username, password));
+    }
+
+    //the pool metrics look for the primary's pool
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    private Connection replicaConnection() {
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (System.nanoTime() - replica.downSince < retryIntervalNanos) {
+                continue;
+            }
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                log.warn("Replica {} is unavailable, retrying it in {} ms: {}",
+                        replica.number, retryIntervalNanos / 1_000_000, e.getMessage());
+                replica.unavailable.increment();
+                replica.downSince = System.nanoTime();
+            }
+        }
+        return null;
+    }
+
+    private Connection recordingCommits(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    boolean write = method.getName().equals("commit") && !connection.isReadOnly();
+                    try {
+                        Object result = method.invoke(connection, args);
+                        if (write) {
+                            routing.recordWrite();
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static class Replica {
+
+        private final int number;
+        private final DataSource dataSource;
+        private final Counter unavailable;
+        //nanoTime of the last failure, guarded by nothing: a stale read only retries a replica early or late
+        private volatile long downSince;
+
+        Replica(int number, DataSource dataSource, Counter unavailable) {
+            this.number = number;
+            this.dataSource = dataSource;
+            this.unavailable = unavailable;
+            this.downSince = System.nanoTime() - Long.MAX_VALUE / 2;
+        }
+    }
+}
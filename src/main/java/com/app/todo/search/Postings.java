@@ -0,0 +1,73 @@
+package com.app.todo.search;
+
+import java.util.Arrays;
+
+/**
+ * The to-do ids containing one term, sorted, with the weighted number of occurrences of the term in each.
+ * Primitive arrays keep a posting at 10 bytes; new to-do items have the highest ids, so indexing them appends.
+ */
+final class Postings {
+
+    private long[] ids = new long[2];
+    private short[] frequencies = new short[2];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    long id(int index) {
+        return ids[index];
+    }
+
+    int frequency(int index) {
+        return frequencies[index];
+    }
+
+    /**
+     * @return the position of the id, or a negative value if it is not contained.
+     */
+    int indexOf(long id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    void put(long id, int frequency) {
+        short value = (short) Math.min(frequency, Short.MAX_VALUE);
+        if (size > 0 && ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size] = id;
+            frequencies[size++] = value;
+            return;
+        }
+        int index = indexOf(id);
+        if (index >= 0) {
+            frequencies[index] = value;
+            return;
+        }
+        int insertAt = -index - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        frequencies[insertAt] = value;
+        size++;
+    }
+
+    void remove(long id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+        size--;
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            int capacity = ids.length + (ids.length >> 1) + 1;
+            ids = Arrays.copyOf(ids, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+        }
+    }
+}
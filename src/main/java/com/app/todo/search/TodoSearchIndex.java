@@ -0,0 +1,545 @@
+package com.app.todo.search;
+
+import com.app.todo.entity.Todo;
+import com.app.todo.event.TodoChangedEvent;
+import com.app.todo.event.TodoIndex;
+import com.app.todo.event.TodoVersions;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over the title and description of every {@link Todo} that is not archived.
+ *
+ * Text is split into lowercase runs of letters and digits. Every query token matches the terms it is a prefix of,
+ * and a to-do item is a hit only when all query tokens match. Hits are ranked by TF-IDF: each matched term adds
+ * `(1 + ln tf) * ln(1 + n / df)`, where an occurrence in the title counts twice and a term matched only by prefix
+ * counts half. The owner of each item is indexed with it, so that a search on the route of an owner only scores the
+ * items of that owner.
+ *
+ * The index is kept current from {@link TodoChangedEvent}s, an event older than the indexed version of its item
+ * being ignored, and filled at startup by the {@link com.app.todo.event.TodoIndexLoader}.
+ * Reads and writes are guarded by a read-write lock, so queries run in parallel and each sees whole updates.
+ */
+@Component
+public class TodoSearchIndex implements TodoIndex {
+
+    //terms a single prefix token may expand to; longer prefixes are more selective anyway
+    private static final int maxPrefixExpansions = 64;
+    private static final int titleWeight = 2;
+    private static final double prefixWeight = 0.5;
+
+    //term to term number, sorted so that a prefix is a sub map; only terms some item is indexed under
+    private final TreeMap<String, Integer> terms = new TreeMap<>();
+    //by term number, `null` for a number that is free
+    private final List<Postings> postings = new ArrayList<>();
+    private final List<String> termsByNumber = new ArrayList<>();
+    //numbers of the terms dropped when their last item was unindexed, reused for new terms
+    private final ArrayDeque<Integer> freeTermNumbers = new ArrayDeque<>();
+    //to-do id to its owner and the term numbers it is indexed under, to unindex it without its previous text
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final TodoVersions versions = new TodoVersions();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //ids written by events while the loader is running; the loader must not overwrite them with older rows
+    private Set<Long> changedWhileLoading;
+    //everything was deleted while the loader was running, the rest of its rows are outdated
+    private boolean clearedWhileLoading;
+
+    @EventListener
+    public void onTodoChanged(TodoChangedEvent event) {
+        switch (event.getType()) {
+            case CREATED, UPDATED, RESTORED -> change(event, () -> put(event.getTodo()));
+            case DELETED, ARCHIVED -> change(event, () -> unindex(event.getId()));
+            case CLEARED -> clear();
+            //toggling does not change the text; its version is not recorded either, so an update it overtook still applies
+            case TOGGLED -> { }
+        }
+    }
+
+    /**
+     * Indexes a to-do item, replacing what was indexed for its id before, unless that is of a newer version.
+     */
+    public void index(Todo todo) {
+        lock.writeLock().lock();
+        try {
+            if (versions.put(todo)) {
+                put(todo);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the items of all owners.
+     *
+     * @see #search(String, String, int)
+     */
+    public List<Long> search(String query, int limit) {
+        return search(query, null, limit);
+    }
+
+    /**
+     * Searches the index.
+     *
+     * @param query free text; every token has to match, as a whole term or as a prefix of one.
+     * @param owner only the items of this owner are hits, or those of all owners when `null`.
+     * @param limit the maximum number of hits.
+     * @return the ids of the best matching to-do items, best first.
+     */
+    public List<Long> search(String query, String owner, int limit) {
+        List<String> tokens = new ArrayList<>(new HashSet<>(tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<Expansion> expansions = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                Expansion expansion = expand(token);
+                if (expansion.postings.isEmpty()) {
+                    return List.of();
+                }
+                expansions.add(expansion);
+            }
+            //driving the scan with the most selective token keeps the number of candidates small
+            expansions.sort(Comparator.comparingLong(Expansion::postingCount));
+            TopHits top = new TopHits(limit);
+            List<Expansion> others = expansions.subList(1, expansions.size());
+            expansions.get(0).forEachMerged((id, score) -> {
+                if (owner != null && !owner.equals(documents.get(id).owner())) {
+                    return;
+                }
+                for (Expansion other : others) {
+                    double otherScore = other.scoreOf(id);
+                    if (otherScore == 0) {
+                        return;
+                    }
+                    score += otherScore;
+                }
+                top.offer(id, score);
+            });
+            return top.ids();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of distinct terms.
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of term numbers handed out, free ones included.
+     */
+    int termNumberCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            postings.clear();
+            termsByNumber.clear();
+            freeTermNumbers.clear();
+            documents.clear();
+            versions.clear();
+            clearedWhileLoading = changedWhileLoading != null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            changedWhileLoading = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void load(Todo todo) {
+        lock.writeLock().lock();
+        try {
+            if (!clearedWhileLoading && (changedWhileLoading == null || !changedWhileLoading.contains(todo.getId()))
+                    && versions.put(todo)) {
+                put(todo);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void endLoad() {
+        lock.writeLock().lock();
+        try {
+            changedWhileLoading = null;
+            clearedWhileLoading = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private void change(TodoChangedEvent event, Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (changedWhileLoading != null) {
+                changedWhileLoading.add(event.getId());
+            }
+            //checked under the lock, so that the newest of two concurrent events is also applied last
+            if (versions.isNewer(event)) {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Todo todo) {
+        unindex(todo.getId());
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(todo.getTitle()).forEach(token -> frequencies.merge(token, titleWeight, Integer::sum));
+        tokenize(todo.getDescription()).forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        int[] termNumbers = new int[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            int termNumber = terms.computeIfAbsent(entry.getKey(), this::newTerm);
+            postings.get(termNumber).put(todo.getId(), entry.getValue());
+            termNumbers[i++] = termNumber;
+        }
+        documents.put(todo.getId(), new Document(todo.getOwner(), termNumbers));
+    }
+
+    private void unindex(long id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (int termNumber : document.termNumbers()) {
+            Postings termPostings = postings.get(termNumber);
+            termPostings.remove(id);
+            if (termPostings.size() == 0) {
+                //otherwise edits and deletes would leave dead terms behind, for prefix queries to walk through
+                terms.remove(termsByNumber.get(termNumber));
+                postings.set(termNumber, null);
+                termsByNumber.set(termNumber, null);
+                freeTermNumbers.push(termNumber);
+            }
+        }
+    }
+
+    private int newTerm(String term) {
+        Integer free = freeTermNumbers.poll();
+        if (free != null) {
+            postings.set(free, new Postings());
+            termsByNumber.set(free, term);
+            return free;
+        }
+        postings.add(new Postings());
+        termsByNumber.add(term);
+        return postings.size() - 1;
+    }
+
+    private Expansion expand(String token) {
+        Expansion expansion = new Expansion();
+        SortedMap<String, Integer> matching = terms.subMap(token, token + Character.MAX_VALUE);
+        for (Map.Entry<String, Integer> entry : matching.entrySet()) {
+            Postings termPostings = postings.get(entry.getValue());
+            double weight = entry.getKey().length() == token.length() ? 1 : prefixWeight;
+            expansion.add(termPostings, weight * Math.log(1 + (double) documents.size() / termPostings.size()));
+            if (expansion.postings.size() == maxPrefixExpansions) {
+                break;
+            }
+        }
+        return expansion;
+    }
+
+    private static double score(int frequency, double idf) {
+        return (1 + Math.log(frequency)) * idf;
+    }
+
+    /**
+     * The postings of all terms one query token matches, with the inverse document frequency of each, and a
+     * read position per postings list. Used by one query only.
+     */
+    private static final class Expansion {
+        private final List<Postings> postings = new ArrayList<>();
+        private double[] idfs = new double[4];
+        private int[] positions = new int[4];
+
+        private void add(Postings termPostings, double idf) {
+            if (postings.size() == idfs.length) {
+                idfs = Arrays.copyOf(idfs, idfs.length * 2);
+                positions = Arrays.copyOf(positions, positions.length * 2);
+            }
+            idfs[postings.size()] = idf;
+            postings.add(termPostings);
+        }
+
+        private long postingCount() {
+            return postings.stream().mapToLong(Postings::size).sum();
+        }
+
+        /**
+         * Visits every id in any of the postings lists once, in ascending order, with its summed score: a k-way
+         * merge over a heap of the lists ordered by their current id.
+         */
+        private void forEachMerged(Hit hit) {
+            if (postings.size() == 1) {
+                Postings list = postings.get(0);
+                for (int i = 0; i < list.size(); i++) {
+                    hit.accept(list.id(i), score(list.frequency(i), idfs[0]));
+                }
+                return;
+            }
+            int[] heap = new int[postings.size()];
+            int heapSize = 0;
+            for (int i = 0; i < postings.size(); i++) {
+                positions[i] = 0;
+                if (postings.get(i).size() > 0) {
+                    heap[heapSize] = i;
+                    siftUp(heap, heapSize++);
+                }
+            }
+            while (heapSize > 0) {
+                long id = currentId(heap[0]);
+                double score = 0;
+                while (heapSize > 0 && currentId(heap[0]) == id) {
+                    int list = heap[0];
+                    score += score(postings.get(list).frequency(positions[list]), idfs[list]);
+                    if (++positions[list] == postings.get(list).size()) {
+                        heap[0] = heap[--heapSize];
+                    }
+                    siftDown(heap, heapSize);
+                }
+                hit.accept(id, score);
+            }
+        }
+
+        /**
+         * @return the summed score of the id over all postings lists, 0 if it is in none. Ids have to be asked
+         * for in ascending order: every list is searched forward from where the previous lookup ended.
+         */
+        private double scoreOf(long id) {
+            double score = 0;
+            for (int i = 0; i < postings.size(); i++) {
+                Postings list = postings.get(i);
+                int position = gallop(list, positions[i], id);
+                positions[i] = position;
+                if (position < list.size() && list.id(position) == id) {
+                    score += score(list.frequency(position), idfs[i]);
+                }
+            }
+            return score;
+        }
+
+        /**
+         * @return the first position at or after {@code from} whose id is not smaller than the given id.
+         */
+        private static int gallop(Postings list, int from, long id) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < list.size() && list.id(high) < id) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            high = Math.min(high, list.size());
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (list.id(middle) < id) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private long currentId(int list) {
+            return postings.get(list).id(positions[list]);
+        }
+
+        private void siftUp(int[] heap, int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (currentId(heap[parent]) <= currentId(heap[index])) {
+                    return;
+                }
+                swap(heap, parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int heapSize) {
+            int index = 0;
+            while (true) {
+                int smallest = index;
+                int left = 2 * index + 1;
+                if (left < heapSize && currentId(heap[left]) < currentId(heap[smallest])) {
+                    smallest = left;
+                }
+                if (left + 1 < heapSize && currentId(heap[left + 1]) < currentId(heap[smallest])) {
+                    smallest = left + 1;
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(heap, smallest, index);
+                index = smallest;
+            }
+        }
+
+        private static void swap(int[] heap, int i, int j) {
+            int list = heap[i];
+            heap[i] = heap[j];
+            heap[j] = list;
+        }
+    }
+
+    private record Document(String owner, int[] termNumbers) {
+    }
+
+    private interface Hit {
+        void accept(long id, double score);
+    }
+
+    /**
+     * The best hits seen so far in a min-heap of primitive arrays; ties go to the newer to-do item.
+     */
+    private static final class TopHits {
+        private final long[] ids;
+        private final double[] scores;
+        private int size;
+
+        private TopHits(int limit) {
+            ids = new long[limit];
+            scores = new double[limit];
+        }
+
+        private void offer(long id, double score) {
+            if (size < ids.length) {
+                ids[size] = id;
+                scores[size] = score;
+                int index = size++;
+                while (index > 0 && worse(index, (index - 1) >>> 1)) {
+                    swap(index, (index - 1) >>> 1);
+                    index = (index - 1) >>> 1;
+                }
+                return;
+            }
+            if (score < scores[0] || (score == scores[0] && id < ids[0])) {
+                return;
+            }
+            ids[0] = id;
+            scores[0] = score;
+            siftDown();
+        }
+
+        /**
+         * @return the ids, best first; empties the heap.
+         */
+        private List<Long> ids() {
+            Long[] best = new Long[size];
+            while (size > 0) {
+                best[size - 1] = ids[0];
+                swap(0, --size);
+                siftDown();
+            }
+            return Arrays.asList(best);
+        }
+
+        private void siftDown() {
+            int index = 0;
+            while (true) {
+                int worst = index;
+                int left = 2 * index + 1;
+                if (left < size && worse(left, worst)) {
+                    worst = left;
+                }
+                if (left + 1 < size && worse(left + 1, worst)) {
+                    worst = left + 1;
+                }
+                if (worst == index) {
+                    return;
+                }
+                swap(worst, index);
+                index = worst;
+            }
+        }
+
+        private boolean worse(int i, int j) {
+            return scores[i] < scores[j] || (scores[i] == scores[j] && ids[i] < ids[j]);
+        }
+
+        private void swap(int i, int j) {
+            long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+            double score = scores[i];
+            scores[i] = scores[j];
+            scores[j] = score;
+        }
+    }
+}
@@ -2,11 +2,21 @@ package com.app.todo.service;
 
 import com.app.todo.entity.Todo;
 import com.app.todo.exceptions.InvalidTodoException;
+import com.app.todo.exceptions.TodoConflictException;
 import com.app.todo.exceptions.TodoNotFoundException;
 import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.ArchiveChunk;
+import com.app.todo.payload.TodoChanges;
+import com.app.todo.payload.TodoFilter;
+import com.app.todo.payload.TodoPage;
+import com.app.todo.payload.TodoStats;
 import com.app.todo.payload.UpdateTodo;
+import org.springframework.data.domain.Sort;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing to-do items.
@@ -28,7 +38,17 @@ public interface TodoService {
     Todo addTodo(AddTodoRequest todoRequest) throws InvalidTodoException;
 
     /**
-     * Retrieves a to-do item by its unique identifier.
+     * Adds a batch of new to-do items. The whole batch is validated before anything is stored, then the
+     * items are inserted with JDBC batching, one transaction per chunk.
+     *
+     * @param todoRequests the list of {@link AddTodoRequest} to create, at most 10000 items.
+     * @return the list of created {@link Todo} items, in request order, including their identifiers.
+     * @throws InvalidTodoException if the batch is empty or too large, or if any item is invalid.
+     */
+    List<Todo> addTodos(List<AddTodoRequest> todoRequests) throws InvalidTodoException;
+
+    /**
+     * Retrieves a to-do item by its unique identifier, from the archive if it has been archived.
      *
      * @param id the unique identifier of the to-do item to be retrieved.
      * @return an instance of {@link Todo} representing the to-do item with the specified ID, or `null` if no item is found with the provided ID.
@@ -44,7 +64,79 @@ public interface TodoService {
     List<Todo> getAllTodos();
 
     /**
-     * Updates an existing to-do item.
+     * Retrieves the to-do items matching a filter, in the requested order.
+     *
+     * @param filter the {@link TodoFilter} holding the optional completed state, set of priorities and due-date range,
+     *               and whether archived to-do items are included.
+     * @param sort the order of the result; one of `id`, `title`, `dueDate` or `createdAt`. Unsorted means by id.
+     * @return the list of matching {@link Todo} items.
+     * @throws InvalidTodoException if the sort refers to an unsupported property.
+     */
+    List<Todo> findTodos(TodoFilter filter, Sort sort) throws InvalidTodoException;
+
+    /**
+     * Searches the title and description of all to-do items.
+     *
+     * @param query free text; every word has to match a word of the to-do item, or the beginning of one.
+     * @param limit the maximum number of results (at most 100).
+     * @return the matching {@link Todo} items, best match first.
+     * @throws InvalidTodoException if the query contains no word.
+     */
+    List<Todo> searchTodos(String query, int limit) throws InvalidTodoException;
+
+    /**
+     * Counts the to-do items by priority and completed state, and the overdue ones, from in-memory counters.
+     *
+     * @return the current {@link TodoStats}.
+     */
+    TodoStats getStatistics();
+
+    /**
+     * Retrieves the open to-do items whose due date has passed.
+     *
+     * @param limit the maximum number of items (at most 500).
+     * @return the overdue {@link Todo} items, longest overdue first.
+     */
+    List<Todo> getOverdueTodos(int limit);
+
+    /**
+     * Retrieves the open to-do items due within the given time from now.
+     *
+     * @param within how far ahead to look.
+     * @param limit the maximum number of items (at most 500).
+     * @return the upcoming {@link Todo} items, earliest due first.
+     */
+    List<Todo> getUpcomingTodos(Duration within, int limit);
+
+    /**
+     * Retrieves one page of to-do items using keyset pagination on the id.
+     *
+     * @param cursor the id of the last item of the previous page, or `null` for the first page.
+     * @param size the requested page size; it is clamped to the range supported by the service.
+     * @return a {@link TodoPage} holding the items and the cursor of the next page (`null` if this is the last page).
+     */
+    TodoPage getTodosPage(Long cursor, int size);
+
+    /**
+     * Reads what was created, updated or deleted after a cursor, in change order.
+     *
+     * @param since the `nextCursor` of the previous page, or `null` for a full sync.
+     * @param size the number of changes per page (at most 500).
+     * @return the {@link TodoChanges} after the cursor.
+     * @throws InvalidTodoException if the cursor is malformed.
+     */
+    TodoChanges getChanges(String since, int size) throws InvalidTodoException;
+
+    /**
+     * Streams all to-do items ordered by id, handing each one to the given consumer as it is read.
+     * Items are detached after the consumer returns, so memory stays flat regardless of the table size.
+     *
+     * @param consumer the callback receiving each {@link Todo}.
+     */
+    void streamAllTodos(Consumer<Todo> consumer);
+
+    /**
+     * Updates an existing to-do item with a single version-checked statement.
      *
      * @param id the unique identifier of the to-do item to be updated.
      * @param updateTodo an instance of {@link UpdateTodo} containing the updated details of the to-do item.
@@ -53,21 +145,25 @@ public interface TodoService {
      *                   - `description` (String): The updated description of the to-do item. This is optional.
      *                   - `dueDate` (LocalDateTime): The updated date and time by which the to-do item should be completed. This is optional.
      *                   - `priority` (Priority): The updated priority level of the to-do item. This is optional.
-     * @return an instance of {@link Todo} representing the updated to-do item.
+     * @param expectedVersion the version the client based its change on, or `null` to update whatever the current version is.
+     * @return an instance of {@link Todo} representing the persisted state of the updated to-do item.
      * @throws TodoNotFoundException if no to-do item is found with the given ID.
+     * @throws TodoConflictException if the to-do item is not at the expected version, or keeps changing concurrently.
      */
-    Todo updateTodo(long id, UpdateTodo updateTodo) throws TodoNotFoundException;
+    Todo updateTodo(long id, UpdateTodo updateTodo, Long expectedVersion) throws TodoNotFoundException;
 
     /**
-     * Marks a to-do item as completed.
+     * Marks a to-do item as completed, or unmarks it, with a single version-checked statement.
      *
      * @param id the unique identifier of the to-do item to be marked or unmarked as completed.
+     * @return an instance of {@link Todo} representing the persisted state of the to-do item.
      * @throws TodoNotFoundException if no to-do item is found with the given ID.
+     * @throws TodoConflictException if the to-do item keeps changing concurrently.
      */
-    void markOrUnmarkedAsCompleted(long id) throws TodoNotFoundException;
+    Todo markOrUnmarkedAsCompleted(long id) throws TodoNotFoundException;
 
     /**
-     * Deletes a to-do item by its unique identifier.
+     * Deletes a to-do item by its unique identifier with a single statement.
      *
      * @param id the unique identifier of the to-do item to be deleted.
      * @throws TodoNotFoundException if no to-do item is found with the given ID.
@@ -75,7 +171,29 @@ public interface TodoService {
     void deleteById(long id) throws TodoNotFoundException;
 
     /**
-     * Deletes all to-do items.
+     * Deletes all to-do items matching a filter, in chunks of one transaction each.
+     *
+     * @param filter the {@link TodoFilter} holding the optional completed state, set of priorities and due-date range.
+     * @return the number of deleted to-do items.
+     */
+    long deleteTodos(TodoFilter filter);
+
+    /**
+     * Deletes all to-do items, archived ones included, in chunks of one transaction each.
+     *
+     * @return the number of deleted to-do items.
+     */
+    long deleteAll();
+
+    /**
+     * Moves one chunk of completed to-do items, whose last change is older than the given time, from the `todo` table
+     * into the archive, in one transaction. Items with a buffered toggle are skipped. A write to an archived item
+     * moves it back first.
+     *
+     * @param completedBefore only items last changed before this time are archived.
+     * @param afterId the `lastId` of the previous chunk, or 0 to start from the lowest id.
+     * @param limit the number of items to look at.
+     * @return the {@link ArchiveChunk} holding the number of archived items and where to continue.
      */
-    void deleteAll();
+    ArchiveChunk archiveCompleted(LocalDateTime completedBefore, long afterId, int limit);
 }
@@ -1,27 +1,98 @@
 package com.app.todo.service.impl;
 
+import com.app.todo.buffer.TodoToggleBuffer;
+import com.app.todo.cache.TodoCache;
+import com.app.todo.due.TodoDueIndex;
+import com.app.todo.entity.ArchivedTodo;
 import com.app.todo.entity.Todo;
+import com.app.todo.entity.TodoTombstone;
+import com.app.todo.event.TodoChangeType;
+import com.app.todo.event.TodoChangedEvent;
 import com.app.todo.exceptions.InvalidTodoException;
+import com.app.todo.exceptions.TodoConflictException;
 import com.app.todo.exceptions.TodoNotFoundException;
+import com.app.todo.mapper.TodoMapper;
 import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.ArchiveChunk;
+import com.app.todo.payload.TodoChanges;
+import com.app.todo.payload.TodoFilter;
+import com.app.todo.payload.TodoPage;
+import com.app.todo.payload.TodoStats;
 import com.app.todo.payload.UpdateTodo;
+import com.app.todo.repository.TodoArchiveRepository;
 import com.app.todo.repository.TodoRepository;
+import com.app.todo.repository.TodoSpecifications;
+import com.app.todo.repository.TodoTombstoneRepository;
+import com.app.todo.routing.ReplicaRouting;
+import com.app.todo.search.TodoSearchIndex;
 import com.app.todo.service.TodoService;
+import com.app.todo.sharding.ShardRouting;
+import com.app.todo.stats.TodoStatistics;
+import com.app.todo.sync.TodoChangeSequence;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class TodoServiceImpl implements TodoService {
 
     private final TodoRepository todoRepository;
+    private final TodoTombstoneRepository tombstoneRepository;
+    private final TodoArchiveRepository archiveRepository;
+    private final TodoChangeSequence changeSequence;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final TodoCache todoCache;
+    private final TodoToggleBuffer toggleBuffer;
+    private final TodoSearchIndex searchIndex;
+    private final TodoDueIndex dueIndex;
+    private final TodoStatistics statistics;
+    private final ReplicaRouting replicaRouting;
+    private final ShardRouting shardRouting;
+    private final ApplicationEventPublisher eventPublisher;
 
     private static final String notFoundExcetion = "No todo found with id ";
     private static final String invalidTodoException = "Can not processed invalid Todo task which due date is before the current time";
+    private static final String conflictException = "Todo was modified concurrently, reload it and retry, id ";
+    private static final String invalidBatchException = "Can not processed batch which is empty or has more than 10000 Todo tasks";
+    private static final String invalidSortException = "Can not sort Todo tasks by ";
+    private static final String invalidSearchException = "Can not search Todo tasks without a word to search for";
+    private static final String invalidCursorException = "Can not read changes after invalid cursor ";
+    private static final String invalidOwnerException = "Can not processed Todo task of invalid or other owner ";
+    private static final Set<String> sortableProperties = Set.of("id", "title", "dueDate", "createdAt");
+    private static final int maxPageSize = 500;
+    private static final int maxSearchResults = 100;
+    private static final int maxBatchSize = 10_000;
+    //rows per transaction; inserts inside a chunk are sent in JDBC batches of `hibernate.jdbc.batch_size`
+    private static final int batchChunkSize = 500;
+    //rows per delete statement and transaction, so row locks are only held for one chunk at a time
+    private static final int deleteChunkSize = 1000;
 
     /**
      * Adds a new to-do item to the system.
@@ -32,31 +103,84 @@ public class TodoServiceImpl implements TodoService {
      *                    - `description` (String): A brief description of the to-do item. This is optional.
      *                    - `dueDate` (LocalDateTime): The date and time by which the to-do item should be completed. This is optional.
      *                    - `priority` (Priority): The priority level of the to-do item (e.g., LOW, MEDIUM, HIGH). This is optional.
+     *                    - `owner` (String): The owner of the to-do item; the owner of the route when omitted, else `default`.
      * @return an instance of {@link Todo} representing the newly created to-do item, including its unique identifier and creation timestamp.
-     * @throws InvalidTodoException if the provided `todoRequest` is invalid (e.g., missing required fields).
+     * @throws InvalidTodoException if the provided `todoRequest` is invalid (e.g., missing required fields), or names another owner than its route.
      */
     @Override
     public Todo addTodo(AddTodoRequest todoRequest) throws InvalidTodoException {
 
         // if due date of Todo lies in past then throwing InvalidTodoException
-        if(todoRequest.getDueDate().toLocalDate().isBefore(LocalDate.now())){
+        if(isDueInPast(todoRequest)){
             throw new InvalidTodoException(invalidTodoException);
         }
+        String owner = ownerOf(todoRequest);
+        if(owner == null){
+            throw new InvalidTodoException(invalidOwnerException + todoRequest.getOwner());
+        }
+
+        //storing object on the shard of its owner
+        Todo todo = TodoMapper.toTodo(todoRequest);
+        todo.setOwner(owner);
+        Todo savedTodo = shardRouting.write(owner, () -> transactionTemplate.execute(status -> {
+            todo.setChangeSeq(changeSequence.next(owner));
+            return todoRepository.save(todo);
+        }));
+        eventPublisher.publishEvent(new TodoChangedEvent(TodoChangeType.CREATED, savedTodo.getId(), null, savedTodo));
 
-        //creating object of [Todo]
-        Todo todo = new Todo();
+        return savedTodo;
+    }
 
-        //setting all the field
-        todo.setTitle(todoRequest.getTitle());
-        todo.setDescription(todoRequest.getDescription());
-        todo.setDueDate(todoRequest.getDueDate());
-        todo.setPriority(todoRequest.getPriority());
+    /**
+     * Adds a batch of new to-do items. The whole batch is validated before anything is stored, then the
+     * items are inserted with JDBC batching, one transaction per chunk of items of the same owner.
+     *
+     * @param todoRequests the list of {@link AddTodoRequest} to create, at most 10000 items.
+     * @return the list of created {@link Todo} items, in request order, including their identifiers.
+     * @throws InvalidTodoException if the batch is empty or too large, or if any item is invalid.
+     */
+    @Override
+    public List<Todo> addTodos(List<AddTodoRequest> todoRequests) throws InvalidTodoException {
+        if(todoRequests == null || todoRequests.isEmpty() || todoRequests.size() > maxBatchSize){
+            throw new InvalidTodoException(invalidBatchException);
+        }
 
-        //storing object
-        Todo savedTodo = todoRepository.save(todo);
+        //validating the whole batch first so that nothing is stored when one item is invalid
+        List<Todo> todos = new ArrayList<>(todoRequests.size());
+        for(int i = 0; i < todoRequests.size(); i++){
+            if(isDueInPast(todoRequests.get(i))){
+                throw new InvalidTodoException(invalidTodoException + " (item " + i + ")");
+            }
+            String owner = ownerOf(todoRequests.get(i));
+            if(owner == null){
+                throw new InvalidTodoException(invalidOwnerException + todoRequests.get(i).getOwner() + " (item " + i + ")");
+            }
+            Todo todo = TodoMapper.toTodo(todoRequests.get(i));
+            todo.setOwner(owner);
+            todos.add(todo);
+        }
 
+        //the items of an owner are stored on its shard; saving assigns the ids to the instances in `todos`
+        Map<String, List<Todo>> todosByOwner = todos.stream()
+                .collect(Collectors.groupingBy(Todo::getOwner, LinkedHashMap::new, Collectors.toList()));
+        for(Map.Entry<String, List<Todo>> ownerTodos : todosByOwner.entrySet()){
+            List<Todo> owned = ownerTodos.getValue();
+            for(int from = 0; from < owned.size(); from += batchChunkSize){
+                List<Todo> chunk = owned.subList(from, Math.min(from + batchChunkSize, owned.size()));
 
-        return savedTodo;
+                //each chunk commits on its own, keeping transactions and the persistence context small
+                shardRouting.write(ownerTodos.getKey(), () -> transactionTemplate.execute(status -> {
+                    long changeSeq = changeSequence.next(ownerTodos.getKey());
+                    chunk.forEach(todo -> todo.setChangeSeq(changeSeq));
+                    todoRepository.saveAll(chunk);
+                    entityManager.flush();
+                    entityManager.clear();
+                    return null;
+                }));
+                chunk.forEach(todo -> eventPublisher.publishEvent(new TodoChangedEvent(TodoChangeType.CREATED, todo.getId(), null, todo)));
+            }
+        }
+        return todos;
     }
 
     /**
@@ -64,31 +188,297 @@ public class TodoServiceImpl implements TodoService {
      *
      * @param id the unique identifier of the to-do item to be retrieved.
      * @return an instance of {@link Todo} representing the to-do item with the specified ID, or `null` if no item is found with the provided ID.
-     * @throws TodoNotFoundException if no to-do item is found with the given ID.
+     * @throws TodoNotFoundException if no to-do item is found with the given ID, or it belongs to another owner than the route.
      */
     @Override
     public Todo getTodoById(long id) throws TodoNotFoundException {
-        final Optional<Todo> todo = todoRepository.findById(id);
-        if(todo.isPresent()){
-            return todo.get();
+        //reading through the entity cache, only a miss goes to the database, or to a replica
+        final Todo todo = replicaRouting.readShared(() -> toggleBuffer.read(() -> toggleBuffer.apply(visible(loadTodo(id)))));
+        if(todo != null){
+            return todo;
+        }
+        //archived items are read from the archive, they are not cached
+        ArchivedTodo archivedTodo = replicaRouting.readShared(() -> loadArchived(id));
+        if(archivedTodo != null){
+            return TodoMapper.fromArchive(archivedTodo);
         }
         //otherwise throwing the [TodoNotFoundException]
         throw new TodoNotFoundException(notFoundExcetion+id);
     }
 
     /**
-     * Retrieves all to-do items in the system.
+     * Retrieves all to-do items in the system, or of the owner of the route.
      *
      * @return a list of {@link Todo} objects representing all to-do items.
      */
     @Override
     public List<Todo> getAllTodos() {
+        String owner = shardRouting.currentOwner();
+        TodoFilter ownerFilter = new TodoFilter(null, null, null, null, false, owner);
+
+        //the result becomes the list snapshot shared by all clients
+        return replicaRouting.readShared(() -> toggleBuffer.read(() -> toggleBuffer.apply(readShards(owner,
+                () -> owner == null ? todoRepository.findAll() : todoRepository.findAll(TodoSpecifications.matching(ownerFilter), Sort.by("id")),
+                Todo::getOwner, Comparator.comparing(Todo::getId)))));
+    }
+
+    /**
+     * Retrieves the to-do items matching a filter, in the requested order. Without an owner the items of all shards
+     * are read in parallel and merged.
+     *
+     * @param filter the {@link TodoFilter} holding the optional completed state, set of priorities, due-date range and owner.
+     * @param sort the order of the result; one of `id`, `title`, `dueDate` or `createdAt`. Unsorted means by id.
+     * @return the list of matching {@link Todo} items.
+     * @throws InvalidTodoException if the sort refers to an unsupported property.
+     */
+    @Override
+    public List<Todo> findTodos(TodoFilter filter, Sort sort) throws InvalidTodoException {
+        for(Sort.Order order : sort){
+            if(!sortableProperties.contains(order.getProperty())){
+                throw new InvalidTodoException(invalidSortException + order.getProperty());
+            }
+        }
+        //the database can only filter on the completed flag once the buffered toggles are written; the flush commits
+        //on a connection of its own, so it runs before the read transaction holds one
+        if(filter.getCompleted() != null && toggleBuffer.hasPending()){
+            toggleBuffer.flush();
+        }
+        Sort order = sort.isSorted() ? sort : Sort.by("id");
+        Comparator<Todo> comparator = comparator(order);
+        TodoFilter scopedFilter = scoped(filter);
+        String owner = scopedFilter.getOwner();
+        return readOnly(() -> {
+            List<Todo> todos = replicaRouting.read(() -> toggleBuffer.read(() -> toggleBuffer.apply(readShards(owner,
+                    () -> todoRepository.findAll(TodoSpecifications.matching(scopedFilter), order), Todo::getOwner, comparator))));
+            if(!filter.isIncludeArchived()){
+                return todos;
+            }
+
+            //both lists come sorted, the archived items are merged in by the same order
+            List<Todo> all = new ArrayList<>(todos);
+            all.addAll(replicaRouting.read(() -> readShards(owner, () -> archiveRepository.findAll(TodoSpecifications.matching(scopedFilter), order)
+                    .stream().map(TodoMapper::fromArchive).toList(), Todo::getOwner, comparator)));
+            all.sort(comparator);
+            return all;
+        });
+    }
+
+    /**
+     * Searches the title and description of all to-do items in the in-process {@link TodoSearchIndex}; only the
+     * hits are read, through the entity cache. On the route of an owner only the items of that owner are searched.
+     *
+     * @param query free text; every word has to match a word of the to-do item, or the beginning of one.
+     * @param limit the maximum number of results; it is clamped to the range supported by the service.
+     * @return the matching {@link Todo} items, best match first.
+     * @throws InvalidTodoException if the query contains no word.
+     */
+    @Override
+    public List<Todo> searchTodos(String query, int limit) throws InvalidTodoException {
+        if(query == null || query.chars().noneMatch(Character::isLetterOrDigit)){
+            throw new InvalidTodoException(invalidSearchException);
+        }
+        int max = Math.max(1, Math.min(limit, maxSearchResults));
+        return loadTodos(searchIndex.search(query, shardRouting.currentOwner(), max), max);
+    }
 
-        return todoRepository.findAll();
+    /**
+     * Counts the to-do items by priority and completed state, and the overdue ones, from the {@link TodoStatistics}
+     * counters; no query is run. The counters cover all owners, the items of the owner of the route are counted
+     * with a `GROUP BY` on its shard.
+     *
+     * @return the current {@link TodoStats}.
+     */
+    @Override
+    public TodoStats getStatistics() {
+        String owner = shardRouting.currentOwner();
+        if(owner == null){
+            return statistics.snapshot(LocalDateTime.now());
+        }
+        //the completed flag is counted in the database, which has to include the buffered toggles
+        if(toggleBuffer.hasPending()){
+            toggleBuffer.flush();
+        }
+        return TodoStatistics.count(replicaRouting.read(() -> shardRouting.onShardOf(owner,
+                () -> todoRepository.countByOwnerPriorityAndCompleted(owner, LocalDateTime.now()))));
     }
 
     /**
-     * Updates an existing to-do item.
+     * Retrieves the open to-do items whose due date has passed, from the in-memory {@link TodoDueIndex}; only
+     * the returned items are read, through the entity cache.
+     *
+     * @param limit the maximum number of items; it is clamped to the range supported by the service.
+     * @return the overdue {@link Todo} items, longest overdue first.
+     */
+    @Override
+    public List<Todo> getOverdueTodos(int limit) {
+        int max = Math.max(1, Math.min(limit, maxPageSize));
+        return loadTodos(dueIndex.overdue(LocalDateTime.now(), shardRouting.currentOwner(), max), max);
+    }
+
+    /**
+     * Retrieves the open to-do items due within the given time from now, from the in-memory {@link TodoDueIndex};
+     * only the returned items are read, through the entity cache.
+     *
+     * @param within how far ahead to look.
+     * @param limit the maximum number of items; it is clamped to the range supported by the service.
+     * @return the upcoming {@link Todo} items, earliest due first.
+     */
+    @Override
+    public List<Todo> getUpcomingTodos(Duration within, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        int max = Math.max(1, Math.min(limit, maxPageSize));
+        return loadTodos(dueIndex.dueBetween(now, now.plus(within), shardRouting.currentOwner(), max), max);
+    }
+
+    /**
+     * Retrieves one page of to-do items using keyset pagination on the id.
+     *
+     * @param cursor the id of the last item of the previous page, or `null` for the first page.
+     * @param size the requested page size; it is clamped to the range supported by the service.
+     * @return a {@link TodoPage} holding the items and the cursor of the next page (`null` if this is the last page).
+     */
+    @Override
+    public TodoPage getTodosPage(Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        long after = cursor == null ? 0 : cursor;
+        String owner = shardRouting.currentOwner();
+
+        //reading one extra row tells us whether another page exists without a count query; every shard reads one
+        //page, the merged rows are still the lowest ids after the cursor
+        List<Todo> todos = replicaRouting.read(() -> toggleBuffer.read(() -> toggleBuffer.apply(readShards(owner,
+                () -> owner == null ? todoRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(pageSize + 1))
+                        : todoRepository.findByOwnerAndIdGreaterThanOrderByIdAsc(owner, after, Limit.of(pageSize + 1)),
+                Todo::getOwner, Comparator.comparing(Todo::getId)))));
+        if(todos.size() <= pageSize){
+            return new TodoPage(todos, null);
+        }
+
+        List<Todo> page = todos.subList(0, pageSize);
+        return new TodoPage(page, page.get(pageSize - 1).getId());
+    }
+
+    /**
+     * Reads what was created, updated or deleted after a cursor, in the order of the change sequence. Only changes
+     * whose writes have all ended are returned, so a later page never holds a change from before its cursor.
+     * Buffered toggles show up once they are flushed. Every shard numbers its own changes: the cursor holds a
+     * position per shard, and a page returns the changes of one shard after the other.
+     *
+     * @param since the `nextCursor` of the previous page, or `null` for a full sync, which skips deletions.
+     * @param size the number of changes per page (at most 500).
+     * @return the created or updated {@link Todo} items and the ids of the deleted ones.
+     * @throws InvalidTodoException if the cursor was not returned by this method.
+     */
+    @Override
+    public TodoChanges getChanges(String since, int size) throws InvalidTodoException {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        int shards = shardRouting.shardCount();
+        long[] changeSeqs = new long[shards];
+        long[] ids = new long[shards];
+        if(since != null){
+            //`<change sequence>-<id>` of the last change returned from each shard, separated by dots; a single one,
+            //from before the shards numbered their changes on their own, stands for all of them
+            String[] positions = since.split("\\.", -1);
+            if(positions.length != 1 && positions.length != shards){
+                throw new InvalidTodoException(invalidCursorException + since);
+            }
+            for(int shard = 0; shard < shards; shard++){
+                String position = positions[positions.length == 1 ? 0 : shard];
+                int separator = position.indexOf('-');
+                try {
+                    changeSeqs[shard] = Long.parseLong(position.substring(0, Math.max(separator, 0)));
+                    ids[shard] = Long.parseLong(position.substring(separator + 1));
+                } catch (NumberFormatException e) {
+                    throw new InvalidTodoException(invalidCursorException + since);
+                }
+            }
+        }
+        List<Long> upTo = changeSequence.visibleUpTo();
+        String owner = shardRouting.currentOwner();
+        //the items of an owner are all on its shard, the positions on the others stay where they are
+        int ownerShard = owner == null ? -1 : shardRouting.shardOf(owner);
+        //read from the primary: a lagging replica could still miss changes below the watermark
+        List<ShardChanges> read = shardRouting.gather(shard -> owner != null && shard != ownerShard
+                ? new ShardChanges(List.of(), List.of())
+                : readChanges(owner, shard, since == null, changeSeqs[shard], ids[shard], upTo.get(shard), pageSize + 1));
+
+        //merges both in change order, shard after shard, up to one page
+        List<Todo> changedPage = new ArrayList<>();
+        List<Long> deletedPage = new ArrayList<>();
+        boolean hasMore = false;
+        for(int shard = 0; shard < shards; shard++){
+            List<Todo> changed = read.get(shard).changed();
+            List<TodoTombstone> deleted = read.get(shard).deleted();
+            int c = 0;
+            int d = 0;
+            while(changedPage.size() + deletedPage.size() < pageSize && (c < changed.size() || d < deleted.size())){
+                boolean takeChanged = d == deleted.size() || (c < changed.size() && comparePositions(
+                        changed.get(c).getChangeSeq(), changed.get(c).getId(), deleted.get(d).getChangeSeq(), deleted.get(d).getTodoId()) < 0);
+                if(takeChanged){
+                    Todo todo = changed.get(c++);
+                    changedPage.add(todo);
+                    changeSeqs[shard] = todo.getChangeSeq();
+                    ids[shard] = todo.getId();
+                } else {
+                    TodoTombstone tombstone = deleted.get(d++);
+                    deletedPage.add(tombstone.getTodoId());
+                    changeSeqs[shard] = tombstone.getChangeSeq();
+                    ids[shard] = tombstone.getTodoId();
+                }
+            }
+            hasMore |= c < changed.size() || d < deleted.size();
+        }
+        StringJoiner nextCursor = new StringJoiner(".");
+        for(int shard = 0; shard < shards; shard++){
+            nextCursor.add(changeSeqs[shard] + "-" + ids[shard]);
+        }
+        return new TodoChanges(changedPage, deletedPage, nextCursor.toString(), hasMore);
+    }
+
+    /**
+     * Reads the changes of one shard after a position, up to the given number of each kind, skipping rows left
+     * behind by a move of their owner.
+     */
+    private ShardChanges readChanges(String owner, int shard, boolean full, long afterSeq, long afterId, long upTo, int limit) {
+        List<Todo> changed = owner == null
+                ? todoRepository.findChangedAfter(afterSeq, afterId, upTo, Limit.of(limit))
+                : todoRepository.findChangedAfterForOwner(owner, afterSeq, afterId, upTo, Limit.of(limit));
+        List<TodoTombstone> deleted = full ? List.of() : owner == null
+                ? tombstoneRepository.findDeletedAfter(afterSeq, afterId, upTo, Limit.of(limit))
+                : tombstoneRepository.findDeletedAfterForOwner(owner, afterSeq, afterId, upTo, Limit.of(limit));
+        return new ShardChanges(changed.stream().filter(todo -> shardRouting.isPlaced(todo.getOwner(), shard)).toList(),
+                deleted.stream().filter(tombstone -> shardRouting.isPlaced(tombstone.getOwner(), shard)).toList());
+    }
+
+    /**
+     * Streams all to-do items ordered by id, handing each one to the given consumer as it is read.
+     * Items are detached after the consumer returns, so memory stays flat regardless of the table size.
+     * Buffered toggles are applied row by row without holding off flushes for the whole stream, so a row
+     * read just before a flush commits may show its state from before the toggle. With several shards, and no
+     * owner, the shards are streamed one after the other, each ordered by id.
+     *
+     * @param consumer the callback receiving each {@link Todo}.
+     */
+    @Override
+    public void streamAllTodos(Consumer<Todo> consumer) {
+        String owner = shardRouting.currentOwner();
+        replicaRouting.read(() -> {
+            if(owner != null){
+                shardRouting.onShard(shardRouting.shardOf(owner), () -> stream(() -> todoRepository.streamAllByOwner(owner), consumer));
+                return;
+            }
+            for(int shard = 0; shard < shardRouting.shardCount(); shard++){
+                int index = shard;
+                shardRouting.onShard(shard, () -> stream(todoRepository::streamAll, todo -> {
+                    if(shardRouting.isPlaced(todo.getOwner(), index)){
+                        consumer.accept(todo);
+                    }
+                }));
+            }
+        });
+    }
+
+    /**
+     * Updates an existing to-do item with a single version-checked statement.
      *
      * @param id         the unique identifier of the to-do item to be updated.
      * @param updateTodo an instance of {@link UpdateTodo} containing the updated details of the to-do item.
@@ -97,69 +487,571 @@ public class TodoServiceImpl implements TodoService {
      *                   - `description` (String): The updated description of the to-do item. This is optional.
      *                   - `dueDate` (LocalDateTime): The updated date and time by which the to-do item should be completed. This is optional.
      *                   - `priority` (Priority): The updated priority level of the to-do item. This is optional.
-     * @return an instance of {@link Todo} representing the updated to-do item.
-     * @throws TodoNotFoundException if no to-do item is found with the given ID.
+     *                   - `owner` (String): Only updates the to-do item if it belongs to this owner. This is optional.
+     * @param expectedVersion the version the client based its change on, or `null` to update whatever the current version is.
+     * @return an instance of {@link Todo} representing the persisted state of the updated to-do item.
+     * @throws TodoNotFoundException if no to-do item of the owner is found with the given ID.
+     * @throws TodoConflictException if the to-do item is not at the expected version, or keeps changing concurrently.
      */
     @Override
-    public Todo updateTodo(long id, UpdateTodo updateTodo) throws TodoNotFoundException {
-
-        if(!todoRepository.existsById(id)){
-            throw  new TodoNotFoundException(notFoundExcetion+id);
+    public Todo updateTodo(long id, UpdateTodo updateTodo, Long expectedVersion) throws TodoNotFoundException {
+        String routeOwner = shardRouting.currentOwner();
+        if(routeOwner != null && updateTodo.getOwner() != null && !routeOwner.equals(updateTodo.getOwner())){
+            throw new TodoNotFoundException(notFoundExcetion+id);
         }
+        return shardRouting.asOwner(updateTodo.getOwner(), () -> update(id, updateTodo, expectedVersion));
+    }
 
-        //creating updated todo
-        Todo updatedTodo = new Todo();
+    private Todo update(long id, UpdateTodo updateTodo, Long expectedVersion) {
+        //the version check runs against the database, which has to include the toggles the client has seen
+        if(toggleBuffer.isPending(id)){
+            toggleBuffer.flush();
+        }
 
-        updatedTodo.setId(id);
-        updatedTodo.setTitle(updateTodo.getTitle());
-        updatedTodo.setDescription(updateTodo.getDescription());
-        updatedTodo.setDueDate(updateTodo.getDueDate());
-        updatedTodo.setPriority(updateTodo.getPriority());
+        LocalDateTime now = now();
+        Written written = writeVersioned(id, expectedVersion, (todo, changeSeq) -> todoRepository.updateTodoBy(id, updateTodo.getTitle(),
+                updateTodo.getDescription(), updateTodo.getDueDate(), updateTodo.getPriority(), todo.getVersion(), changeSeq, now));
+        Todo previous = written.previous();
 
-        //updating  [Todo] object
-        todoRepository.updateTodoBy(id,updateTodo.getTitle(), updateTodo.getDescription(), updateTodo.getDueDate(), updateTodo.getPriority());
+        //the statement applied exactly these fields to exactly this version
+        Todo updatedTodo = TodoMapper.updated(previous, updateTodo);
+        updatedTodo.setChangeSeq(written.changeSeq());
+        updatedTodo.setUpdatedAt(now);
+        eventPublisher.publishEvent(new TodoChangedEvent(TodoChangeType.UPDATED, id, previous, updatedTodo));
 
         return updatedTodo;
     }
 
     /**
-     * Marks a to-do item as completed.
+     * Marks a to-do item as completed, or unmarks it, with a single version-checked statement. In write-behind
+     * mode the toggle is only buffered and written with the next flush of the {@link TodoToggleBuffer}.
      *
      * @param id the unique identifier of the to-do item to be marked or unmarked as completed.
+     * @return an instance of {@link Todo} representing the persisted state of the to-do item.
      * @throws TodoNotFoundException if no to-do item is found with the given ID.
+     * @throws TodoConflictException if the to-do item keeps changing concurrently.
      */
     @Override
-    public void markOrUnmarkedAsCompleted(long id) throws TodoNotFoundException {
-        //checking is [Todo] exist with given id or not
-        if(!todoRepository.existsById(id)) {
-            throw new TodoNotFoundException(notFoundExcetion + id);
+    public Todo markOrUnmarkedAsCompleted(long id) throws TodoNotFoundException {
+        if(toggleBuffer.isEnabled()){
+            Todo previous = toggleBuffered(id);
+            if(previous == null){
+                restore(id);
+                previous = toggleBuffered(id);
+            }
+            if(previous == null){
+                throw new TodoNotFoundException(notFoundExcetion+id);
+            }
+            //the change sequence and update time are assigned when the buffer is flushed
+            Todo toggledTodo = TodoMapper.toggled(previous);
+            eventPublisher.publishEvent(new TodoChangedEvent(TodoChangeType.TOGGLED, id, previous, toggledTodo));
+            return toggledTodo;
         }
-        todoRepository.updateByIdAndCompleted(id);
+
+        LocalDateTime now = now();
+        Written written = writeVersioned(id, null,
+                (todo, changeSeq) -> todoRepository.updateByIdAndCompleted(id, !todo.getCompleted(), todo.getVersion(), changeSeq, now));
+        Todo previous = written.previous();
+
+        Todo toggledTodo = TodoMapper.toggled(previous);
+        toggledTodo.setChangeSeq(written.changeSeq());
+        toggledTodo.setUpdatedAt(now);
+        eventPublisher.publishEvent(new TodoChangedEvent(TodoChangeType.TOGGLED, id, previous, toggledTodo));
+        return toggledTodo;
     }
 
     /**
-     * Deletes a to-do item by its unique identifier.
+     * Deletes a to-do item by its unique identifier with a single statement.
      *
      * @param id the unique identifier of the to-do item to be deleted.
-     * @throws TodoNotFoundException if no to-do item is found with the given ID.
+     * @throws TodoNotFoundException if no to-do item is found with the given ID, or it belongs to another owner than the route.
      */
     @Override
     public void deleteById(long id) throws TodoNotFoundException {
-        //checking if Todo is exist with given id or not
-        if(!todoRepository.existsById(id)) {
+        //the previous state is only known when the item is cached, it is not worth a query
+        Todo previous = todoCache.getIfPresent(id);
+        if(previous == null && (shardRouting.isSharded() || shardRouting.currentOwner() != null)){
+            //unless its owner is needed, to find its shard or to check it against the route
+            previous = loadTodo(id);
+            if(previous == null){
+                if(restore(id)){
+                    deleteById(id);
+                    return;
+                }
+                throw new TodoNotFoundException(notFoundExcetion+id);
+            }
+        }
+        if(previous != null && visible(previous) == null){
             throw new TodoNotFoundException(notFoundExcetion+id);
         }
+        String owner = previous == null ? null : previous.getOwner();
 
-        //deleting [Todo] with given id
-        todoRepository.deleteById(id);
+        //deleting [Todo] with given id and leaving its tombstone, no deleted row means it did not exist
+        LocalDateTime now = now();
+        int deleted = shardRouting.write(owner, () -> transactionTemplate.execute(status -> {
+            tombstoneRepository.insertForExisting(List.of(id), changeSequence.next(owner), now);
+            return todoRepository.deleteTodoById(id);
+        }));
+        if(deleted == 0) {
+            //an archived item is moved back and deleted like any other, leaving its tombstone
+            if(restore(id)){
+                deleteById(id);
+                return;
+            }
+            throw new TodoNotFoundException(notFoundExcetion+id);
+        }
+        todoCache.evict(id);
+        toggleBuffer.discard(id);
+        //unless known, read from the tombstone just written: the event must not go to the subscribers of another owner
+        String deletedOwner = owner != null ? owner
+                : tombstoneRepository.findById(id).map(TodoTombstone::getOwner).orElse(null);
+        eventPublisher.publishEvent(new TodoChangedEvent(TodoChangeType.DELETED, id, previous, null, deletedOwner));
+    }
+
+    /**
+     * Deletes all to-do items matching a filter. Matching ids are read with a keyset scan and deleted with one
+     * statement per chunk, each in its own transaction; no entity is loaded. Without an owner every shard is
+     * scanned, one after the other.
+     *
+     * @param filter the {@link TodoFilter} holding the optional completed state, set of priorities, due-date range and owner.
+     * @return the number of deleted to-do items.
+     */
+    @Override
+    public long deleteTodos(TodoFilter filter) {
+        //the completed flag is compared in the database, which has to include the buffered toggles
+        if(filter.getCompleted() != null && toggleBuffer.hasPending()){
+            toggleBuffer.flush();
+        }
+        TodoFilter scopedFilter = scoped(filter);
+        Specification<Todo> specification = TodoSpecifications.matching(scopedFilter);
+        if(scopedFilter.getOwner() != null){
+            return shardRouting.write(scopedFilter.getOwner(), () -> deleteInChunks(scopedFilter.getOwner(), specification, this::deleted));
+        }
+        return shardRouting.writeAll(() -> {
+            long deleted = 0;
+            for(int shard = 0; shard < shardRouting.shardCount(); shard++){
+                deleted += shardRouting.onShard(shard, () -> deleteInChunks(null, specification, this::deleted));
+            }
+            return deleted;
+        });
     }
 
     /**
-     * Deletes all to-do items.
+     * Deletes all to-do items, archived ones included, one chunk of rows per statement and transaction. On the
+     * route of an owner only its items are deleted.
+     *
+     * @return the number of deleted to-do items.
      */
     @Override
-    public void deleteAll() {
+    public long deleteAll() {
+        String owner = shardRouting.currentOwner();
+        if(owner != null){
+            Specification<Todo> ownerItems = TodoSpecifications.matching(new TodoFilter(null, null, null, null, false, owner));
+            return shardRouting.write(owner, () -> deleteInChunks(owner, ownerItems, this::deleted) + deleteArchive(owner));
+        }
+
         ///deleting all [Todo]
-        todoRepository.deleteAll();
+        long deleted = shardRouting.writeAll(() -> {
+            long count = 0;
+            for(int shard = 0; shard < shardRouting.shardCount(); shard++){
+                count += shardRouting.onShard(shard,
+                        () -> deleteInChunks(null, Specification.where(null), owners -> owners.keySet().forEach(todoCache::evict)) + deleteArchive(null));
+            }
+            return count;
+        });
+        todoCache.clear();
+        toggleBuffer.clear();
+        eventPublisher.publishEvent(new TodoChangedEvent(TodoChangeType.CLEARED, null, null, null));
+        return deleted;
+    }
+
+    /**
+     * Moves one chunk of completed to-do items into the archive. The rows are locked, copied and deleted in one
+     * transaction, so a chunk is either archived entirely or not at all and an interrupted run simply continues
+     * with the next one.
+     *
+     * @param completedBefore only items last changed before this time are archived.
+     * @param afterId the `lastId` of the previous chunk, or 0 to start from the lowest id.
+     * @param limit the number of items to look at.
+     * @return the {@link ArchiveChunk} holding the number of archived items and where to continue.
+     */
+    @Override
+    public ArchiveChunk archiveCompleted(LocalDateTime completedBefore, long afterId, int limit) {
+        LocalDateTime now = now();
+        List<Todo> archived = new ArrayList<>();
+        //no flush can commit while the chunk is moved, so a toggle buffered in the meantime is still pending afterwards;
+        //nor can an owner be moved to another shard
+        Long lastId = shardRouting.writeAll(() -> toggleBuffer.read(() -> {
+            Long last = transactionTemplate.execute(status -> {
+                List<Long> ids = todoRepository.lockIdsMatching(TodoSpecifications.archivable(completedBefore), afterId, limit);
+                if(ids.isEmpty()){
+                    return null;
+                }
+                //an item with a buffered toggle may not be completed any more
+                List<Long> movable = ids.stream().filter(id -> !toggleBuffer.isPending(id)).toList();
+                if(!movable.isEmpty()){
+                    archived.addAll(todoRepository.findAllById(movable));
+                    archiveRepository.archiveByIdIn(movable, now);
+                    todoRepository.deleteByIdIn(movable);
+                }
+                return ids.get(ids.size() - 1);
+            });
+            for(Todo todo : archived){
+                todoCache.evict(todo.getId());
+                eventPublisher.publishEvent(new TodoChangedEvent(TodoChangeType.ARCHIVED, todo.getId(), todo, todo));
+                //toggled while it was moved: the flush has to find it in the table
+                if(toggleBuffer.isPending(todo.getId())){
+                    restore(todo.getId());
+                }
+            }
+            return last;
+        }));
+        return new ArchiveChunk(archived.size(), lastId);
+    }
+
+    /**
+     * Moves an archived to-do item back into the `todo` table of its shard, keeping its id and version.
+     *
+     * @return whether the item was archived; `false` also when a concurrent call restored it first, or when it
+     * belongs to another owner than the route.
+     */
+    private boolean restore(long id) {
+        //the owner is only known once the item is found, so no owner can be moved meanwhile
+        boolean restored = shardRouting.writeAll(() -> shardRouting.locate(() -> transactionTemplate.execute(status -> {
+            //the lock makes a concurrent restore of the same item wait, then find nothing left to restore
+            Optional<ArchivedTodo> archived = archiveRepository.findLockedById(id);
+            if(archived.isEmpty()){
+                return null;
+            }
+            if(!isVisible(archived.get().getOwner())){
+                return false;
+            }
+            archiveRepository.restoreById(id);
+            archiveRepository.deleteByIdIn(List.of(id));
+            return true;
+        }))) == Boolean.TRUE;
+        if(restored){
+            Todo todo = loadTodo(id);
+            eventPublisher.publishEvent(new TodoChangedEvent(TodoChangeType.RESTORED, id, null, todo));
+        }
+        return restored;
+    }
+
+    /**
+     * Deletes the whole archive of the current shard, or the archived items of one owner, one chunk of rows per
+     * statement and transaction, leaving tombstones.
+     *
+     * @return the number of deleted archived to-do items.
+     */
+    private long deleteArchive(String owner) {
+        long deleted = 0;
+        while(true){
+            LocalDateTime now = now();
+            int chunk = transactionTemplate.execute(status -> {
+                long changeSeq = changeSequence.next(owner);
+                List<Long> ids = owner == null ? archiveRepository.findIdsAfter(0, Limit.of(deleteChunkSize))
+                        : archiveRepository.findIdsOfOwnerAfter(owner, 0, Limit.of(deleteChunkSize));
+                if(!ids.isEmpty()){
+                    tombstoneRepository.insertForArchived(ids, changeSeq, now);
+                    archiveRepository.deleteByIdIn(ids);
+                }
+                return ids.size();
+            });
+            deleted += chunk;
+            if(chunk < deleteChunkSize){
+                return deleted;
+            }
+        }
+    }
+
+    /**
+     * Runs a version-checked write against the current state of a to-do item. The state comes from the entity
+     * cache, so a warm cache costs exactly one statement besides taking the position in the change sequence, which
+     * runs on the shard of the item's owner. When the statement touches no row the cached state was outdated: it is
+     * reloaded from the database and the write is retried once.
+     *
+     * @param statement runs the write for the given state and position in the change sequence.
+     * @return the state the write was applied to, and its position in the change sequence.
+     */
+    private Written writeVersioned(long id, Long expectedVersion, ToIntBiFunction<Todo, Long> statement) {
+        Todo todo = getStoredTodo(id);
+        for(int attempt = 0; ; attempt++){
+            if(expectedVersion != null && !expectedVersion.equals(todo.getVersion())){
+                throw new TodoConflictException(conflictException + id);
+            }
+            Todo current = todo;
+            Written written = shardRouting.write(todo.getOwner(), () -> transactionTemplate.execute(status -> {
+                long changeSeq = changeSequence.next(current.getOwner());
+                return statement.applyAsInt(current, changeSeq) == 1 ? new Written(current, changeSeq) : null;
+            }));
+            //the bulk update bypasses the persistence context, so the cached entity is dropped explicitly
+            todoCache.evict(id);
+            if(written != null){
+                return written;
+            }
+            if(attempt == 1){
+                throw new TodoConflictException(conflictException + id);
+            }
+            todo = getStoredTodo(id);
+        }
+    }
+
+    /**
+     * @return the stored state of the to-do item, without buffered toggles, from the entity cache or the database.
+     */
+    private Todo loadTodo(long id) {
+        //an id does not tell its shard, a miss looks on the shard of the route's owner first
+        return todoCache.get(id, key -> Optional.ofNullable(shardRouting.locate(() -> todoRepository.findById(key).orElse(null))));
+    }
+
+    /**
+     * @return the stored state of the archived to-do item, or `null` when it is not archived or belongs to another
+     * owner than the route.
+     */
+    private ArchivedTodo loadArchived(long id) {
+        ArchivedTodo archivedTodo = shardRouting.locate(() -> archiveRepository.findById(id).orElse(null));
+        return archivedTodo == null || isVisible(archivedTodo.getOwner()) ? archivedTodo : null;
+    }
+
+    /**
+     * Reads the given to-do items, with buffered toggles, in the given order, up to the limit; ids deleted in the
+     * meantime, and items of other owners than the route's, are skipped. The items that are not cached are read
+     * with one query.
+     */
+    private List<Todo> loadTodos(List<Long> ids, int limit) {
+        return replicaRouting.readShared(() -> {
+            Map<Long, Todo> loaded = todoCache.getAll(ids, this::findAllTodos);
+            List<Todo> todos = new ArrayList<>(Math.min(ids.size(), limit));
+            for(long id : ids){
+                if(todos.size() == limit){
+                    break;
+                }
+                Todo todo = toggleBuffer.read(() -> toggleBuffer.apply(visible(loaded.get(id))));
+                if(todo != null){
+                    todos.add(todo);
+                }
+            }
+            return todos;
+        });
+    }
+
+    /**
+     * @return the stored to-do items with the given ids, by id; read from the shard of the route's owner, or from
+     * all shards when there is none.
+     */
+    private Map<Long, Todo> findAllTodos(List<Long> ids) {
+        Map<Long, Todo> todos = new HashMap<>();
+        readShards(shardRouting.currentOwner(), () -> todoRepository.findAllById(ids), Todo::getOwner, Comparator.comparing(Todo::getId))
+                .forEach(todo -> todos.put(todo.getId(), todo));
+        return todos;
+    }
+
+    /**
+     * Buffers a toggle, holding off a move of the item's owner until it is recorded.
+     *
+     * @return the state the toggle was applied to, or `null` if the item does not exist.
+     */
+    private Todo toggleBuffered(long id) {
+        if(!shardRouting.isSharded()){
+            return toggleBuffer.toggle(id, key -> visible(loadTodo(key)));
+        }
+        Todo todo = visible(loadTodo(id));
+        return todo == null ? null : shardRouting.write(todo.getOwner(), () -> toggleBuffer.toggle(id, key -> visible(loadTodo(key))));
+    }
+
+    /**
+     * Reads rows from the shard of the given owner, or from all shards in parallel when it is `null`. Rows gathered
+     * from a shard that is not their owner's, left there by a move, are dropped.
+     *
+     * @param query has to select the rows of the owner only, when there is one.
+     * @param order the order each shard returns its rows in, used to merge them.
+     */
+    private <T> List<T> readShards(String owner, Supplier<List<T>> query, Function<T, String> ownerOf, Comparator<? super T> order) {
+        if(owner != null){
+            return shardRouting.onShardOf(owner, query);
+        }
+        if(!shardRouting.isSharded()){
+            return query.get();
+        }
+        List<T> merged = new ArrayList<>();
+        shardRouting.gather(shard -> query.get().stream().filter(row -> shardRouting.isPlaced(ownerOf.apply(row), shard)).toList())
+                .forEach(merged::addAll);
+        merged.sort(order);
+        return merged;
+    }
+
+    /**
+     * Streams the rows of a query in a read-only transaction of its own, detaching each one after the consumer returns.
+     */
+    private void stream(Supplier<Stream<Todo>> query, Consumer<Todo> consumer) {
+        //one transaction per shard, each begun inside the scope of its shard
+        readOnly(() -> {
+            try(Stream<Todo> todos = query.get()){
+                todos.forEach(todo -> {
+                    consumer.accept(toggleBuffer.apply(todo));
+                    //dropping the row from the persistence context so it can be garbage collected
+                    entityManager.detach(todo);
+                });
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs reads in a read-only transaction. Nothing inside may commit on its own, like a flush of the toggle buffer:
+     * it would wait for a second connection while holding this one, which deadlocks an exhausted pool.
+     */
+    private <T> T readOnly(Supplier<T> reads) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+        return readOnlyTransaction.execute(status -> reads.get());
+    }
+
+    /**
+     * Evicts the deleted to-do items and publishes their deletion.
+     *
+     * @param owners the owners of the deleted items, by id.
+     */
+    private void deleted(Map<Long, String> owners) {
+        owners.forEach((id, owner) -> {
+            Todo previous = todoCache.getIfPresent(id);
+            todoCache.evict(id);
+            toggleBuffer.discard(id);
+            eventPublisher.publishEvent(new TodoChangedEvent(TodoChangeType.DELETED, id, previous, null, owner));
+        });
+    }
+
+    /**
+     * @return the owner a new to-do item is stored for: the one the request names, else the route's, else the default
+     * owner; `null` when the request names an invalid owner, or another one than its route.
+     */
+    private String ownerOf(AddTodoRequest todoRequest) {
+        String routeOwner = shardRouting.currentOwner();
+        String owner = todoRequest.getOwner();
+        if(owner == null){
+            return routeOwner != null ? routeOwner : Todo.defaultOwner;
+        }
+        if(!ShardRouting.isValidOwner(owner) || (routeOwner != null && !routeOwner.equals(owner))){
+            return null;
+        }
+        return owner;
+    }
+
+    /**
+     * @return the filter, restricted to the route's owner when there is one, whatever owner the filter names.
+     */
+    private TodoFilter scoped(TodoFilter filter) {
+        String owner = shardRouting.currentOwner();
+        if(owner == null || owner.equals(filter.getOwner())){
+            return filter;
+        }
+        return new TodoFilter(filter.getCompleted(), filter.getPriority(), filter.getDueFrom(), filter.getDueTo(),
+                filter.isIncludeArchived(), owner);
+    }
+
+    /**
+     * @return the to-do item, or `null` when it belongs to another owner than the route's.
+     */
+    private Todo visible(Todo todo) {
+        return todo == null || isVisible(todo.getOwner()) ? todo : null;
+    }
+
+    private boolean isVisible(String owner) {
+        String routeOwner = shardRouting.currentOwner();
+        return routeOwner == null || routeOwner.equals(owner);
+    }
+
+    private Todo getStoredTodo(long id) {
+        Todo todo = visible(loadTodo(id));
+        if(todo == null){
+            //writing to an archived item moves it back into the table first
+            restore(id);
+            todo = visible(loadTodo(id));
+        }
+        if(todo == null){
+            throw new TodoNotFoundException(notFoundExcetion+id);
+        }
+        return todo;
+    }
+
+    /**
+     * Deletes the matching rows chunk by chunk, walking the id range once. Each chunk locks its rows, records their
+     * tombstones, deletes them and commits, so the ids handed on are exactly the rows deleted here.
+     *
+     * @param onDeleted receives the ids of each committed chunk, with the owners of the rows.
+     * @return the number of deleted rows.
+     */
+    private long deleteInChunks(String owner, Specification<Todo> specification, Consumer<Map<Long, String>> onDeleted) {
+        long deleted = 0;
+        long after = 0;
+        while(true){
+            final long from = after;
+            LocalDateTime now = now();
+            //the owners are read with the ids, for the events of the deleted rows
+            Map<Long, String> owners = transactionTemplate.execute(status -> {
+                //taken before the rows are locked, like every write does
+                long changeSeq = changeSequence.next(owner);
+                Map<Long, String> chunk = todoRepository.lockOwnersMatching(specification, from, deleteChunkSize);
+                if(!chunk.isEmpty()){
+                    List<Long> chunkIds = List.copyOf(chunk.keySet());
+                    tombstoneRepository.insertForExisting(chunkIds, changeSeq, now);
+                    todoRepository.deleteByIdIn(chunkIds);
+                }
+                return chunk;
+            });
+            List<Long> ids = List.copyOf(owners.keySet());
+            if(ids.isEmpty()){
+                return deleted;
+            }
+            onDeleted.accept(owners);
+            deleted += ids.size();
+            if(ids.size() < deleteChunkSize){
+                return deleted;
+            }
+            after = ids.get(ids.size() - 1);
+        }
+    }
+
+    /**
+     * @return the order of the given sort, by id within equal values; `null` comes first, as in the database.
+     */
+    private static Comparator<Todo> comparator(Sort sort) {
+        Comparator<Todo> comparator = (first, second) -> 0;
+        for(Sort.Order order : sort){
+            Comparator<Todo> byProperty = switch(order.getProperty()){
+                case "title" -> Comparator.comparing(Todo::getTitle, Comparator.nullsFirst(Comparator.naturalOrder()));
+                case "dueDate" -> Comparator.comparing(Todo::getDueDate, Comparator.nullsFirst(Comparator.naturalOrder()));
+                case "createdAt" -> Comparator.comparing(Todo::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()));
+                default -> Comparator.comparing(Todo::getId);
+            };
+            comparator = comparator.thenComparing(order.isDescending() ? byProperty.reversed() : byProperty);
+        }
+        return comparator.thenComparing(Todo::getId);
+    }
+
+    private static boolean isDueInPast(AddTodoRequest todoRequest) {
+        return todoRequest.getDueDate() != null && todoRequest.getDueDate().toLocalDate().isBefore(LocalDate.now());
+    }
+
+    private static int comparePositions(long changeSeq, long id, long otherChangeSeq, long otherId) {
+        int byChangeSeq = Long.compare(changeSeq, otherChangeSeq);
+        return byChangeSeq != 0 ? byChangeSeq : Long.compare(id, otherId);
+    }
+
+    /**
+     * The state a version-checked write was applied to, and the write's position in the change sequence.
+     */
+    private record Written(Todo previous, long changeSeq) {
+    }
+
+    /**
+     * The changes read from one shard, each kind in change order.
+     */
+    private record ShardChanges(List<Todo> changed, List<TodoTombstone> deleted) {
+    }
+
+    //the columns keep microseconds, truncating keeps the returned entity equal to the stored row
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
     }
 }
@@ -0,0 +1,52 @@
+package com.app.todo.sharding;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Places keys on shards by consistent hashing: every shard owns many points of a 64-bit ring, a key belongs to the
+ * shard of the first point at or after its hash. Adding a shard only takes over the keys falling just before its own
+ * points, about `1 / (shards + 1)` of them, and leaves every other key where it was.
+ *
+ * Hashes are the first 8 bytes of the MD5 of the key, so placements are the same on every instance and JVM.
+ */
+public class ConsistentHashRing {
+
+    //points per shard; more points even out the share of each shard
+    private static final int pointsPerShard = 160;
+
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+
+    public ConsistentHashRing(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("A ring needs at least one shard");
+        }
+        for (int shard = 0; shard < shards; shard++) {
+            for (int point = 0; point < pointsPerShard; point++) {
+                ring.put(hash("shard-" + shard + "#" + point), shard);
+            }
+        }
+    }
+
+    /**
+     * @return the index of the shard the key belongs to.
+     */
+    public int shardFor(String key) {
+        Map.Entry<Long, Integer> entry = ring.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform has to support MD5
+            throw new IllegalStateException(e);
+        }
+    }
+}
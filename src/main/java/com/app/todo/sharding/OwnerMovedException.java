@@ -0,0 +1,14 @@
+package com.app.todo.sharding;
+
+import java.util.Collection;
+
+/**
+ * Thrown by a write that reached the shard an owner was moved away from, because the directory entry it was routed
+ * by predates the move. Nothing was written; the write can be retried once the entry was read again.
+ */
+public class OwnerMovedException extends RuntimeException {
+
+    public OwnerMovedException(Collection<String> owners) {
+        super("Owners " + owners + " were moved to another shard");
+    }
+}
@@ -0,0 +1,224 @@
+package com.app.todo.sharding;
+
+import com.app.todo.buffer.TodoToggleBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Moves an owner to another shard while the application keeps serving it.
+ *
+ * The move holds the `todo_change_counter` rows of both shards, which every write takes first, so the writes to the
+ * two shards wait until it is done, in every instance. Under that lock the owner is fenced on the old shard: writes
+ * of instances whose directory entry still points there are refused with an {@link OwnerMovedException} and run
+ * again on the new shard. Reads are not held off: they are served from the old shard until the directory points to
+ * the new one, which only happens once the copy has committed, and in other instances until their entry expires.
+ *
+ * The rows keep their ids and versions, so caches and indexes stay valid. Their positions in the change sequence are
+ * per shard, so the copies take a new one on the new shard: a syncing client gets the owner's items again, rather
+ * than missing the ones its cursor on the old shard had not reached. The old rows are deleted last; until then, and
+ * for a copy an interrupted move left behind, reads gathered from all shards skip rows that are not on their
+ * owner's shard, see {@link ShardRouting#isPlaced}.
+ */
+@Slf4j
+public class OwnerRebalancer {
+
+    //the tables holding rows of an owner, all with an `owner` column
+    private static final List<String> ownerTables = List.of("todo", "todo_archive", "todo_tombstone");
+    private static final int copyBatchSize = 500;
+
+    private final List<DataSource> shards;
+    private final ShardRouting shardRouting;
+    private final TodoToggleBuffer toggleBuffer;
+    private final Counter movedRows;
+
+    public OwnerRebalancer(List<DataSource> shards, ShardRouting shardRouting, TodoToggleBuffer toggleBuffer,
+                           MeterRegistry meterRegistry) {
+        this.shards = shards;
+        this.shardRouting = shardRouting;
+        this.toggleBuffer = toggleBuffer;
+        this.movedRows = Counter.builder("todo.sharding.moved.rows")
+                .description("Rows copied to another shard by owner moves")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Moves all to-do items, archived items and tombstones of an owner to the given shard. Moving an owner to the
+     * shard it is on only removes leftovers of an interrupted move from the other shards.
+     *
+     * @return the number of rows copied.
+     * @throws IllegalStateException if another instance moved the owner at the same time.
+     */
+    public long move(String owner, int target) throws SQLException {
+        if (!ShardRouting.isValidOwner(owner)) {
+            throw new IllegalArgumentException("Can not move invalid owner " + owner);
+        }
+        if (target < 0 || target >= shards.size()) {
+            throw new IllegalArgumentException("There is no shard " + target + ", the shards are 0 to " + (shards.size() - 1));
+        }
+        ReentrantReadWriteLock.WriteLock lock = shardRouting.placementLock(owner).writeLock();
+        lock.lock();
+        try {
+            long start = System.nanoTime();
+            //toggles buffered for the owner have to be in the rows that are copied; the flush would wait for the counters
+            if (toggleBuffer.hasPending()) {
+                toggleBuffer.flush();
+            }
+            shardRouting.forget(owner);
+            int source = shardRouting.shardOf(owner);
+            long copied = 0;
+            if (source != target) {
+                copied = transfer(owner, source, target);
+            }
+            for (int shard = 0; shard < shards.size(); shard++) {
+                if (shard != target && shard != source) {
+                    delete(owner, shards.get(shard));
+                }
+            }
+            movedRows.increment(copied);
+            log.info("Moved {} rows of owner {} from shard {} to shard {} in {} ms", copied, owner, source, target,
+                    (System.nanoTime() - start) / 1_000_000);
+            return copied;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long transfer(String owner, int source, int target) throws SQLException {
+        try (Connection from = shards.get(source).getConnection(); Connection to = shards.get(target).getConnection()) {
+            from.setAutoCommit(false);
+            to.setAutoCommit(false);
+            try {
+                //in shard order, so that two moves in opposite directions can not deadlock
+                long changeSeq;
+                if (source < target) {
+                    lockCounter(from);
+                    changeSeq = nextChangeSeq(to);
+                } else {
+                    changeSeq = nextChangeSeq(to);
+                    lockCounter(from);
+                }
+                shardRouting.forget(owner);
+                if (shardRouting.shardOf(owner) != source) {
+                    throw new IllegalStateException("Owner " + owner + " was moved by another instance meanwhile");
+                }
+                //from here on the owner's writes to the old shard are refused; an earlier move away from the new one left a fence there
+                execute(from, "DELETE FROM owner_fence WHERE owner = ?", owner);
+                execute(from, "INSERT INTO owner_fence (owner) VALUES (?)", owner);
+                execute(to, "DELETE FROM owner_fence WHERE owner = ?", owner);
+                long copied = 0;
+                for (String table : ownerTables) {
+                    //a copy left behind by an interrupted move
+                    delete(to, table, owner);
+                    copied += copy(from, to, table, owner, changeSeq);
+                }
+                to.commit();
+                shardRouting.directory().move(owner, target);
+                for (String table : ownerTables) {
+                    delete(from, table, owner);
+                }
+                from.commit();
+                return copied;
+            } catch (SQLException | RuntimeException e) {
+                //after the copy committed, it is left behind like that of an interrupted move
+                to.rollback();
+                from.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Waits for the writes in flight on the shard, and holds off the next ones until the transaction ends.
+     */
+    private static void lockCounter(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT last_seq FROM todo_change_counter FOR UPDATE");
+             ResultSet counter = lock.executeQuery()) {
+            counter.next();
+        }
+    }
+
+    /**
+     * Like {@link #lockCounter}, taking the next position in the change sequence of the shard.
+     */
+    private static long nextChangeSeq(Connection connection) throws SQLException {
+        execute(connection, "UPDATE todo_change_counter SET last_seq = last_seq + 1");
+        try (PreparedStatement select = connection.prepareStatement("SELECT last_seq FROM todo_change_counter");
+             ResultSet position = select.executeQuery()) {
+            position.next();
+            return position.getLong(1);
+        }
+    }
+
+    private static void execute(Connection connection, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    private static int copy(Connection from, Connection to, String table, String owner, long changeSeq) throws SQLException {
+        try (PreparedStatement select = from.prepareStatement("SELECT * FROM " + table + " WHERE owner = ?")) {
+            select.setFetchSize(copyBatchSize);
+            select.setString(1, owner);
+            try (ResultSet rows = select.executeQuery()) {
+                ResultSetMetaData columns = rows.getMetaData();
+                StringJoiner names = new StringJoiner(", ");
+                StringJoiner parameters = new StringJoiner(", ");
+                for (int column = 1; column <= columns.getColumnCount(); column++) {
+                    names.add(columns.getColumnName(column));
+                    parameters.add("?");
+                }
+                try (PreparedStatement insert = to.prepareStatement("INSERT INTO " + table + " (" + names + ") VALUES (" + parameters + ")")) {
+                    int copied = 0;
+                    while (rows.next()) {
+                        for (int column = 1; column <= columns.getColumnCount(); column++) {
+                            insert.setObject(column, "change_seq".equalsIgnoreCase(columns.getColumnName(column))
+                                    ? changeSeq : rows.getObject(column));
+                        }
+                        insert.addBatch();
+                        if (++copied % copyBatchSize == 0) {
+                            insert.executeBatch();
+                        }
+                    }
+                    insert.executeBatch();
+                    return copied;
+                }
+            }
+        }
+    }
+
+    private static void delete(String owner, DataSource shard) throws SQLException {
+        try (Connection connection = shard.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                for (String table : ownerTables) {
+                    delete(connection, table, owner);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private static void delete(Connection connection, String table, String owner) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM " + table + " WHERE owner = ?")) {
+            delete.setString(1, owner);
+            delete.executeUpdate();
+        }
+    }
+}
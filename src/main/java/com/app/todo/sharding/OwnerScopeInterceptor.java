@@ -0,0 +1,48 @@
+package com.app.todo.sharding;
+
+import com.app.todo.exceptions.InvalidTodoException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Binds the `{owner}` path variable of the owner-scoped routes to the request's thread, so that {@link ShardRouting}
+ * and the service only touch that owner's to-do items. Requests without the variable act for all owners.
+ */
+@RequiredArgsConstructor
+public class OwnerScopeInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String ownerVariable = "owner";
+
+    private static final String invalidOwnerException = "Can not process Todo tasks of invalid owner ";
+
+    private final ShardRouting shardRouting;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws InvalidTodoException {
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String owner = variables == null ? null : variables.get(ownerVariable);
+        if (owner != null) {
+            if (!ShardRouting.isValidOwner(owner)) {
+                throw new InvalidTodoException(invalidOwnerException + owner);
+            }
+            shardRouting.bindOwner(owner);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        shardRouting.unbindOwner();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        shardRouting.unbindOwner();
+    }
+}
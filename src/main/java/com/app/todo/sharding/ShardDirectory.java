@@ -0,0 +1,139 @@
+package com.app.todo.sharding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The `owner_shard` table of shard 0: the shard of every owner that has ever written. A new owner is placed by the
+ * {@link ConsistentHashRing} with its first write and stays there until it is moved, so adding a shard to the ring
+ * moves nobody; the ring only decides for owners that do not exist yet.
+ *
+ * Entries are cached for `todo.sharding.directory-ttl`. A move is seen at once by the instance that made it; the
+ * others read the entry again when a write is refused by the owner's old shard, or once it expired, see
+ * {@link OwnerRebalancer}.
+ */
+@Slf4j
+public class ShardDirectory {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConsistentHashRing ring;
+    //owners with an entry
+    private final Cache<String, Integer> placements;
+    //owners without one, with the shard the ring gives them
+    private final Cache<String, Integer> unplaced;
+
+    public ShardDirectory(DataSource directoryShard, int shards, Duration ttl) {
+        this.jdbcTemplate = new JdbcTemplate(directoryShard);
+        this.ring = new ConsistentHashRing(shards);
+        this.placements = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(100_000).build();
+        this.unplaced = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(100_000).build();
+    }
+
+    /**
+     * @return the shard holding the owner's to-do items, or the one the ring gives an owner that has none yet.
+     */
+    public int shardOf(String owner) {
+        Integer shard = placements.getIfPresent(owner);
+        if (shard != null) {
+            return shard;
+        }
+        shard = find(owner);
+        if (shard != null) {
+            placements.put(owner, shard);
+            unplaced.invalidate(owner);
+            return shard;
+        }
+        return unplaced.get(owner, ring::shardFor);
+    }
+
+    /**
+     * Like {@link #shardOf(String)}, but records the ring's placement of an owner without an entry; called before
+     * the owner's writes.
+     */
+    public int place(String owner) {
+        Integer shard = placements.getIfPresent(owner);
+        if (shard != null) {
+            return shard;
+        }
+        shard = find(owner);
+        if (shard == null) {
+            shard = ring.shardFor(owner);
+            try {
+                jdbcTemplate.update("INSERT INTO owner_shard (owner, shard) VALUES (?, ?)", owner, shard);
+            } catch (DuplicateKeyException e) {
+                //placed concurrently, possibly by another instance
+                shard = find(owner);
+            }
+        }
+        placements.put(owner, shard);
+        unplaced.invalidate(owner);
+        return shard;
+    }
+
+    /**
+     * Drops the cached entry of the owner.
+     */
+    void forget(String owner) {
+        placements.invalidate(owner);
+        unplaced.invalidate(owner);
+    }
+
+    /**
+     * Points the owner to another shard; its rows have to be there already.
+     */
+    void move(String owner, int shard) {
+        if (jdbcTemplate.update("UPDATE owner_shard SET shard = ? WHERE owner = ?", shard, owner) == 0) {
+            jdbcTemplate.update("INSERT INTO owner_shard (owner, shard) VALUES (?, ?)", owner, shard);
+        }
+        placements.put(owner, shard);
+        unplaced.invalidate(owner);
+    }
+
+    /**
+     * Records the owners found in a shard's tables that have no entry yet, e.g. the rows of a database that was
+     * used before it was sharded, so that the ring does not send them elsewhere.
+     *
+     * @return the number of owners recorded.
+     */
+    public int adopt(int shard, DataSource shardDataSource) {
+        List<String> owners = new JdbcTemplate(shardDataSource).queryForList(
+                "SELECT owner FROM todo UNION SELECT owner FROM todo_archive", String.class);
+        int adopted = 0;
+        for (String owner : owners) {
+            if (find(owner) == null) {
+                jdbcTemplate.update("INSERT INTO owner_shard (owner, shard) VALUES (?, ?)", owner, shard);
+                adopted++;
+            }
+        }
+        if (adopted > 0) {
+            log.info("Recorded {} owners found on shard {} in the shard directory", adopted, shard);
+        }
+        return adopted;
+    }
+
+    /**
+     * @return the number of owners per shard, by shard.
+     */
+    Map<Integer, Long> ownersPerShard() {
+        Map<Integer, Long> owners = new TreeMap<>();
+        jdbcTemplate.query("SELECT shard, COUNT(*) FROM owner_shard GROUP BY shard",
+                row -> {
+                    owners.put(row.getInt(1), row.getLong(2));
+                });
+        return owners;
+    }
+
+    private Integer find(String owner) {
+        List<Integer> shards = jdbcTemplate.queryForList("SELECT shard FROM owner_shard WHERE owner = ?", Integer.class, owner);
+        return shards.isEmpty() ? null : shards.get(0);
+    }
+}
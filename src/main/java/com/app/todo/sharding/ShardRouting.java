@@ -0,0 +1,291 @@
+package com.app.todo.sharding;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Decides, per thread, which owner a request acts for and which shard its connections come from.
+ *
+ * The owner is bound by the {@link OwnerScopeInterceptor} for the routes under `/api/v1/owners/{owner}`; the service
+ * then only reads and writes that owner's to-do items. Without an owner the service acts for all owners: reads are
+ * gathered from every shard in parallel and merged, writes by id go to the shard of the item's owner.
+ *
+ * Connections come from shard 0 unless the code runs inside {@link #onShard(int, Supplier)}. The decision is taken
+ * when a connection is requested, so a transaction has to be begun inside the shard scope and stays on one shard.
+ *
+ * Without `todo.sharding.shard-urls` there is a single shard: no scope changes anything and no lock is taken.
+ */
+@Component
+public class ShardRouting {
+
+    private static final int lockStripes = 64;
+    //fits the owner column, and stays readable in paths and logs
+    private static final Pattern validOwner = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final ThreadLocal<String> owner = new ThreadLocal<>();
+    private final ThreadLocal<Integer> shard = new ThreadLocal<>();
+    //writes of an owner hold the read lock of its stripe, a move of the owner holds the write lock
+    private final ReentrantReadWriteLock[] placementLocks = new ReentrantReadWriteLock[lockStripes];
+
+    //set once by the sharded data source, before any repository is used
+    private volatile int shards = 1;
+    private volatile ShardDirectory directory;
+    private volatile ExecutorService gatherThreads;
+
+    public ShardRouting() {
+        for (int i = 0; i < lockStripes; i++) {
+            placementLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Switches to the given number of shards, placed by the given directory.
+     */
+    public void useShards(int shards, ShardDirectory directory) {
+        this.directory = directory;
+        AtomicInteger count = new AtomicInteger();
+        this.gatherThreads = Executors.newFixedThreadPool(shards, runnable -> {
+            Thread thread = new Thread(runnable, "todo-shard-gather-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.shards = shards;
+    }
+
+    public int shardCount() {
+        return shards;
+    }
+
+    public boolean isSharded() {
+        return shards > 1;
+    }
+
+    /**
+     * @return the owner the current request acts for, or `null` when it acts for all owners.
+     */
+    public String currentOwner() {
+        return owner.get();
+    }
+
+    /**
+     * Runs work on behalf of the given owner, e.g. on a thread the request handed it to.
+     */
+    public <T> T asOwner(String owner, Supplier<T> work) {
+        String previous = this.owner.get();
+        if (owner == null || owner.equals(previous)) {
+            return work.get();
+        }
+        this.owner.set(owner);
+        try {
+            return work.get();
+        } finally {
+            restore(this.owner, previous);
+        }
+    }
+
+    /**
+     * @return the shard holding the owner's to-do items.
+     */
+    public int shardOf(String owner) {
+        return isSharded() ? directory.shardOf(owner) : 0;
+    }
+
+    /**
+     * Drops the cached shard of the owner, after a write found it moved by another instance.
+     */
+    public void forget(String owner) {
+        if (isSharded()) {
+            directory.forget(owner);
+        }
+    }
+
+    /**
+     * Runs work whose connections come from the given shard.
+     */
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (!isSharded()) {
+            return work.get();
+        }
+        Integer previous = this.shard.get();
+        this.shard.set(shard);
+        try {
+            return work.get();
+        } finally {
+            restore(this.shard, previous);
+        }
+    }
+
+    /**
+     * See {@link #onShard(int, Supplier)}.
+     */
+    public void onShard(int shard, Runnable work) {
+        onShard(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs reads on the shard of the given owner, or in the current scope for `null`.
+     */
+    public <T> T onShardOf(String owner, Supplier<T> reads) {
+        return owner == null ? reads.get() : onShard(shardOf(owner), reads);
+    }
+
+    /**
+     * Runs writes on the shard of the given owner, placing an owner that has none yet. A move of the owner waits for
+     * them to finish, and they wait for a move to finish. Writes refused because another instance moved the owner
+     * are run again on its new shard.
+     */
+    public <T> T write(String owner, Supplier<T> writes) {
+        if (!isSharded()) {
+            return writes.get();
+        }
+        ReentrantReadWriteLock.ReadLock lock = placementLock(owner).readLock();
+        lock.lock();
+        try {
+            try {
+                return onShard(directory.place(owner), writes);
+            } catch (OwnerMovedException e) {
+                directory.forget(owner);
+                return onShard(directory.place(owner), writes);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs writes that may touch the items of any owner, like bulk deletes and the archive job, while no owner is
+     * being moved. The writes choose their shards themselves.
+     */
+    public <T> T writeAll(Supplier<T> writes) {
+        if (!isSharded()) {
+            return writes.get();
+        }
+        //always in stripe order, so that two of these can not deadlock
+        int locked = 0;
+        try {
+            for (; locked < lockStripes; locked++) {
+                placementLocks[locked].readLock().lock();
+            }
+            return writes.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                placementLocks[i].readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs reads on every shard, in parallel when there are several, each on its own thread and connection.
+     *
+     * @return the results, by shard.
+     */
+    public <T> List<T> gather(IntFunction<T> reads) {
+        List<T> results = new ArrayList<>(shards);
+        if (!isSharded()) {
+            results.add(reads.apply(0));
+            return results;
+        }
+        String current = owner.get();
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            int index = i;
+            futures.add(CompletableFuture.supplyAsync(() -> asOwner(current, () -> onShard(index, () -> reads.apply(index))), gatherThreads));
+        }
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Looks an item up by id when its owner is not known: on the shard of the current scope, or of the current owner,
+     * first, then on the others.
+     *
+     * @param lookup returns `null` when the item is not on the shard it runs on.
+     * @return the first item found, or `null`.
+     */
+    public <T> T locate(Supplier<T> lookup) {
+        if (!isSharded() || shard.get() != null) {
+            return lookup.get();
+        }
+        String current = owner.get();
+        int first = current != null ? shardOf(current) : 0;
+        for (int i = 0; i < shards; i++) {
+            T found = onShard((first + i) % shards, lookup);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether a row of the given owner read from the given shard is the owner's current copy; rows left on
+     * the previous shard, or already copied to the next one, while an owner is moved are not.
+     */
+    public boolean isPlaced(String owner, int shard) {
+        return !isSharded() || shardOf(owner) == shard;
+    }
+
+    public static boolean isValidOwner(String owner) {
+        return validOwner.matcher(owner).matches();
+    }
+
+    int currentShard() {
+        Integer current = shard.get();
+        return current == null ? 0 : current;
+    }
+
+    ShardDirectory directory() {
+        return directory;
+    }
+
+    ReentrantReadWriteLock placementLock(String owner) {
+        return placementLocks[Math.floorMod(owner.hashCode(), lockStripes)];
+    }
+
+    void bindOwner(String owner) {
+        this.owner.set(owner);
+    }
+
+    void unbindOwner() {
+        owner.remove();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (gatherThreads != null) {
+            gatherThreads.shutdownNow();
+        }
+    }
+
+    private static <T> void restore(ThreadLocal<T> local, T previous) {
+        if (previous == null) {
+            local.remove();
+        } else {
+            local.set(previous);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.app.todo.sharding;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Hands out connections of the shard chosen by {@link ShardRouting} for the current thread, shard 0 by default.
+ *
+ * The decision is taken when the connection is requested, so this has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: transactions ask for their connection
+ * when they begin, before the service has picked the shard of the owner.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource {
+
+    private final List<DataSource> shards;
+    private final ShardRouting routing;
+
+    public ShardRoutingDataSource(List<DataSource> shards, ShardRouting routing) {
+        this.shards = List.copyOf(shards);
+        this.routing = routing;
+    }
+
+    public List<DataSource> getShards() {
+        return shards;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return shards.get(routing.currentShard()).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return shards.get(routing.currentShard()).getConnection(username, password);
+    }
+
+    //the pool metrics look for the pool of shard 0
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : shards.get(0).unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || shards.get(0).isWrapperFor(iface);
+    }
+}
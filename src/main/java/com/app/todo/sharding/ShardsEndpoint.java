@@ -0,0 +1,38 @@
+package com.app.todo.sharding;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * `/actuator/shards`: the number of owners per shard, the shard of an owner (`GET /actuator/shards/{owner}`), and
+ * moving an owner to another shard (`POST /actuator/shards/{owner}` with `{"shard": 2}`), see {@link OwnerRebalancer}.
+ */
+@Endpoint(id = "shards")
+@RequiredArgsConstructor
+public class ShardsEndpoint {
+
+    private final ShardRouting shardRouting;
+    private final OwnerRebalancer rebalancer;
+
+    @ReadOperation
+    public Map<String, Object> shards() {
+        return Map.of("shards", shardRouting.shardCount(), "owners", shardRouting.directory().ownersPerShard());
+    }
+
+    @ReadOperation
+    public Map<String, Object> owner(@Selector String owner) {
+        return Map.of("owner", owner, "shard", shardRouting.shardOf(owner));
+    }
+
+    @WriteOperation
+    public Map<String, Object> move(@Selector String owner, int shard) throws SQLException {
+        long moved = rebalancer.move(owner, shard);
+        return Map.of("owner", owner, "shard", shard, "movedRows", moved);
+    }
+}
@@ -0,0 +1,184 @@
+package com.app.todo.stats;
+
+import com.app.todo.due.TodoDueIndex;
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.event.TodoChangedEvent;
+import com.app.todo.payload.TodoStats;
+import com.app.todo.repository.TodoCount;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of to-do items, kept current from {@link TodoChangedEvent}s so that reading them costs the same whatever
+ * the number of items. There is one {@link LongAdder} per combination of priority and completed state; writers
+ * update them without contending with each other, and a read sums the few counters.
+ *
+ * A deleted item is only taken from its own counter when its previous state is known, i.e. when it was cached;
+ * otherwise it is recorded as an unattributed delete: the total stays exact, the split by priority and completed
+ * state is corrected by the next reconciliation. The overdue count comes from the {@link TodoDueIndex}.
+ *
+ * The counters start at zero and are seeded, and later corrected, by the {@link TodoStatisticsReconciler}.
+ */
+@Component
+@RequiredArgsConstructor
+public class TodoStatistics {
+
+    private static final Priority[] priorities = Priority.values();
+    //counter slot of the items without priority, after the slots of the priorities
+    private static final int noPriority = priorities.length;
+
+    private final TodoDueIndex dueIndex;
+
+    //indexed by `slot * 2 + (completed ? 1 : 0)`
+    private final LongAdder[] counts = newCounters((priorities.length + 1) * 2);
+    private final LongAdder unattributedDeletes = new LongAdder();
+    //correction of the overdue count of the due index
+    private final LongAdder overdueCorrection = new LongAdder();
+    //number of events applied; lets the reconciler notice writes that raced with its query
+    private final LongAdder changes = new LongAdder();
+
+    @EventListener
+    public void onTodoChanged(TodoChangedEvent event) {
+        Todo previous = event.getPrevious();
+        Todo todo = event.getTodo();
+        switch (event.getType()) {
+            case CREATED, RESTORED -> counter(todo).increment();
+            case UPDATED, TOGGLED -> {
+                if (previous != null) {
+                    counter(previous).decrement();
+                    counter(todo).increment();
+                }
+            }
+            //archived items are no longer counted, like the rows of the table the reconciler counts
+            case ARCHIVED -> counter(previous).decrement();
+            case DELETED -> {
+                if (previous != null) {
+                    counter(previous).decrement();
+                } else {
+                    unattributedDeletes.increment();
+                }
+            }
+            case CLEARED -> {
+                //subtracting what is there keeps the increments of concurrent creates
+                for (LongAdder count : counts) {
+                    count.add(-count.sum());
+                }
+                unattributedDeletes.add(-unattributedDeletes.sum());
+            }
+        }
+        changes.increment();
+    }
+
+    /**
+     * @param now the current time, for the overdue count.
+     * @return the current counts.
+     */
+    public TodoStats snapshot(LocalDateTime now) {
+        long total = -unattributedDeletes.sum();
+        long completed = 0;
+        Map<Priority, Long> byPriority = new EnumMap<>(Priority.class);
+        for (int slot = 0; slot <= noPriority; slot++) {
+            long open = counts[slot * 2].sum();
+            long done = counts[slot * 2 + 1].sum();
+            if (slot < noPriority) {
+                byPriority.put(priorities[slot], open + done);
+            }
+            total += open + done;
+            completed += done;
+        }
+        long overdue = dueIndex.overdueCount(now) + overdueCorrection.sum();
+        return new TodoStats(total, completed, Math.max(0, total - completed), Math.max(0, overdue), byPriority,
+                counts[noPriority * 2].sum() + counts[noPriority * 2 + 1].sum());
+    }
+
+    /**
+     * Counts a subset of the items the counters do not keep apart, e.g. those of one owner.
+     *
+     * @param groups the result of {@link com.app.todo.repository.TodoRepository#countByOwnerPriorityAndCompleted}.
+     * @return the counts of the grouped items.
+     */
+    public static TodoStats count(List<TodoCount> groups) {
+        long total = 0;
+        long completed = 0;
+        long overdue = 0;
+        long withoutPriority = 0;
+        Map<Priority, Long> byPriority = new EnumMap<>(Priority.class);
+        for (Priority priority : priorities) {
+            byPriority.put(priority, 0L);
+        }
+        for (TodoCount group : groups) {
+            total += group.getCount();
+            if (Boolean.TRUE.equals(group.getCompleted())) {
+                completed += group.getCount();
+            }
+            overdue += group.getOverdue();
+            if (group.getPriority() == null) {
+                withoutPriority += group.getCount();
+            } else {
+                byPriority.merge(group.getPriority(), group.getCount(), Long::sum);
+            }
+        }
+        return new TodoStats(total, completed, total - completed, overdue, byPriority, withoutPriority);
+    }
+
+    /**
+     * @return the number of events applied so far.
+     */
+    long changes() {
+        return changes.sum();
+    }
+
+    /**
+     * Adds the difference to the counts read from the database to every counter, and consumes the unattributed
+     * deletes, which the database counts already reflect.
+     *
+     * @param groups the result of {@link com.app.todo.repository.TodoRepository#countByPriorityAndCompleted}.
+     * @param now the time the groups were counted at.
+     * @return the sum of the corrections, in items.
+     */
+    long correct(List<TodoCount> groups, LocalDateTime now) {
+        long[] expected = new long[counts.length];
+        long expectedOverdue = 0;
+        for (TodoCount group : groups) {
+            int slot = group.getPriority() == null ? noPriority : group.getPriority().ordinal();
+            expected[slot * 2 + (Boolean.TRUE.equals(group.getCompleted()) ? 1 : 0)] += group.getCount();
+            expectedOverdue += group.getOverdue();
+        }
+        long unattributed = unattributedDeletes.sum();
+        long drift = 0;
+        for (int i = 0; i < counts.length; i++) {
+            long difference = expected[i] - counts[i].sum();
+            counts[i].add(difference);
+            drift += Math.abs(difference);
+        }
+        unattributedDeletes.add(-unattributed);
+        //while the due index is loading its count is incomplete, not wrong
+        if (dueIndex.isLoaded()) {
+            long difference = expectedOverdue - dueIndex.overdueCount(now) - overdueCorrection.sum();
+            overdueCorrection.add(difference);
+            drift += Math.abs(difference);
+        }
+        return drift;
+    }
+
+    private LongAdder counter(Todo todo) {
+        int slot = todo.getPriority() == null ? noPriority : todo.getPriority().ordinal();
+        return counts[slot * 2 + (Boolean.TRUE.equals(todo.getCompleted()) ? 1 : 0)];
+    }
+
+    private static LongAdder[] newCounters(int size) {
+        LongAdder[] counters = new LongAdder[size];
+        for (int i = 0; i < size; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+}
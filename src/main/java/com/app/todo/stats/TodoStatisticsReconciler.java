@@ -0,0 +1,70 @@
+package com.app.todo.stats;
+
+import com.app.todo.buffer.TodoToggleBuffer;
+import com.app.todo.repository.TodoCount;
+import com.app.todo.repository.TodoRepository;
+import com.app.todo.sharding.ShardRouting;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Seeds the {@link TodoStatistics} once the application is ready, and every `todo.stats.reconcile-interval-ms`
+ * compares them to a `GROUP BY` over the table, on every shard, and corrects any drift.
+ *
+ * A write whose event is applied while the query runs may or may not be in its result, so such a run is repeated;
+ * after a few busy attempts the result is used anyway, and a write it miscounted is put right by the next run.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TodoStatisticsReconciler {
+
+    private static final int maxAttempts = 3;
+
+    private final TodoRepository todoRepository;
+    private final TodoToggleBuffer toggleBuffer;
+    private final TodoStatistics statistics;
+    private final ShardRouting shardRouting;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long start = System.nanoTime();
+        reconcile();
+        log.info("Seeded to-do statistics with {} items in {} ms", statistics.snapshot(LocalDateTime.now()).getTotal(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Scheduled(initialDelayString = "${todo.stats.reconcile-interval-ms:60000}", fixedDelayString = "${todo.stats.reconcile-interval-ms:60000}")
+    public void scheduledReconcile() {
+        long drift = reconcile();
+        if (drift > 0) {
+            log.info("Corrected drift of {} in the to-do statistics", drift);
+        }
+    }
+
+    /**
+     * @return the sum of the corrections, in items.
+     */
+    public long reconcile() {
+        for (int attempt = 1; ; attempt++) {
+            //the counters include buffered toggles, the database only once they are written
+            if (toggleBuffer.hasPending()) {
+                toggleBuffer.flush();
+            }
+            long changes = statistics.changes();
+            LocalDateTime now = LocalDateTime.now();
+            List<TodoCount> groups = shardRouting.gather(shard -> todoRepository.countByPriorityAndCompleted(now))
+                    .stream().flatMap(List::stream).toList();
+            if (attempt == maxAttempts || (statistics.changes() == changes && !toggleBuffer.hasPending())) {
+                return statistics.correct(groups, now);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.app.todo.sync;
+
+import com.app.todo.entity.TodoChangeCounter;
+import com.app.todo.repository.ChangePosition;
+import com.app.todo.repository.TodoArchiveRepository;
+import com.app.todo.repository.TodoChangeCounterRepository;
+import com.app.todo.repository.TodoRepository;
+import com.app.todo.repository.TodoTombstoneRepository;
+import com.app.todo.sharding.OwnerMovedException;
+import com.app.todo.sharding.ShardRouting;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hands out the change sequence numbers written to `Todo.changeSeq` and `TodoTombstone.changeSeq`, and tells up to
+ * which number the delta sync may read.
+ *
+ * Every shard counts its own positions in its `todo_change_counter` row, which a write increments in its own
+ * transaction before it touches any row. The row stays locked until the write commits or rolls back, so the writes
+ * of a shard, whichever instance runs them, commit in the order of their positions: everything up to the committed
+ * value of the counter is visible, and a reader never moves its cursor past a write still in flight.
+ *
+ * On a shard an owner was moved away from, the owner's writes are refused with an {@link OwnerMovedException}, see
+ * {@link com.app.todo.sharding.OwnerRebalancer}. The fences are read after the counter was taken, in the same
+ * transaction, so a move that fenced the owner while holding the counter has committed by then.
+ */
+@Component
+public class TodoChangeSequence {
+
+    private final TodoChangeCounterRepository counterRepository;
+    private final ShardRouting shardRouting;
+
+    public TodoChangeSequence(TodoRepository todoRepository, TodoTombstoneRepository tombstoneRepository,
+                              TodoArchiveRepository archiveRepository, TodoChangeCounterRepository counterRepository,
+                              ShardRouting shardRouting) {
+        this.counterRepository = counterRepository;
+        this.shardRouting = shardRouting;
+        //archived rows keep their number and come back with it when they are restored
+        long highest = shardRouting.gather(shard -> Math.max(Math.max(todoRepository.findMaxChangeSeq(),
+                        tombstoneRepository.findMaxChangeSeq()), archiveRepository.findMaxChangeSeq()))
+                .stream().mapToLong(Long::longValue).max().orElse(0);
+        //cursors from before the shards counted on their own hold positions of a single sequence over all of them;
+        //on this thread, the transactions look up beans that are still being created
+        for (int shard = 0; shard < shardRouting.shardCount(); shard++) {
+            shardRouting.onShard(shard, () -> counterRepository.existsById(TodoChangeCounter.rowId)
+                    ? counterRepository.raise(highest) : createCounter(highest));
+        }
+    }
+
+    /**
+     * Takes the position of a write on the current shard. Has to run in the write's transaction, before any row is
+     * written; other writes to the shard wait until it ends.
+     *
+     * @param owner the owner of the items written, or `null` when they are not known, e.g. in a bulk write over all owners.
+     * @return the number of the write.
+     * @throws OwnerMovedException if the owner was moved to another shard.
+     */
+    public long next(String owner) {
+        return next(owner == null ? List.of() : List.of(owner));
+    }
+
+    /**
+     * See {@link #next(String)}.
+     *
+     * @param owners the owners of the items written.
+     */
+    public long next(Collection<String> owners) {
+        counterRepository.increment();
+        if (!shardRouting.isSharded() || owners.isEmpty()) {
+            return counterRepository.findLastSeq();
+        }
+        ChangePosition position = counterRepository.findPosition(owners);
+        if (position.getFenced() > 0) {
+            //rolls the write back, with its position
+            throw new OwnerMovedException(owners);
+        }
+        return position.getSeq();
+    }
+
+    /**
+     * @return by shard, the highest number up to which all writes have committed.
+     */
+    public List<Long> visibleUpTo() {
+        return shardRouting.gather(shard -> counterRepository.findLastSeq());
+    }
+
+    private int createCounter(long lastSeq) {
+        try {
+            return counterRepository.create(lastSeq);
+        } catch (DataIntegrityViolationException e) {
+            //created concurrently by another instance
+            return counterRepository.raise(lastSeq);
+        }
+    }
+}
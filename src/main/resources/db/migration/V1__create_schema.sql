@@ -0,0 +1,53 @@
+-- the schema Hibernate generated with ddl-auto before migrations were introduced; existing databases are
+-- baselined at this version instead of running it
+
+create table todo (
+    completed bit not null,
+    change_seq bigint not null,
+    created_at datetime(6),
+    due_date datetime(6),
+    id bigint not null,
+    updated_at datetime(6),
+    version bigint not null,
+    description varchar(255),
+    title varchar(255) not null,
+    priority enum ('HIGH','LOW','MEDIUM'),
+    primary key (id)
+) engine=InnoDB;
+
+create table todo_archive (
+    completed bit not null,
+    archived_at datetime(6) not null,
+    change_seq bigint not null,
+    created_at datetime(6),
+    due_date datetime(6),
+    id bigint not null,
+    updated_at datetime(6),
+    version bigint not null,
+    description varchar(255),
+    title varchar(255) not null,
+    priority enum ('HIGH','LOW','MEDIUM'),
+    primary key (id)
+) engine=InnoDB;
+
+-- MySQL has no sequences, Hibernate emulates todo_seq with a single-row table
+create table todo_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into todo_seq values ( 1 );
+
+create table todo_tombstone (
+    change_seq bigint not null,
+    deleted_at datetime(6) not null,
+    todo_id bigint not null,
+    primary key (todo_id)
+) engine=InnoDB;
+
+create index idx_todo_completed_due_date on todo (completed, due_date);
+
+create index idx_todo_priority_due_date on todo (priority, due_date);
+
+create index idx_todo_change_seq on todo (change_seq, id);
+
+create index idx_todo_tombstone_change_seq on todo_tombstone (change_seq, todo_id);
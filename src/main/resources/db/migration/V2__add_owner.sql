@@ -0,0 +1,22 @@
+-- owners partition the to-do items; the rows that exist already belong to the default owner
+
+alter table todo add column owner varchar(64) not null default 'default';
+
+alter table todo_archive add column owner varchar(64) not null default 'default';
+
+alter table todo_tombstone add column owner varchar(64) not null default 'default';
+
+create index idx_todo_owner_id on todo (owner, id);
+
+create index idx_todo_owner_change_seq on todo (owner, change_seq, id);
+
+create index idx_todo_archive_owner_id on todo_archive (owner, id);
+
+create index idx_todo_tombstone_owner_change_seq on todo_tombstone (owner, change_seq, todo_id);
+
+-- the shard of every owner, only used on shard 0 when todo.sharding.shard-urls is set
+create table owner_shard (
+    owner varchar(64) not null,
+    shard integer not null,
+    primary key (owner)
+) engine=InnoDB;
@@ -0,0 +1,7 @@
+-- the lease on the change sequence of the delta sync, held by one instance at a time; only used on shard 0
+create table instance_lease (
+    name varchar(64) not null,
+    holder varchar(128) not null,
+    expires_at datetime(6) not null,
+    primary key (name)
+) engine=InnoDB;
@@ -0,0 +1,19 @@
+-- the change sequence is no longer kept in the memory of a single instance holding a lease; every write takes its
+-- position from the counter of its database, in its own transaction
+drop table instance_lease;
+
+create table todo_change_counter (
+    id integer not null,
+    last_seq bigint not null,
+    primary key (id)
+) engine=InnoDB;
+
+insert into todo_change_counter (id, last_seq)
+select 1, greatest(coalesce((select max(change_seq) from todo), 0), coalesce((select max(change_seq) from todo_tombstone), 0),
+    coalesce((select max(change_seq) from todo_archive), 0));
+
+-- owners moved away from this database: writes of instances that still send them here are refused
+create table owner_fence (
+    owner varchar(64) not null,
+    primary key (owner)
+) engine=InnoDB;
@@ -0,0 +1,51 @@
+package com.app.todo;
+
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.exceptions.TodoNotFoundException;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.service.TodoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Boots the prod profile on H2 in MySQL mode: the schema comes from the Flyway migrations alone and Hibernate
+ * validates the entities against it, so a mapping change without a migration fails here.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:todo_migrated;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@ActiveProfiles({"test", "prod"})
+class TodoMigrationTests {
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migratedSchemaMatchesTheEntities() throws Exception {
+        assertThat(jdbcTemplate.queryForList("SELECT version FROM flyway_schema_history WHERE success AND version IS NOT NULL", String.class))
+                .containsExactly("1", "2", "3", "4");
+
+        //ids from the todo_seq table, archive and tombstone tables
+        Todo todo = todoService.addTodo(new AddTodoRequest("migrated", null, LocalDateTime.now().plusDays(1), Priority.HIGH));
+        todoService.markOrUnmarkedAsCompleted(todo.getId());
+        todoService.archiveCompleted(LocalDateTime.now().plusMinutes(1), 0, 10);
+        assertThat(todoService.getTodoById(todo.getId()).getCompleted()).isTrue();
+        todoService.deleteById(todo.getId());
+
+        assertThatThrownBy(() -> todoService.getTodoById(todo.getId())).isInstanceOf(TodoNotFoundException.class);
+        assertThat(todoService.getChanges("0-0", 10).getDeleted()).containsExactly(todo.getId());
+    }
+}
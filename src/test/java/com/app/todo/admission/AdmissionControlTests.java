@@ -0,0 +1,187 @@
+package com.app.todo.admission;
+
+import com.app.todo.entity.Priority;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.service.TodoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Slows every statement down as an overloaded MySQL would and sends more concurrent list requests than the
+ * connection pool can serve: the list bulkhead shrinks its limit, so the requests it admits stay close to the
+ * latency target while the others are turned away at once and come back after `Retry-After`. A stream, slow as it
+ * may be, goes through a bulkhead of its own that does not adapt.
+ */
+@SpringBootTest(properties = {
+        "todo.admission.list.latency-target=200ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdmissionControlTests {
+
+    private static final int clients = 96;
+    private static final long statementLatencyMillis = 50;
+
+    //per statement, zero while the data is seeded
+    private static volatile long latencyMillis;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private Map<RouteClass, Bulkhead> bulkheads;
+
+    @AfterEach
+    void removeLatency() {
+        latencyMillis = 0;
+    }
+
+    @Test
+    void keepsAdmittedListLatencyBoundedWhenTheDatabaseSlowsDown() throws Exception {
+        long id = todoService.addTodo(new AddTodoRequest("cheap", null, LocalDateTime.now().plusDays(1), Priority.LOW)).getId();
+        //loaded into the cache before the database slows down
+        todoService.getTodoById(id);
+        latencyMillis = statementLatencyMillis;
+
+        List<Long> admitted = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger cheapReads = new AtomicInteger();
+        List<String> retryAfter = Collections.synchronizedList(new ArrayList<>());
+        //the limit starts above what the pool can serve and needs a few round trips to come down
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        long deadline = measureFrom + TimeUnit.SECONDS.toNanos(8);
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients + 1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            futures.add(executor.submit(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    MockHttpServletResponse response = mockMvc.perform(get("/api/v1/todos/page")).andReturn().getResponse();
+                    if (response.getStatus() == 200) {
+                        if (start > measureFrom) {
+                            admitted.add(System.nanoTime() - start);
+                        }
+                    } else {
+                        assertThat(response.getStatus()).isEqualTo(503);
+                        retryAfter.add(response.getHeader("Retry-After"));
+                        rejected.incrementAndGet();
+                        TimeUnit.SECONDS.sleep(Long.parseLong(response.getHeader("Retry-After")));
+                    }
+                }
+                return null;
+            }));
+        }
+        //the read bulkhead is separate: cached single reads keep being served
+        futures.add(executor.submit(() -> {
+            while (System.nanoTime() < deadline) {
+                assertThat(mockMvc.perform(get("/api/v1/todos/" + id)).andReturn().getResponse().getStatus()).isEqualTo(200);
+                cheapReads.incrementAndGet();
+                Thread.sleep(10);
+            }
+            return null;
+        }));
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long[] latencies = admitted.stream().mapToLong(Long::longValue).sorted().toArray();
+        long p99Millis = TimeUnit.NANOSECONDS.toMillis(latencies[(int) (latencies.length * 0.99)]);
+
+        assertThat(rejected.get()).isPositive();
+        assertThat(retryAfter).containsOnly("1");
+        assertThat(cheapReads.get()).isPositive();
+        //about 1.7 s without admission control on the same machine
+        assertThat(p99Millis).isLessThan(800);
+    }
+
+    @Test
+    void streamsDoNotCountAsListOverload() throws Exception {
+        todoService.addTodo(new AddTodoRequest("streamed", null, LocalDateTime.now().plusDays(1), Priority.LOW));
+        int listLimit = bulkheads.get(RouteClass.LIST).getLimit();
+        //slower than the list latency target, as a stream read by a slow client is
+        latencyMillis = 300;
+
+        MvcResult result = mockMvc.perform(get("/api/v1/todos").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(bulkheads.get(RouteClass.STREAM).getInFlight()).isOne();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        assertThat(bulkheads.get(RouteClass.STREAM).getInFlight()).isZero();
+        assertThat(bulkheads.get(RouteClass.STREAM).getLimit()).isEqualTo(RouteClass.STREAM.getInitialLimit());
+        assertThat(bulkheads.get(RouteClass.LIST).getLimit()).isEqualTo(listLimit);
+    }
+
+    @TestConfiguration
+    static class SlowDatabase {
+
+        @Bean
+        static BeanPostProcessor slowDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? delayed(DataSource.class, dataSource) : bean;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T delayed(Class<T> type, Object target) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                if (target instanceof Statement && method.getName().startsWith("execute") && latencyMillis > 0) {
+                    TimeUnit.MILLISECONDS.sleep(latencyMillis);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+                if (result instanceof Connection connection && type == DataSource.class) {
+                    return delayed(Connection.class, connection);
+                }
+                if (result instanceof Statement statement && type == Connection.class) {
+                    return delayed(method.getReturnType(), statement);
+                }
+                return result;
+            });
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.app.todo.buffer;
+
+import com.app.todo.due.TodoDueIndex;
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.TodoFilter;
+import com.app.todo.payload.UpdateTodo;
+import com.app.todo.repository.TodoRepository;
+import com.app.todo.service.TodoService;
+import com.app.todo.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//flushes only happen when a test asks for them
+@SpringBootTest(properties = {"todo.toggles.write-behind=true", "todo.toggles.flush-interval-ms=3600000"})
+@ActiveProfiles("test")
+@Import(StatementCounter.class)
+class TodoToggleBufferTests {
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private TodoToggleBuffer toggleBuffer;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TodoDueIndex dueIndex;
+
+    private Todo first;
+    private Todo second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        todoService.deleteAll();
+        first = todoService.addTodo(new AddTodoRequest("first", null, LocalDateTime.now().plusDays(1), Priority.LOW));
+        second = todoService.addTodo(new AddTodoRequest("second", null, LocalDateTime.now().plusDays(1), Priority.LOW));
+        //warming the entity cache
+        todoService.getTodoById(first.getId());
+        todoService.getTodoById(second.getId());
+        statementCounter.reset();
+    }
+
+    @Test
+    void coalescesTogglesAndWritesThemInOneStatement() {
+        for (int i = 0; i < 3; i++) {
+            todoService.markOrUnmarkedAsCompleted(first.getId());
+        }
+        todoService.markOrUnmarkedAsCompleted(second.getId());
+        todoService.markOrUnmarkedAsCompleted(second.getId());
+
+        assertThat(statementCounter.executions()).isZero();
+        Todo pending = todoService.getTodoById(first.getId());
+        assertThat(pending.getCompleted()).isTrue();
+        assertThat(pending.getVersion()).isEqualTo(first.getVersion() + 3);
+        assertThat(todoService.getTodoById(second.getId()).getVersion()).isEqualTo(second.getVersion() + 2);
+        assertThat(todoService.getAllTodos()).extracting(Todo::getCompleted).containsExactly(true, false);
+
+        statementCounter.reset();
+        assertThat(toggleBuffer.flush()).isEqualTo(2);
+
+        //one statement per number of toggles, each after taking its position in the change sequence
+        assertThat(statementCounter.executions()).isEqualTo(2 * 3);
+        Todo stored = todoRepository.findById(first.getId()).orElseThrow();
+        assertThat(stored.getCompleted()).isTrue();
+        assertThat(stored.getVersion()).isEqualTo(pending.getVersion());
+        Todo storedSecond = todoRepository.findById(second.getId()).orElseThrow();
+        assertThat(storedSecond.getCompleted()).isFalse();
+        assertThat(storedSecond.getVersion()).isEqualTo(second.getVersion() + 2);
+        //only the position in the change sequence and the update time are assigned by the flush
+        assertThat(todoService.getTodoById(first.getId())).usingRecursiveComparison()
+                .ignoringFields("changeSeq", "updatedAt").isEqualTo(pending);
+    }
+
+    @Test
+    void writesPendingToggleBeforeAnUpdateBasedOnIt() {
+        Todo toggled = todoService.markOrUnmarkedAsCompleted(first.getId());
+
+        Todo updated = todoService.updateTodo(first.getId(), new UpdateTodo("renamed", null, Priority.HIGH, null), toggled.getVersion());
+
+        assertThat(updated.getCompleted()).isTrue();
+        Todo stored = todoRepository.findById(first.getId()).orElseThrow();
+        assertThat(stored.getTitle()).isEqualTo("renamed");
+        assertThat(stored.getCompleted()).isTrue();
+        assertThat(toggleBuffer.hasPending()).isFalse();
+    }
+
+    @Test
+    void acceptsAnUpdateBasedOnTogglesThatCancelledOut() {
+        todoService.markOrUnmarkedAsCompleted(first.getId());
+        Todo toggledBack = todoService.markOrUnmarkedAsCompleted(first.getId());
+        LocalDateTime now = LocalDateTime.now();
+
+        LocalDateTime later = now.plusHours(30);
+        Todo updated = todoService.updateTodo(first.getId(), new UpdateTodo("first", null, Priority.LOW, later), toggledBack.getVersion());
+
+        assertThat(updated.getCompleted()).isFalse();
+        assertThat(updated.getVersion()).isEqualTo(toggledBack.getVersion() + 1);
+        assertThat(todoRepository.findById(first.getId()).orElseThrow().getVersion()).isEqualTo(updated.getVersion());
+        //the update is newer than the toggles the due index saw, so the item moved out of the next day
+        assertThat(dueIndex.dueBetween(now, now.plusHours(24), 10)).containsExactly(second.getId());
+        assertThat(dueIndex.dueBetween(now, now.plusHours(36), 10)).contains(first.getId());
+    }
+
+    @Test
+    void filtersOnTheCompletedFlagIncludingPendingToggles() throws Exception {
+        todoService.markOrUnmarkedAsCompleted(second.getId());
+
+        TodoFilter completed = new TodoFilter(true, Set.of(), null, null);
+        assertThat(todoService.findTodos(completed, Sort.unsorted())).extracting(Todo::getTitle).containsExactly("second");
+    }
+}
@@ -0,0 +1,360 @@
+package com.app.todo.controller;
+
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.UpdateTodo;
+import com.app.todo.repository.TodoRepository;
+import com.app.todo.service.TodoService;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TodoControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        todoService.deleteAll();
+        for (int i = 0; i < 5; i++) {
+            todoService.addTodo(new AddTodoRequest("todo " + i, "description " + i, LocalDateTime.now().plusDays(1), Priority.LOW));
+        }
+    }
+
+    @Test
+    void pagesThroughAllTodosWithCursor() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/v1/todos/page").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andReturn();
+        String cursor = first.getResponse().getContentAsString().replaceAll(".*\"nextCursor\":(\\d+).*", "$1");
+
+        mockMvc.perform(get("/api/v1/todos/page").param("size", "3").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].title").value("todo 3"))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    void streamsTodosAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/todos").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body.split("\n")).hasSize(5).allMatch(line -> line.startsWith("{\"id\":"));
+    }
+
+    @Test
+    void returnsJsonListByDefault() throws Exception {
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/json"))
+                .andExpect(jsonPath("$", hasSize(5)));
+    }
+
+    @Test
+    void negotiatesCborAndSmileLists() throws Exception {
+        MvcResult cbor = mockMvc.perform(get("/api/v1/todos").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andExpect(header().string("ETag", endsWith("-cbor\"")))
+                .andReturn();
+        JsonNode todos = Jackson2ObjectMapperBuilder.cbor().build().readTree(cbor.getResponse().getContentAsByteArray());
+        assertThat(todos).hasSize(5);
+        assertThat(todos.get(0).get("title").asText()).isEqualTo("todo 0");
+
+        //the filtered list is negotiated as well; the lower quality of JSON wins over its order
+        MvcResult smile = mockMvc.perform(get("/api/v1/todos").param("completed", "false")
+                        .header("Accept", "application/json;q=0.5, application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+                .andExpect(header().stringValues("Vary", hasItem("Accept")))
+                .andReturn();
+        assertThat(Jackson2ObjectMapperBuilder.smile().build().readTree(smile.getResponse().getContentAsByteArray())).hasSize(5);
+
+        mockMvc.perform(get("/api/v1/todos").accept("application/cbor").header("If-None-Match", cbor.getResponse().getHeader("ETag")))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void compressesListsAboveTheMinimumSize() throws Exception {
+        //five items stay below the threshold
+        mockMvc.perform(get("/api/v1/todos").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+
+        for (int i = 5; i < 100; i++) {
+            todoService.addTodo(new AddTodoRequest("todo " + i, "description " + i, null, Priority.LOW));
+        }
+        byte[] plain = mockMvc.perform(get("/api/v1/todos"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        MvcResult gzip = mockMvc.perform(get("/api/v1/todos").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", startsWith("W/")))
+                .andReturn();
+        byte[] compressed = gzip.getResponse().getContentAsByteArray();
+        assertThat(compressed.length).isLessThan(plain.length / 4);
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes()).isEqualTo(plain);
+
+        MvcResult deflate = mockMvc.perform(get("/api/v1/todos").accept("application/cbor").header("Accept-Encoding", "deflate"))
+                .andExpect(header().string("Content-Encoding", "deflate"))
+                .andReturn();
+        byte[] cbor = new InflaterInputStream(new ByteArrayInputStream(deflate.getResponse().getContentAsByteArray())).readAllBytes();
+        assertThat(Jackson2ObjectMapperBuilder.cbor().build().readTree(cbor)).hasSize(100);
+
+        mockMvc.perform(get("/api/v1/todos").header("Accept-Encoding", "gzip").header("If-None-Match", gzip.getResponse().getHeader("ETag")))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void createsBatchOfTodos() throws Exception {
+        String dueDate = LocalDateTime.now().plusDays(2).withNano(0).toString();
+        String body = "[{\"title\":\"a\",\"dueDate\":\"" + dueDate + "\"},{\"title\":\"b\",\"priority\":\"HIGH\"}]";
+
+        mockMvc.perform(post("/api/v1/todos/batch").contentType("application/json").content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].priority").value("HIGH"))
+                .andExpect(jsonPath("$[0].id").isNumber());
+    }
+
+    @Test
+    void answersConditionalListReadWithNotModifiedUntilAWrite() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/todos").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        todoService.addTodo(new AddTodoRequest("new", null, LocalDateTime.now().plusDays(1), Priority.HIGH));
+
+        mockMvc.perform(get("/api/v1/todos").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(6)));
+    }
+
+    @Test
+    void answersConditionalItemReadWithNotModifiedUntilAWrite() throws Exception {
+        Todo todo = todoService.getTodosPage(null, 1).getItems().get(0);
+        String etag = mockMvc.perform(get("/api/v1/todos/{id}", todo.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/todos/{id}", todo.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        todoService.markOrUnmarkedAsCompleted(todo.getId());
+
+        mockMvc.perform(get("/api/v1/todos/{id}", todo.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(true));
+    }
+
+    @Test
+    void rejectsUpdateBasedOnAnOutdatedEtag() throws Exception {
+        Todo todo = todoService.getTodosPage(null, 1).getItems().get(0);
+        String etag = mockMvc.perform(get("/api/v1/todos/{id}", todo.getId()))
+                .andReturn().getResponse().getHeader("ETag");
+        String body = "{\"title\":\"renamed\",\"priority\":\"HIGH\"}";
+
+        String newEtag = mockMvc.perform(put("/api/v1/todos/{id}", todo.getId()).header("If-Match", etag)
+                        .contentType("application/json").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("renamed"))
+                .andExpect(jsonPath("$.createdAt").isNotEmpty())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(newEtag).isNotEqualTo(etag);
+
+        mockMvc.perform(put("/api/v1/todos/{id}", todo.getId()).header("If-Match", etag)
+                        .contentType("application/json").content(body))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void filtersAndSortsTodos() throws Exception {
+        todoService.addTodo(new AddTodoRequest("urgent", null, LocalDateTime.now().plusHours(2), Priority.HIGH));
+        todoService.addTodo(new AddTodoRequest("later", null, LocalDateTime.now().plusDays(5), Priority.HIGH));
+        Todo done = todoService.addTodo(new AddTodoRequest("done", null, LocalDateTime.now().plusHours(3), Priority.MEDIUM));
+        todoService.markOrUnmarkedAsCompleted(done.getId());
+
+        mockMvc.perform(get("/api/v1/todos")
+                        .param("completed", "false")
+                        .param("priority", "HIGH", "MEDIUM")
+                        .param("dueTo", LocalDateTime.now().plusDays(3).toString())
+                        .param("sort", "dueDate,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title").value("urgent"));
+
+        mockMvc.perform(get("/api/v1/todos").param("priority", "HIGH").param("sort", "dueDate,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("later"));
+
+        mockMvc.perform(get("/api/v1/todos").param("sort", "description"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void deletesCompletedTodosAndReportsTheCount() throws Exception {
+        List<Todo> todos = todoService.getTodosPage(null, 5).getItems();
+        todoService.markOrUnmarkedAsCompleted(todos.get(0).getId());
+        todoService.markOrUnmarkedAsCompleted(todos.get(3).getId());
+
+        mockMvc.perform(delete("/api/v1/todos").param("completed", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2));
+
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[*].completed", everyItem(is(false))));
+
+        mockMvc.perform(delete("/api/v1/todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(3));
+    }
+
+    @Test
+    void rejectsDeleteWithMisspelledOrEmptyFilter() throws Exception {
+        mockMvc.perform(delete("/api/v1/todos").param("completd", "true"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/v1/todos").param("priority", ""))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/v1/todos/page"))
+                .andExpect(jsonPath("$.items", hasSize(5)));
+    }
+
+    @Test
+    void searchesTitleAndDescription() throws Exception {
+        todoService.addTodo(new AddTodoRequest("Buy groceries", "milk and bread", LocalDateTime.now().plusDays(1), Priority.LOW));
+        todoService.addTodo(new AddTodoRequest("Bread", "bake a bread", LocalDateTime.now().plusDays(1), Priority.LOW));
+
+        mockMvc.perform(get("/api/v1/todos/search").param("q", "brea"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].title").value("Bread"));
+
+        mockMvc.perform(get("/api/v1/todos/search").param("q", "?"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listsOverdueAndUpcomingTodos() throws Exception {
+        List<Todo> todos = todoService.getTodosPage(null, 5).getItems();
+        todoService.updateTodo(todos.get(2).getId(), new UpdateTodo("late", null, Priority.LOW, LocalDateTime.now().minusHours(3)), null);
+        todoService.updateTodo(todos.get(4).getId(), new UpdateTodo("later", null, Priority.LOW, LocalDateTime.now().plusDays(3)), null);
+        todoService.markOrUnmarkedAsCompleted(todos.get(0).getId());
+
+        mockMvc.perform(get("/api/v1/todos/overdue"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title").value("late"));
+
+        mockMvc.perform(get("/api/v1/todos/upcoming").param("hours", "48"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].title", everyItem(startsWith("todo"))));
+    }
+
+    @Test
+    void countsTodosByPriorityCompletedAndOverdue() throws Exception {
+        List<Todo> todos = todoService.getTodosPage(null, 5).getItems();
+        todoService.updateTodo(todos.get(1).getId(), new UpdateTodo("late", null, Priority.HIGH, LocalDateTime.now().minusHours(3)), null);
+        todoService.markOrUnmarkedAsCompleted(todos.get(0).getId());
+        //cached, so the delete is taken from the LOW count right away
+        todoService.getTodoById(todos.get(4).getId());
+        todoService.deleteById(todos.get(4).getId());
+
+        mockMvc.perform(get("/api/v1/todos/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(4))
+                .andExpect(jsonPath("$.completed").value(1))
+                .andExpect(jsonPath("$.open").value(3))
+                .andExpect(jsonPath("$.overdue").value(1))
+                .andExpect(jsonPath("$.byPriority.LOW").value(3))
+                .andExpect(jsonPath("$.byPriority.HIGH").value(1))
+                .andExpect(jsonPath("$.byPriority.MEDIUM").value(0));
+    }
+
+    @Test
+    void syncsChangesAfterACursor() throws Exception {
+        MvcResult full = mockMvc.perform(get("/api/v1/todos/changes").param("size", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed", hasSize(3)))
+                .andExpect(jsonPath("$.hasMore").value(true))
+                .andReturn();
+        String cursor = full.getResponse().getContentAsString().replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+        cursor = mockMvc.perform(get("/api/v1/todos/changes").param("since", cursor))
+                .andExpect(jsonPath("$.changed", hasSize(2)))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andReturn().getResponse().getContentAsString().replaceAll(".*\"nextCursor\":\"([^\"]+)\".*", "$1");
+
+        List<Todo> todos = todoService.getTodosPage(null, 5).getItems();
+        todoService.updateTodo(todos.get(3).getId(), new UpdateTodo("renamed", null, Priority.LOW, null), null);
+        todoService.deleteById(todos.get(1).getId());
+
+        mockMvc.perform(get("/api/v1/todos/changes").param("since", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed", hasSize(1)))
+                .andExpect(jsonPath("$.changed[0].title").value("renamed"))
+                .andExpect(jsonPath("$.changed[0].updatedAt").isNotEmpty())
+                .andExpect(jsonPath("$.deleted", hasSize(1)))
+                .andExpect(jsonPath("$.deleted[0]").value(todos.get(1).getId()));
+
+        mockMvc.perform(get("/api/v1/todos/changes").param("since", "tomorrow"))
+                .andExpect(status().isBadRequest());
+    }
+}
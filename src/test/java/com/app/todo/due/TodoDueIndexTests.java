@@ -0,0 +1,134 @@
+package com.app.todo.due;
+
+import com.app.todo.entity.Todo;
+import com.app.todo.event.TodoChangeType;
+import com.app.todo.event.TodoChangedEvent;
+import com.app.todo.mapper.TodoMapper;
+import com.app.todo.service.TodoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TodoDueIndexTests {
+
+    private static final LocalDateTime now = LocalDateTime.of(2030, 6, 1, 12, 0);
+
+    private TodoDueIndex dueIndex;
+
+    @BeforeEach
+    void setUp() {
+        dueIndex = new TodoDueIndex();
+        dueIndex.put(todo(1, now.minusHours(2)));
+        dueIndex.put(todo(2, now.plusHours(1)));
+        dueIndex.put(todo(3, now.minusMinutes(5)));
+        dueIndex.put(todo(4, now.plusHours(30)));
+        dueIndex.put(todo(5, null));
+    }
+
+    @Test
+    void answersOverdueAndUpcomingInDueDateOrder() {
+        assertThat(dueIndex.overdue(now, 10)).containsExactly(1L, 3L);
+        assertThat(dueIndex.overdue(now, 1)).containsExactly(1L);
+        assertThat(dueIndex.dueBetween(now, now.plusHours(24), 10)).containsExactly(2L);
+        assertThat(dueIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    void listsTheItemsOfOneOwner() {
+        Todo alices = todo(6, now.minusHours(3));
+        alices.setOwner("alice");
+        dueIndex.put(alices);
+        Todo bobs = todo(7, now.plusHours(2));
+        bobs.setOwner("bob");
+        dueIndex.put(bobs);
+
+        assertThat(dueIndex.overdue(now, "alice", 10)).containsExactly(6L);
+        assertThat(dueIndex.overdue(now, "bob", 10)).isEmpty();
+        assertThat(dueIndex.dueBetween(now, now.plusHours(24), "bob", 1)).containsExactly(7L);
+        assertThat(dueIndex.dueBetween(now, now.plusHours(24), null, 10)).containsExactly(2L, 7L);
+    }
+
+    @Test
+    void followsRescheduleCompletionAndDelete() {
+        Todo rescheduled = todo(4, now.plusMinutes(10));
+        rescheduled.setVersion(1L);
+        dueIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.UPDATED, 4L, null, rescheduled));
+        dueIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.TOGGLED, 1L, null, TodoMapper.toggled(todo(1, now.minusHours(2)))));
+        dueIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.DELETED, 2L, null, null));
+
+        assertThat(dueIndex.overdue(now, 10)).containsExactly(3L);
+        assertThat(dueIndex.dueBetween(now, now.plusHours(24), 10)).containsExactly(4L);
+
+        dueIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.CLEARED, null, null, null));
+        assertThat(dueIndex.size()).isZero();
+    }
+
+    @Test
+    void ignoresEventsOlderThanTheIndexedVersion() {
+        dueIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.TOGGLED, 3L, null, TodoMapper.toggled(todo(3, now.minusMinutes(5)))));
+        //overtaken by the toggle and by the delete
+        dueIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.CREATED, 3L, null, todo(3, now.minusMinutes(5))));
+        dueIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.DELETED, 1L, null, null));
+        Todo rescheduled = todo(1, now.minusHours(1));
+        rescheduled.setVersion(1L);
+        dueIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.UPDATED, 1L, null, rescheduled));
+
+        assertThat(dueIndex.overdue(now, 10)).isEmpty();
+        assertThat(dueIndex.overdueCount(now)).isZero();
+        assertThat(dueIndex.size()).isEqualTo(2);
+    }
+
+    @Test
+    void countsOverdueItemsAsTimePassesAndItemsChange() {
+        assertThat(dueIndex.overdueCount(now)).isEqualTo(2);
+        assertThat(dueIndex.overdueCount(now.plusHours(2))).isEqualTo(3);
+
+        //added behind the boundary, counts itself
+        dueIndex.put(todo(6, now.minusDays(1)));
+        dueIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.DELETED, 1L, null, null));
+        Todo rescheduled = todo(2, now.plusDays(1));
+        rescheduled.setVersion(1L);
+        dueIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.UPDATED, 2L, null, rescheduled));
+        assertThat(dueIndex.overdueCount(now.plusHours(2))).isEqualTo(2);
+        assertThat(dueIndex.overdueCount(now.plusHours(2))).isEqualTo(dueIndex.overdue(now.plusHours(2), 10).size());
+
+        dueIndex.clear();
+        assertThat(dueIndex.overdueCount(now.plusDays(2))).isZero();
+    }
+
+    @Test
+    void dispatchesEachDueDateOnceAsItArrives() {
+        //the dispatcher starts at the current time, so the items of this test lie ahead of it
+        LocalDateTime soon = LocalDateTime.now().plusMinutes(1);
+        Map<Long, Todo> stored = Map.of(7L, todo(7, soon), 8L, todo(8, soon.plusMinutes(1)));
+        TodoService todoService = mock(TodoService.class);
+        when(todoService.getTodoById(anyLong())).thenAnswer(invocation -> stored.get(invocation.<Long>getArgument(0)));
+        List<Todo> reminded = new ArrayList<>();
+        TodoReminderDispatcher dispatcher = new TodoReminderDispatcher(dueIndex, todoService, List.of(reminded::add));
+        stored.values().forEach(dueIndex::put);
+
+        assertThat(dispatcher.dispatchDue(soon.minusSeconds(1))).isZero();
+        assertThat(dispatcher.dispatchDue(soon)).isEqualTo(1);
+        assertThat(dispatcher.dispatchDue(soon.plusMinutes(5))).isEqualTo(1);
+        assertThat(dispatcher.dispatchDue(soon.plusMinutes(10))).isZero();
+        assertThat(reminded).extracting(Todo::getId).containsExactly(7L, 8L);
+    }
+
+    private static Todo todo(long id, LocalDateTime dueDate) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setTitle("todo " + id);
+        todo.setDueDate(dueDate);
+        todo.setVersion(0L);
+        return todo;
+    }
+}
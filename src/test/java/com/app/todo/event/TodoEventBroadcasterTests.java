@@ -0,0 +1,211 @@
+package com.app.todo.event;
+
+import com.app.todo.cache.TodoCache;
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.service.TodoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(properties = {"todo.events.buffer-size=8", "todo.events.send-timeout=500ms",
+        "todo.events.stall-check-interval-ms=100"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TodoEventBroadcasterTests {
+
+    private static final int subscriberCount = 2_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoEventBroadcaster broadcaster;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TodoCache todoCache;
+
+    private final List<MvcResult> streams = new ArrayList<>();
+
+    @AfterEach
+    void closeStreams() {
+        streams.forEach(stream -> stream.getRequest().getAsyncContext().complete());
+        streams.clear();
+    }
+
+    @Test
+    void pushesChangesToThousandsOfSubscribersWithAFixedNumberOfThreads() throws Exception {
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        long heapBefore = usedHeapAfterGc();
+
+        for (int i = 0; i < subscriberCount; i++) {
+            streams.add(mockMvc.perform(get("/api/v1/todos/stream").accept("text/event-stream"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn());
+        }
+        assertThat(broadcaster.subscriberCount()).isEqualTo(subscriberCount);
+        long heapPerSubscriber = (usedHeapAfterGc() - heapBefore) / subscriberCount;
+
+        Todo todo = todoService.addTodo(new AddTodoRequest("pushed", null, LocalDateTime.now().plusDays(1), Priority.HIGH));
+        todoService.markOrUnmarkedAsCompleted(todo.getId());
+        todoService.deleteById(todo.getId());
+
+        for (MvcResult stream : streams) {
+            awaitContent(stream, "event:DELETED");
+            assertThat(stream.getResponse().getContentAsString())
+                    .containsSubsequence("event:CREATED", "\"title\":\"pushed\"", "event:TOGGLED", "event:DELETED");
+        }
+
+        //the fan-out thread and the delivery pool, whatever the number of subscribers
+        int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+        assertThat(threadsAfter - threadsBefore).isLessThanOrEqualTo(8);
+        //includes the mock request and response of each stream
+        assertThat(heapPerSubscriber).isLessThan(64 * 1024);
+    }
+
+    @Test
+    void disconnectsASubscriberThatFallsBehindWithoutDelayingTheOthers() throws Exception {
+        MvcResult fast = mockMvc.perform(get("/api/v1/todos/stream")).andReturn();
+        streams.add(fast);
+        //the first delivery in a fresh JVM is slow enough to let a burst of events pile up
+        todoService.addTodo(new AddTodoRequest("warm-up", null, null, Priority.LOW));
+        awaitContent(fast, "\"title\":\"warm-up\"");
+
+        CountDownLatch release = new CountDownLatch(1);
+        BlockedEmitter slow = new BlockedEmitter(release);
+        broadcaster.register(slow);
+        double disconnectsBefore = meterRegistry.counter("todo.events.slow.disconnects").count();
+
+        //one event is taken by the blocked send, eight fill the buffer, the next one overflows it
+        for (int i = 0; i < 10; i++) {
+            todoService.addTodo(new AddTodoRequest("todo " + i, null, null, Priority.LOW));
+        }
+
+        awaitContent(fast, "\"title\":\"todo 9\"");
+        //the fan-out thread may still be offering the last event to the slow subscriber
+        awaitSubscribers(1);
+        assertThat(meterRegistry.counter("todo.events.slow.disconnects").count()).isEqualTo(disconnectsBefore + 1);
+
+        release.countDown();
+        assertThat(slow.completed.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void disconnectsSubscribersWhoseClientStoppedReadingWithoutStarvingTheOthers() throws Exception {
+        MvcResult fast = mockMvc.perform(get("/api/v1/todos/stream")).andReturn();
+        streams.add(fast);
+        CountDownLatch release = new CountDownLatch(1);
+        //more than there are delivery threads, each blocking one
+        List<BlockedEmitter> blocked = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            blocked.add(new BlockedEmitter(release));
+            broadcaster.register(blocked.get(i));
+        }
+        double disconnectsBefore = meterRegistry.counter("todo.events.slow.disconnects").count();
+
+        todoService.addTodo(new AddTodoRequest("not read", null, null, Priority.LOW));
+
+        awaitContent(fast, "\"title\":\"not read\"");
+        awaitSubscribers(1);
+        assertThat(meterRegistry.counter("todo.events.slow.disconnects").count()).isEqualTo(disconnectsBefore + 6);
+
+        release.countDown();
+        for (BlockedEmitter emitter : blocked) {
+            assertThat(emitter.completed.await(10, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    void sendsTheSubscribersOfAnOwnerOnlyItsChanges() throws Exception {
+        MvcResult alices = mockMvc.perform(get("/api/v1/owners/{owner}/todos/stream", "alice")).andReturn();
+        streams.add(alices);
+        Todo bobs = todoService.addTodo(new AddTodoRequest("bob's", null, null, Priority.LOW, "bob"));
+        //deleted for all owners without being cached: the owner is only known from its tombstone
+        todoCache.evict(bobs.getId());
+        todoService.deleteById(bobs.getId());
+        Todo own = todoService.addTodo(new AddTodoRequest("alice's", null, null, Priority.LOW, "alice"));
+        todoService.deleteById(own.getId());
+
+        //events are sent in order, bob's would have come first
+        awaitContent(alices, "\"id\":" + own.getId() + ",\"todo\":null");
+        assertThat(alices.getResponse().getContentAsString())
+                .containsSubsequence("event:CREATED", "\"title\":\"alice's\"", "event:DELETED")
+                .doesNotContain("\"id\":" + bobs.getId() + ",")
+                .doesNotContain("bob's");
+    }
+
+    private void awaitSubscribers(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (broadcaster.subscriberCount() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(broadcaster.subscriberCount()).isEqualTo(expected);
+    }
+
+    private static void awaitContent(MvcResult stream, String expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!stream.getResponse().getContentAsString().contains(expected) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(stream.getResponse().getContentAsString()).contains(expected);
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * An emitter whose client does not read: every send blocks until released.
+     */
+    private static class BlockedEmitter extends SseEmitter {
+
+        private final CountDownLatch release;
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        BlockedEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public synchronized void send(Set<DataWithMediaType> items) throws IOException {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+    }
+}
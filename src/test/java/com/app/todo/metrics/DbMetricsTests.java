@@ -0,0 +1,91 @@
+package com.app.todo.metrics;
+
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.service.TodoService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "todo.jdbc.slow-query-threshold=0ms")
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+@ExtendWith(OutputCaptureExtension.class)
+class DbMetricsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Todo todo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        todoService.deleteAll();
+        todo = todoService.addTodo(new AddTodoRequest("todo", "description", LocalDateTime.now().plusDays(1), Priority.LOW));
+    }
+
+    @Test
+    void recordsStatementsAndEntityLoadsPerRoute() throws Exception {
+        mockMvc.perform(get("/api/v1/todos/page").param("size", "10"))
+                .andExpect(status().isOk());
+
+        DistributionSummary statements = meterRegistry.get("todo.http.db.statements")
+                .tags("method", "GET", "uri", "/api/v1/todos/page").summary();
+        DistributionSummary entityLoads = meterRegistry.get("todo.http.db.entity.loads")
+                .tags("method", "GET", "uri", "/api/v1/todos/page").summary();
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isEqualTo(1);
+        assertThat(entityLoads.totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    void logsSlowStatementsWithBindParameterCount(CapturedOutput output) throws Exception {
+        mockMvc.perform(patch("/api/v1/todos/{id}/markOrUnmark", todo.getId()))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.get("todo.jdbc.statements").tag("operation", "update").timer().count()).isPositive();
+        //id, completed, expected version, change sequence and update time
+        assertThat(output).containsPattern("Slow statement took \\d+ ms with 5 bind parameters: update todo");
+    }
+
+    @Test
+    void exposesMetricsInPrometheusFormat() throws Exception {
+        mockMvc.perform(get("/api/v1/todos/{id}", todo.getId()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("todo_jdbc_statements_seconds_bucket")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds")))
+                .andExpect(content().string(containsString("hibernate_query_executions_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds")));
+    }
+}
@@ -0,0 +1,83 @@
+package com.app.todo.repository;
+
+import com.app.todo.entity.Priority;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.TodoFilter;
+import com.app.todo.service.TodoService;
+import com.app.todo.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks with EXPLAIN that the filter queries of {@link TodoSpecifications} are answered from the composite
+ * indexes declared on the entity instead of a table scan. The query explained is the one Hibernate generated for
+ * the service call, captured with its parameters by the {@link StatementCounter}.
+ */
+@SpringBootTest
+@Import(StatementCounter.class)
+@ActiveProfiles("test")
+class TodoIndexTests {
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        todoService.deleteAll();
+        List<AddTodoRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            requests.add(new AddTodoRequest("todo " + i, null, LocalDateTime.now().plusHours(i), Priority.values()[i % 3]));
+        }
+        todoService.addTodos(requests);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void completedAndDueDateRangeUsesCompletedDueDateIndex() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        String plan = explainFilterQuery(new TodoFilter(false, null, now, now.plusDays(1)));
+
+        assertThat(plan).containsIgnoringCase("idx_todo_completed_due_date");
+    }
+
+    @Test
+    void priorityAndDueDateRangeUsesPriorityDueDateIndex() throws Exception {
+        String plan = explainFilterQuery(new TodoFilter(null, Set.of(Priority.HIGH, Priority.LOW), null, LocalDateTime.now().plusDays(1)));
+
+        assertThat(plan).containsIgnoringCase("idx_todo_priority_due_date");
+    }
+
+    //runs the filter through the service and explains the SELECT it sent, with the parameters it bound
+    private String explainFilterQuery(TodoFilter filter) throws Exception {
+        statementCounter.reset();
+        todoService.findTodos(filter, Sort.unsorted());
+        StatementCounter.PreparedSql query = statementCounter.prepared().stream()
+                .filter(prepared -> prepared.sql().toLowerCase().startsWith("select") && prepared.sql().contains("due_date"))
+                .findFirst().orElseThrow();
+        return String.join("\n", jdbcTemplate.query("EXPLAIN " + query.sql(), statement -> {
+            for (Map.Entry<Integer, Object> parameter : query.parameters().entrySet()) {
+                statement.setObject(parameter.getKey(), parameter.getValue());
+            }
+        }, (row, index) -> row.getString(1)));
+    }
+}
@@ -0,0 +1,120 @@
+package com.app.todo.routing;
+
+import com.app.todo.entity.Priority;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.service.TodoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against two embedded databases: the primary and a replica that only catches up when {@link #replicate()}
+ * copies the primary into it. A third replica URL points to a database that does not exist.
+ */
+@SpringBootTest(properties = {
+        "todo.datasource.replica-urls=jdbc:h2:mem:todo_missing;IFEXISTS=TRUE," + ReplicaRoutingTests.replicaUrl,
+        "todo.datasource.read-your-writes-window=1s",
+        "todo.datasource.replica-connection-timeout=250ms",
+        "todo.datasource.replica-retry-interval=1h"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicaRoutingTests {
+
+    static final String replicaUrl = "jdbc:h2:mem:todo_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${spring.datasource.url}")
+    private String primaryUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        todoService.deleteAll();
+        for (int i = 0; i < 2; i++) {
+            todoService.addTodo(new AddTodoRequest("todo " + i, null, null, Priority.LOW));
+        }
+        replicate();
+    }
+
+    @Test
+    void readsOwnWritesFromThePrimaryAndOtherReadsFromAReplica() throws Exception {
+        mockMvc.perform(post("/api/v1/todos").header("X-Client-Id", "writer")
+                        .contentType("application/json").content("{\"title\":\"new\"}"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/api/v1/todos/page").header("X-Client-Id", "writer"))
+                .andExpect(jsonPath("$.items", hasSize(3)));
+        //the replica has not caught up yet
+        mockMvc.perform(get("/api/v1/todos/page").header("X-Client-Id", "reader"))
+                .andExpect(jsonPath("$.items", hasSize(2)));
+
+        Thread.sleep(1_100);
+        mockMvc.perform(get("/api/v1/todos/page").header("X-Client-Id", "writer"))
+                .andExpect(jsonPath("$.items", hasSize(2)));
+        replicate();
+        mockMvc.perform(get("/api/v1/todos/page").header("X-Client-Id", "writer"))
+                .andExpect(jsonPath("$.items", hasSize(3)));
+    }
+
+    @Test
+    void skipsAnUnavailableReplica() throws Exception {
+        long replicaConnectionsBefore = replicaConnections();
+        for (int i = 0; i < 4; i++) {
+            mockMvc.perform(get("/api/v1/todos/page").header("X-Client-Id", "reader"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(2)));
+        }
+
+        //tried once, then skipped for the retry interval
+        assertThat(meterRegistry.counter("todo.datasource.replica.unavailable", "replica", "1").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("todo.datasource.replica.fallbacks").count()).isZero();
+        assertThat(replicaConnections() - replicaConnectionsBefore).isEqualTo(4);
+    }
+
+    private long replicaConnections() {
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").tag("pool", "replica-2").timer();
+        return acquire == null ? 0 : acquire.count();
+    }
+
+    //copies the schema and rows of the primary into the replica
+    private void replicate() throws SQLException {
+        try (Connection primary = DriverManager.getConnection(primaryUrl, "sa", "");
+             Connection replica = DriverManager.getConnection(replicaUrl, "sa", "");
+             Statement source = primary.createStatement();
+             Statement target = replica.createStatement()) {
+            target.execute("DROP ALL OBJECTS");
+            try (ResultSet script = source.executeQuery("SCRIPT")) {
+                while (script.next()) {
+                    target.execute(script.getString(1));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.app.todo.search;
+
+import com.app.todo.entity.Todo;
+import com.app.todo.event.TodoChangeType;
+import com.app.todo.event.TodoChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TodoSearchIndexTests {
+
+    private TodoSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new TodoSearchIndex();
+        searchIndex.index(todo(1, "Buy groceries", "Milk, eggs and bread"));
+        searchIndex.index(todo(2, "Call the bakery", "Order bread for Sunday"));
+        searchIndex.index(todo(3, "Bread", "Bake bread, then more bread"));
+        searchIndex.index(todo(4, "Pay rent", null));
+    }
+
+    @Test
+    void tokenizesIntoLowercaseWords() {
+        assertThat(TodoSearchIndex.tokenize("Milk, eggs & Brot-Laib 2x")).containsExactly("milk", "eggs", "brot", "laib", "2x");
+    }
+
+    @Test
+    void ranksByTermFrequencyWithTitleBoost() {
+        assertThat(searchIndex.search("BREAD", 10)).containsExactly(3L, 2L, 1L);
+        assertThat(searchIndex.search("bread", 2)).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void matchesPrefixesAndRequiresEveryToken() {
+        assertThat(searchIndex.search("bak", 10)).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(searchIndex.search("bread sun", 10)).containsExactly(2L);
+        assertThat(searchIndex.search("bread rent", 10)).isEmpty();
+        assertThat(searchIndex.search(" , ", 10)).isEmpty();
+    }
+
+    @Test
+    void followsUpdatesAndDeletes() {
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.UPDATED, 4L, null, todo(4, "Pay rent", "and buy bread", 1)));
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.DELETED, 3L, null, null));
+
+        assertThat(searchIndex.search("bread", 10)).containsExactlyInAnyOrder(1L, 2L, 4L);
+        assertThat(searchIndex.search("then", 10)).isEmpty();
+        assertThat(searchIndex.size()).isEqualTo(3);
+
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.CLEARED, null, null, null));
+        assertThat(searchIndex.search("bread", 10)).isEmpty();
+    }
+
+    @Test
+    void fullLoadDoesNotOverwriteConcurrentChanges() {
+        searchIndex.clear();
+        searchIndex.beginLoad();
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.UPDATED, 1L, null, todo(1, "Buy flowers", null, 1)));
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.DELETED, 2L, null, null));
+        searchIndex.load(todo(1, "Buy groceries", null));
+        searchIndex.load(todo(2, "Call the bakery", null));
+        searchIndex.load(todo(3, "Bread", null));
+        searchIndex.endLoad();
+
+        assertThat(searchIndex.search("buy", 10)).containsExactly(1L);
+        assertThat(searchIndex.search("groceries", 10)).isEmpty();
+        assertThat(searchIndex.search("bakery", 10)).isEmpty();
+        assertThat(searchIndex.search("bread", 10)).containsExactly(3L);
+    }
+
+    @Test
+    void ignoresEventsOlderThanTheIndexedVersion() {
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.UPDATED, 4L, null, todo(4, "Pay the gardener", null, 2)));
+        //overtaken by the update above
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.UPDATED, 4L, null, todo(4, "Pay the plumber", null, 1)));
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.DELETED, 3L, null, null));
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.UPDATED, 3L, null, todo(3, "Bread", null, 1)));
+
+        assertThat(searchIndex.search("gardener", 10)).containsExactly(4L);
+        assertThat(searchIndex.search("plumber", 10)).isEmpty();
+        assertThat(searchIndex.search("bread", 10)).containsExactly(2L, 1L);
+
+        //an archived item comes back with the version it was archived with
+        Todo archived = todo(1, "Buy groceries", "Milk, eggs and bread");
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.ARCHIVED, 1L, archived, archived));
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.RESTORED, 1L, null, archived));
+        assertThat(searchIndex.search("milk", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void dropsTermsNoItemIsIndexedUnderAnyMore() {
+        int terms = searchIndex.termCount();
+        int termNumbers = searchIndex.termNumberCount();
+        for (int version = 1; version <= 100; version++) {
+            searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.UPDATED, 4L, null, todo(4, "Pay rent", "draft " + version, version)));
+        }
+
+        //the previous draft numbers are gone, their term numbers were reused
+        assertThat(searchIndex.termCount()).isEqualTo(terms + 2);
+        assertThat(searchIndex.termNumberCount()).isLessThanOrEqualTo(termNumbers + 3);
+        assertThat(searchIndex.search("99", 10)).isEmpty();
+        assertThat(searchIndex.search("100", 10)).containsExactly(4L);
+
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.DELETED, 4L, null, null));
+        assertThat(searchIndex.termCount()).isEqualTo(terms - 2);
+        assertThat(searchIndex.search("rent", 10)).isEmpty();
+    }
+
+    @Test
+    void searchesTheItemsOfOneOwner() {
+        Todo alices = todo(5, "Bread", "Bread, bread and bread");
+        alices.setOwner("alice");
+        searchIndex.index(alices);
+        Todo bobs = todo(2, "Call the bakery", "Order bread for Sunday", 1);
+        bobs.setOwner("bob");
+        searchIndex.onTodoChanged(new TodoChangedEvent(TodoChangeType.UPDATED, 2L, null, bobs));
+
+        assertThat(searchIndex.search("bread", "bob", 1)).containsExactly(2L);
+        assertThat(searchIndex.search("bread", "alice", 10)).containsExactly(5L);
+        assertThat(searchIndex.search("bread", "carol", 10)).isEmpty();
+        assertThat(searchIndex.search("bread", null, 10)).containsExactly(5L, 3L, 2L, 1L);
+    }
+
+    private static Todo todo(long id, String title, String description) {
+        return todo(id, title, description, 0);
+    }
+
+    private static Todo todo(long id, String title, String description, long version) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setTitle(title);
+        todo.setDescription(description);
+        todo.setVersion(version);
+        return todo;
+    }
+}
@@ -0,0 +1,302 @@
+package com.app.todo.service.impl;
+
+import com.app.todo.cache.TodoCache;
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.exceptions.InvalidTodoException;
+import com.app.todo.exceptions.TodoConflictException;
+import com.app.todo.exceptions.TodoNotFoundException;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.ArchiveChunk;
+import com.app.todo.payload.TodoChanges;
+import com.app.todo.payload.TodoFilter;
+import com.app.todo.payload.UpdateTodo;
+import com.app.todo.repository.TodoRepository;
+import com.app.todo.service.TodoService;
+import com.app.todo.support.StatementCounter;
+import com.app.todo.sync.TodoChangeSequence;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//a database of its own: ids handed out by the contexts of other tests, which recreate the shared one, would collide
+//with the tombstones of its large deletes
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:todo_service;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+@Import(StatementCounter.class)
+class TodoServiceImplTests {
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private TodoCache todoCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TodoChangeSequence changeSequence;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        todoService.deleteAll();
+        statementCounter.reset();
+    }
+
+    @Test
+    void addTodosInsertsInJdbcBatches() throws Exception {
+        List<AddTodoRequest> requests = requests(1200);
+
+        todoService.addTodos(requests);
+
+        //1200 rows in JDBC batches of 50, plus at most one id-block fetch from the sequence per batch, plus taking the
+        //position in the change sequence for each chunk of 500
+        assertThat(statementCounter.batches()).isEqualTo(24);
+        assertThat(statementCounter.executions()).isLessThanOrEqualTo(2 * 24 + 1 + 2 * 3);
+        assertThat(todoRepository.count()).isEqualTo(1200);
+    }
+
+    @Test
+    void addTodosStoresNothingWhenOneItemIsInvalid() {
+        List<AddTodoRequest> requests = requests(10);
+        requests.get(7).setDueDate(LocalDateTime.now().minusDays(2));
+
+        assertThatThrownBy(() -> todoService.addTodos(requests))
+                .isInstanceOf(InvalidTodoException.class)
+                .hasMessageContaining("item 7");
+        assertThat(todoRepository.count()).isZero();
+    }
+
+    @Test
+    void getTodoByIdIsServedFromCacheUntilAWriteInvalidatesIt() throws Exception {
+        Todo todo = todoService.addTodo(requests(1).get(0));
+        double hits = cacheGets("hit");
+
+        todoService.getTodoById(todo.getId());
+        statementCounter.reset();
+        todoService.getTodoById(todo.getId());
+        assertThat(statementCounter.executions()).isZero();
+        assertThat(cacheGets("hit")).isEqualTo(hits + 1);
+
+        todoService.updateTodo(todo.getId(), new UpdateTodo("renamed", null, Priority.HIGH, null), null);
+        assertThat(todoService.getTodoById(todo.getId()).getTitle()).isEqualTo("renamed");
+
+        todoService.markOrUnmarkedAsCompleted(todo.getId());
+        assertThat(todoService.getTodoById(todo.getId()).getCompleted()).isTrue();
+
+        todoService.deleteById(todo.getId());
+        assertThatThrownBy(() -> todoService.getTodoById(todo.getId())).isInstanceOf(TodoNotFoundException.class);
+    }
+
+    @Test
+    void searchReadsTheHitsNotCachedWithOneQuery() throws Exception {
+        todoService.addTodos(requests(30));
+        todoCache.clear();
+        //one of the hits is cached, the others are read
+        todoService.searchTodos("todo 25", 1);
+        statementCounter.reset();
+
+        List<Todo> hits = todoService.searchTodos("todo", 20);
+
+        assertThat(statementCounter.executions()).isEqualTo(1);
+        assertThat(hits).hasSize(20).doesNotContainNull();
+        //the order of the index is kept
+        assertThat(hits).extracting(Todo::getId).isSortedAccordingTo(Comparator.reverseOrder());
+        statementCounter.reset();
+        assertThat(todoService.searchTodos("todo", 20)).isEqualTo(hits);
+        assertThat(statementCounter.executions()).isZero();
+    }
+
+    @Test
+    void writesIssueOneStatementAndReturnThePersistedState() throws Exception {
+        Todo todo = todoService.addTodo(requests(1).get(0));
+        todoService.getTodoById(todo.getId());
+
+        //the write, after incrementing and reading the change counter of the shard
+        statementCounter.reset();
+        Todo toggled = todoService.markOrUnmarkedAsCompleted(todo.getId());
+        assertThat(statementCounter.executions()).isEqualTo(3);
+        assertThat(toggled.getCompleted()).isTrue();
+
+        //the toggle evicted the entry, warming it again costs one read that is not part of the write
+        todoService.getTodoById(todo.getId());
+        statementCounter.reset();
+        Todo updated = todoService.updateTodo(todo.getId(), new UpdateTodo("renamed", "changed", Priority.HIGH, null), null);
+        assertThat(statementCounter.executions()).isEqualTo(3);
+        assertThat(updated.getCompleted()).isTrue();
+        assertThat(updated.getCreatedAt()).isEqualTo(todo.getCreatedAt());
+        assertThat(updated.getVersion()).isEqualTo(todo.getVersion() + 2);
+        assertThat(todoRepository.findById(todo.getId()).orElseThrow())
+                .usingRecursiveComparison().isEqualTo(updated);
+
+        //the delete and its tombstone, and for an item that is not cached the owner of the tombstone, for the event
+        statementCounter.reset();
+        todoService.deleteById(todo.getId());
+        assertThat(statementCounter.executions()).isEqualTo(2 + 3);
+        assertThatThrownBy(() -> todoService.deleteById(todo.getId())).isInstanceOf(TodoNotFoundException.class);
+    }
+
+    @Test
+    void updateDetectsConcurrentModification() throws Exception {
+        Todo todo = todoService.addTodo(requests(1).get(0));
+        todoService.getTodoById(todo.getId());
+
+        //another instance changes the row behind the cache's back: the stale write is retried on fresh state
+        todoRepository.updateByIdAndCompleted(todo.getId(), true, todo.getVersion(), 0, LocalDateTime.now());
+        Todo updated = todoService.updateTodo(todo.getId(), new UpdateTodo("renamed", null, null, null), null);
+        assertThat(updated.getCompleted()).isTrue();
+        assertThat(updated.getVersion()).isEqualTo(todo.getVersion() + 2);
+
+        //a client that based its change on an old version is rejected
+        assertThatThrownBy(() -> todoService.updateTodo(todo.getId(), new UpdateTodo("lost", null, null, null), todo.getVersion()))
+                .isInstanceOf(TodoConflictException.class);
+        assertThat(todoService.getTodoById(todo.getId()).getTitle()).isEqualTo("renamed");
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "todos").tag("result", result).functionCounter().count();
+    }
+
+    @Test
+    void deleteTodosRemovesMatchingRowsInChunksWithoutLoadingThem() throws Exception {
+        //a large table: 12000 rows, the first half due tomorrow, the second half in ten days
+        List<AddTodoRequest> requests = requests(12_000);
+        for (int i = 0; i < requests.size(); i++) {
+            requests.get(i).setDueDate(LocalDateTime.now().plusDays(i < 6_000 ? 1 : 10));
+        }
+        for (int from = 0; from < requests.size(); from += 6_000) {
+            todoService.addTodos(requests.subList(from, from + 6_000));
+        }
+        statementCounter.reset();
+
+        long deleted = todoService.deleteTodos(new TodoFilter(null, null, null, LocalDateTime.now().plusDays(5)));
+
+        assertThat(deleted).isEqualTo(6_000);
+        //the change counter, a locking select, the tombstones and a delete per chunk of 1000, plus the counter and the
+        //select finding no more rows
+        assertThat(statementCounter.executions()).isEqualTo(5 * 6 + 3);
+        assertThat(todoRepository.count()).isEqualTo(6_000);
+
+        statementCounter.reset();
+        assertThat(todoService.deleteAll()).isEqualTo(6_000);
+        //plus the counter and the select finding the archive empty
+        assertThat(statementCounter.executions()).isEqualTo(5 * 6 + 3 + 3);
+        assertThat(todoRepository.count()).isZero();
+    }
+
+    @Test
+    void changesStopBeforeAWriteStillInFlight() throws Exception {
+        Todo first = todoService.addTodo(requests(1).get(0));
+        String cursor = todoService.getChanges(null, 10).getNextCursor();
+
+        //a write that took its position, in this instance or another one, and has not committed yet
+        CountDownLatch taken = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Long> open = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            long changeSeq = changeSequence.next(Todo.defaultOwner);
+            taken.countDown();
+            try {
+                commit.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return changeSeq;
+        }));
+        taken.await();
+        AddTodoRequest request = requests(1).get(0);
+        CompletableFuture<Todo> next = CompletableFuture.supplyAsync(() -> {
+            try {
+                return todoService.addTodo(request);
+            } catch (InvalidTodoException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Todo second;
+        try {
+            //the next write waits for it: committing a later position first would let a reader move its cursor past it
+            Thread.sleep(100);
+            assertThat(next).isNotDone();
+            TodoChanges changes = todoService.getChanges(cursor, 10);
+            assertThat(changes.getChanged()).isEmpty();
+            assertThat(changes.getNextCursor()).isEqualTo(cursor);
+        } finally {
+            commit.countDown();
+        }
+        second = next.get();
+        assertThat(second.getChangeSeq()).isGreaterThan(open.get());
+
+        todoService.deleteById(first.getId());
+        TodoChanges changes = todoService.getChanges(cursor, 10);
+        assertThat(changes.getChanged()).extracting(Todo::getId).containsExactly(second.getId());
+        assertThat(changes.getDeleted()).containsExactly(first.getId());
+        assertThat(changes.isHasMore()).isFalse();
+    }
+
+    @Test
+    void archivesCompletedTodosAndMovesThemBackOnWrite() throws Exception {
+        List<Todo> todos = todoService.addTodos(requests(5));
+        for (int i = 0; i < 3; i++) {
+            todoService.markOrUnmarkedAsCompleted(todos.get(i).getId());
+        }
+        LocalDateTime completedBefore = LocalDateTime.now().plusMinutes(1);
+
+        ArchiveChunk first = todoService.archiveCompleted(completedBefore, 0, 2);
+        ArchiveChunk second = todoService.archiveCompleted(completedBefore, first.getLastId(), 2);
+        assertThat(first.getArchived() + second.getArchived()).isEqualTo(3);
+        assertThat(todoService.archiveCompleted(completedBefore, second.getLastId(), 2).getLastId()).isNull();
+
+        assertThat(todoService.getAllTodos()).extracting(Todo::getId)
+                .containsExactly(todos.get(3).getId(), todos.get(4).getId());
+        assertThat(todoService.getStatistics().getTotal()).isEqualTo(2);
+        Todo archived = todoService.getTodoById(todos.get(0).getId());
+        assertThat(archived.getCompleted()).isTrue();
+        assertThat(archived.getVersion()).isEqualTo(todos.get(0).getVersion() + 1);
+        TodoFilter includeArchived = new TodoFilter(null, null, null, null, true);
+        assertThat(todoService.findTodos(includeArchived, Sort.by(Sort.Direction.DESC, "id"))).extracting(Todo::getId)
+                .containsExactly(todos.stream().map(Todo::getId).sorted(Comparator.reverseOrder()).toArray(Long[]::new));
+
+        //a write moves the item back, a delete leaves the usual tombstone
+        Todo reopened = todoService.markOrUnmarkedAsCompleted(todos.get(0).getId());
+        assertThat(reopened.getVersion()).isEqualTo(archived.getVersion() + 1);
+        String cursor = todoService.getChanges(null, 10).getNextCursor();
+        todoService.deleteById(todos.get(1).getId());
+        assertThatThrownBy(() -> todoService.getTodoById(todos.get(1).getId())).isInstanceOf(TodoNotFoundException.class);
+        assertThat(todoService.getAllTodos()).hasSize(3);
+        assertThat(todoService.getStatistics().getTotal()).isEqualTo(3);
+        assertThat(todoService.getChanges(cursor, 10).getDeleted()).containsExactly(todos.get(1).getId());
+    }
+
+    private static List<AddTodoRequest> requests(int count) {
+        List<AddTodoRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(new AddTodoRequest("todo " + i, "description " + i, LocalDateTime.now().plusDays(1), Priority.MEDIUM));
+        }
+        return requests;
+    }
+}
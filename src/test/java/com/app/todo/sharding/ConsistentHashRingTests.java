@@ -0,0 +1,39 @@
+package com.app.todo.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTests {
+
+    @Test
+    void spreadsKeysEvenlyOverTheShards() {
+        ConsistentHashRing ring = new ConsistentHashRing(4);
+        int[] keys = new int[4];
+        for (int i = 0; i < 40_000; i++) {
+            keys[ring.shardFor("owner-" + i)]++;
+        }
+
+        for (int count : keys) {
+            assertThat(count).isBetween(8_000, 12_000);
+        }
+    }
+
+    @Test
+    void addingAShardOnlyMovesKeysToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(3);
+        ConsistentHashRing after = new ConsistentHashRing(4);
+        int moved = 0;
+        for (int i = 0; i < 40_000; i++) {
+            String key = "owner-" + i;
+            int shard = after.shardFor(key);
+            if (shard != before.shardFor(key)) {
+                assertThat(shard).isEqualTo(3);
+                moved++;
+            }
+        }
+
+        //about a quarter of the keys, the share of the new shard
+        assertThat(moved).isBetween(8_000, 12_000);
+    }
+}
@@ -0,0 +1,222 @@
+package com.app.todo.sharding;
+
+import com.app.todo.buffer.TodoToggleBuffer;
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.exceptions.InvalidTodoException;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.TodoFilter;
+import com.app.todo.service.TodoService;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs against three embedded databases, migrated like in the prod profile: shard 0 is `spring.datasource`, the
+ * other two are listed in `todo.sharding.shard-urls`. Where rows ended up is checked on the databases directly.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ShardingTests.shard0Url,
+        "todo.sharding.shard-urls=" + ShardingTests.shard1Url + "," + ShardingTests.shard2Url})
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "prod"})
+class ShardingTests {
+
+    static final String shard0Url = "jdbc:h2:mem:todo_shard0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String shard1Url = "jdbc:h2:mem:todo_shard1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String shard2Url = "jdbc:h2:mem:todo_shard2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final List<String> shardUrls = List.of(shard0Url, shard1Url, shard2Url);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private ShardRouting shardRouting;
+
+    @Autowired
+    private OwnerRebalancer rebalancer;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TodoToggleBuffer toggleBuffer;
+
+    private String first;
+    private String second;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        todoService.deleteAll();
+        //two owners living on different shards
+        first = "alice";
+        second = List.of("bob", "carol", "dave", "erin", "frank", "grace").stream()
+                .filter(owner -> shardRouting.shardOf(owner) != shardRouting.shardOf(first))
+                .findFirst().orElseThrow();
+        for (int i = 0; i < 3; i++) {
+            addTodo(first, "first " + i);
+        }
+        for (int i = 0; i < 2; i++) {
+            addTodo(second, "second " + i);
+        }
+    }
+
+    @Test
+    void keepsTheItemsOfAnOwnerOnItsShard() throws Exception {
+        assertThat(rows(first, shardRouting.shardOf(first))).isEqualTo(3);
+        assertThat(rows(second, shardRouting.shardOf(second))).isEqualTo(2);
+        for (int shard = 0; shard < shardUrls.size(); shard++) {
+            if (shard != shardRouting.shardOf(first)) {
+                assertThat(rows(first, shard)).isZero();
+            }
+        }
+    }
+
+    @Test
+    void ownerRoutesOnlySeeTheItemsOfTheirOwner() throws Exception {
+        mockMvc.perform(get("/api/v1/owners/{owner}/todos", first))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[*].owner", everyItem(is(first))));
+        mockMvc.perform(get("/api/v1/owners/{owner}/todos/stats", second))
+                .andExpect(jsonPath("$.total").value(2));
+
+        long othersId = todoService.findTodos(ownerFilter(second), Sort.unsorted()).get(0).getId();
+        mockMvc.perform(get("/api/v1/owners/{owner}/todos/{id}", first, othersId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/owners/{owner}/todos/{id}", second, othersId))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/owners/{owner}/todos", first)
+                        .contentType("application/json").content("{\"title\":\"new\",\"owner\":\"" + second + "\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/owners/{owner}/todos", "not*valid"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void gathersAdminReadsFromAllShards() throws Exception {
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)));
+        mockMvc.perform(get("/api/v1/todos/stats"))
+                .andExpect(jsonPath("$.total").value(5));
+
+        //the pages merge the shards by id
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/v1/todos/page").param("size", "2");
+            String body = mockMvc.perform(cursor == null ? request : request.param("cursor", cursor))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            ids.addAll(JsonPath.<List<Number>>read(body, "$.items[*].id").stream().map(Number::longValue).toList());
+            Number next = JsonPath.read(body, "$.nextCursor");
+            cursor = next == null ? null : String.valueOf(next.longValue());
+        } while (cursor != null);
+        assertThat(ids).hasSize(5).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void movesAnOwnerWhileItKeepsWriting() throws Exception {
+        int source = shardRouting.shardOf(first);
+        int target = (source + 1) % shardUrls.size();
+        CompletableFuture<Void> writes = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 20; i++) {
+                addTodo(first, "during move " + i);
+            }
+        });
+        long copied = rebalancer.move(first, target);
+        writes.join();
+
+        assertThat(copied).isGreaterThanOrEqualTo(3);
+        assertThat(shardRouting.shardOf(first)).isEqualTo(target);
+        assertThat(rows(first, target)).isEqualTo(23);
+        assertThat(rows(first, source)).isZero();
+        mockMvc.perform(get("/api/v1/owners/{owner}/todos", first))
+                .andExpect(jsonPath("$", hasSize(23)));
+        mockMvc.perform(get("/api/v1/todos"))
+                .andExpect(jsonPath("$", hasSize(25)));
+    }
+
+    @Test
+    void writesOfAnInstanceThatMissedAMoveFollowTheOwner() throws Exception {
+        int source = shardRouting.shardOf(first);
+        int target = (source + 1) % shardUrls.size();
+        String cursor = todoService.getChanges(null, 500).getNextCursor();
+        //another instance, with a directory of its own, moves the owner; this one still has it on the old shard
+        List<DataSource> shards = dataSource.unwrap(ShardRoutingDataSource.class).getShards();
+        ShardRouting otherRouting = new ShardRouting();
+        otherRouting.useShards(shards.size(), new ShardDirectory(shards.get(0), shards.size(), Duration.ofMinutes(1)));
+        try {
+            new OwnerRebalancer(shards, otherRouting, toggleBuffer, new SimpleMeterRegistry()).move(first, target);
+        } finally {
+            otherRouting.close();
+        }
+        assertThat(shardRouting.shardOf(first)).isEqualTo(source);
+
+        //refused by the old shard, then written to the new one
+        addTodo(first, "after move");
+
+        assertThat(shardRouting.shardOf(first)).isEqualTo(target);
+        assertThat(rows(first, target)).isEqualTo(4);
+        assertThat(rows(first, source)).isZero();
+        //the copies are new changes on their shard, whatever the cursor had reached on the old one
+        assertThat(todoService.getChanges(cursor, 500).getChanged()).extracting(Todo::getTitle)
+                .containsExactlyInAnyOrder("first 0", "first 1", "first 2", "after move");
+    }
+
+    private Todo addTodo(String owner, String title) {
+        try {
+            return todoService.addTodo(new AddTodoRequest(title, null, null, Priority.LOW, owner));
+        } catch (InvalidTodoException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static TodoFilter ownerFilter(String owner) {
+        return new TodoFilter(null, null, null, null, false, owner);
+    }
+
+    private static long rows(String owner, int shard) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(shardUrls.get(shard), "sa", "");
+             PreparedStatement count = connection.prepareStatement("SELECT COUNT(*) FROM todo WHERE owner = ?")) {
+            count.setString(1, owner);
+            try (ResultSet result = count.executeQuery()) {
+                result.next();
+                return result.getLong(1);
+            }
+        }
+    }
+}
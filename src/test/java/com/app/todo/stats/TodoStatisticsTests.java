@@ -0,0 +1,105 @@
+package com.app.todo.stats;
+
+import com.app.todo.cache.TodoCache;
+import com.app.todo.entity.Priority;
+import com.app.todo.entity.Todo;
+import com.app.todo.event.TodoChangeType;
+import com.app.todo.event.TodoChangedEvent;
+import com.app.todo.payload.AddTodoRequest;
+import com.app.todo.payload.TodoStats;
+import com.app.todo.service.TodoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TodoStatisticsTests {
+
+    @Autowired
+    private TodoService todoService;
+
+    @Autowired
+    private TodoStatistics statistics;
+
+    @Autowired
+    private TodoStatisticsReconciler reconciler;
+
+    @Autowired
+    private TodoCache todoCache;
+
+    @BeforeEach
+    void setUp() {
+        todoService.deleteAll();
+    }
+
+    @Test
+    void keepsCountsExactUnderConcurrentWrites() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                Priority priority = Priority.values()[thread % Priority.values().length];
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        Todo todo = todoService.addTodo(new AddTodoRequest("todo " + i, null, LocalDateTime.now().plusDays(1), priority));
+                        if (i % 5 == 0) {
+                            todoService.markOrUnmarkedAsCompleted(todo.getId());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        TodoStats stats = todoService.getStatistics();
+        assertThat(stats.getTotal()).isEqualTo(200);
+        assertThat(stats.getCompleted()).isEqualTo(40);
+        assertThat(stats.getByPriority()).containsEntry(Priority.LOW, 100L).containsEntry(Priority.MEDIUM, 50L);
+        assertThat(reconciler.reconcile()).isZero();
+    }
+
+    @Test
+    void reconciliationAttributesUncachedDeletesAndCorrectsDrift() throws Exception {
+        Todo high = todoService.addTodo(new AddTodoRequest("high", null, LocalDateTime.now().plusDays(1), Priority.HIGH));
+        todoService.addTodo(new AddTodoRequest("none", null, null, null));
+        todoCache.evict(high.getId());
+        todoService.deleteById(high.getId());
+        //a change the counters never heard of
+        statistics.onTodoChanged(new TodoChangedEvent(TodoChangeType.CREATED, 42L, null, todo(Priority.MEDIUM)));
+
+        TodoStats stats = todoService.getStatistics();
+        assertThat(stats.getTotal()).isEqualTo(2);
+        assertThat(stats.getByPriority()).containsEntry(Priority.HIGH, 1L);
+
+        assertThat(reconciler.reconcile()).isEqualTo(2);
+        assertThat(todoService.getStatistics()).isEqualTo(new TodoStats(1, 0, 1, 0,
+                Map.of(Priority.LOW, 0L, Priority.MEDIUM, 0L, Priority.HIGH, 0L), 1));
+    }
+
+    private static Todo todo(Priority priority) {
+        Todo todo = new Todo();
+        todo.setId(42L);
+        todo.setTitle("ghost");
+        todo.setPriority(priority);
+        todo.setCompleted(false);
+        return todo;
+    }
+}
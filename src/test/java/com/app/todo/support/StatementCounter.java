@@ -0,0 +1,112 @@
+package com.app.todo.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test helper counting the statements actually sent to the database. Every {@code execute*} call and
+ * every {@code executeBatch} call counts as one round trip, however many rows a batch carries. The SQL of the
+ * prepared statements is kept with the parameters last bound to it, so tests can look at the queries Hibernate
+ * generated. Import it with {@code @Import(StatementCounter.class)}.
+ */
+@TestConfiguration
+public class StatementCounter {
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final List<PreparedSql> prepared = new CopyOnWriteArrayList<>();
+
+    /**
+     * A statement prepared by the application, with the parameters last bound to it by index.
+     */
+    public record PreparedSql(String sql, Map<Integer, Object> parameters) {
+    }
+
+    public void reset() {
+        executions.set(0);
+        batches.set(0);
+        prepared.clear();
+    }
+
+    /**
+     * @return the statements prepared since the last reset, in order.
+     */
+    public List<PreparedSql> prepared() {
+        return List.copyOf(prepared);
+    }
+
+    /**
+     * @return the number of round trips (single executions plus batch executions) since the last reset.
+     */
+    public long executions() {
+        return executions.get();
+    }
+
+    /**
+     * @return the number of {@code executeBatch} calls since the last reset.
+     */
+    public long batches() {
+        return batches.get();
+    }
+
+    @Bean
+    static BeanPostProcessor statementCountingPostProcessor(StatementCounter counter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? counter.wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    private DataSource wrap(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, Object target, PreparedSql preparedSql) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            String name = method.getName();
+            if (preparedSql != null && name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                preparedSql.parameters().put(index, name.equals("setNull") ? null : args[1]);
+            }
+            if (name.equals("executeBatch")) {
+                batches.incrementAndGet();
+                executions.incrementAndGet();
+            } else if (name.startsWith("execute") && target instanceof Statement) {
+                executions.incrementAndGet();
+            }
+            if (result instanceof Connection connection && type == DataSource.class) {
+                return proxy(Connection.class, connection, null);
+            }
+            if (result instanceof Statement statement && type == Connection.class) {
+                PreparedSql recorded = null;
+                if (name.startsWith("prepare") && args[0] instanceof String sql) {
+                    recorded = new PreparedSql(sql, Collections.synchronizedMap(new TreeMap<>()));
+                    prepared.add(recorded);
+                }
+                return proxy(method.getReturnType(), statement, recorded);
+            }
+            return result;
+        });
+    }
+}